@@ -0,0 +1,65 @@
+package org.codingspiderfox.benchmark;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.codingspiderfox.domain.Authority;
+import org.codingspiderfox.domain.User;
+import org.codingspiderfox.security.AuthoritiesConstants;
+import org.codingspiderfox.security.SecurityUtils;
+
+/**
+ * Fixtures shared by the benchmarks: users as they are loaded from the database and claims as they are received from
+ * the identity provider.
+ */
+public final class BenchmarkUsers {
+
+    private BenchmarkUsers() {}
+
+    public static List<User> users(int count) {
+        Authority user = authority(AuthoritiesConstants.USER);
+        Authority admin = authority(AuthoritiesConstants.ADMIN);
+        List<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            User u = new User();
+            u.setId("user-" + i);
+            u.setLogin("login" + i);
+            u.setFirstName("First" + i);
+            u.setLastName("Last" + i);
+            u.setEmail("user" + i + "@localhost");
+            u.setImageUrl("https://example.com/avatar/" + i + ".png");
+            u.setActivated(true);
+            u.setLangKey("en");
+            u.setCreatedBy("system");
+            u.setCreatedDate(Instant.parse("2021-01-01T00:00:00Z"));
+            u.setLastModifiedBy("system");
+            u.setLastModifiedDate(Instant.parse("2021-01-01T00:00:00Z"));
+            u.setAuthorities(i % 10 == 0 ? Set.of(user, admin) : Set.of(user));
+            users.add(u);
+        }
+        return users;
+    }
+
+    public static Map<String, Object> claims() {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("sub", "00u1a2b3c4d5e6f7g8h9");
+        claims.put("preferred_username", "John.Doe@example.com");
+        claims.put("given_name", "John");
+        claims.put("family_name", "Doe");
+        claims.put("email", "John.Doe@example.com");
+        claims.put("email_verified", Boolean.TRUE);
+        claims.put("locale", "en-US");
+        claims.put("groups", List.of(AuthoritiesConstants.USER, AuthoritiesConstants.ADMIN, "Everyone", "developers"));
+        claims.put(SecurityUtils.CLAIMS_NAMESPACE + "roles", List.of(AuthoritiesConstants.USER));
+        return claims;
+    }
+
+    private static Authority authority(String name) {
+        Authority authority = new Authority();
+        authority.setName(name);
+        return authority;
+    }
+}
@@ -0,0 +1,86 @@
+package org.codingspiderfox.config;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.concurrent.TimeUnit;
+import org.codingspiderfox.config.ElasticsearchConfiguration.InstantReadingConverter;
+import org.codingspiderfox.config.ElasticsearchConfiguration.InstantWritingConverter;
+import org.codingspiderfox.config.ElasticsearchConfiguration.LocalDateReadingConverter;
+import org.codingspiderfox.config.ElasticsearchConfiguration.LocalDateWritingConverter;
+import org.codingspiderfox.config.ElasticsearchConfiguration.ZonedDateTimeReadingConverter;
+import org.codingspiderfox.config.ElasticsearchConfiguration.ZonedDateTimeWritingConverter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of the date converters of {@link ElasticsearchConfiguration}, applied to each date field of each indexed
+ * or searched document.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ElasticsearchConvertersBenchmark {
+
+    private final ZonedDateTimeWritingConverter zonedDateTimeWriting = new ZonedDateTimeWritingConverter();
+
+    private final ZonedDateTimeReadingConverter zonedDateTimeReading = new ZonedDateTimeReadingConverter();
+
+    private final InstantWritingConverter instantWriting = new InstantWritingConverter();
+
+    private final InstantReadingConverter instantReading = new InstantReadingConverter();
+
+    private final LocalDateWritingConverter localDateWriting = new LocalDateWritingConverter();
+
+    private final LocalDateReadingConverter localDateReading = new LocalDateReadingConverter();
+
+    private final ZonedDateTime zonedDateTime = ZonedDateTime.parse("2021-09-15T10:15:30+02:00[Europe/Paris]");
+
+    private final Instant instant = Instant.parse("2021-09-15T08:15:30.123Z");
+
+    private final LocalDate localDate = LocalDate.parse("2021-09-15");
+
+    private final String instantString = instant.toString();
+
+    private final String localDateString = localDate.toString();
+
+    @Benchmark
+    public String writeZonedDateTime() {
+        return zonedDateTimeWriting.convert(zonedDateTime);
+    }
+
+    @Benchmark
+    public ZonedDateTime readZonedDateTime() {
+        return zonedDateTimeReading.convert(instantString);
+    }
+
+    @Benchmark
+    public String writeInstant() {
+        return instantWriting.convert(instant);
+    }
+
+    @Benchmark
+    public Instant readInstant() {
+        return instantReading.convert(instantString);
+    }
+
+    @Benchmark
+    public String writeLocalDate() {
+        return localDateWriting.convert(localDate);
+    }
+
+    @Benchmark
+    public LocalDate readLocalDate() {
+        return localDateReading.convert(localDateString);
+    }
+}
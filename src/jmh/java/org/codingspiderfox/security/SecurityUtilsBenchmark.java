@@ -0,0 +1,36 @@
+package org.codingspiderfox.security;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.codingspiderfox.benchmark.BenchmarkUsers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.GrantedAuthority;
+
+/**
+ * Benchmark of {@link SecurityUtils#extractAuthorityFromClaims(Map)}, done on each authority check of a JWT
+ * authentication.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SecurityUtilsBenchmark {
+
+    private final Map<String, Object> claims = BenchmarkUsers.claims();
+
+    @Benchmark
+    public List<GrantedAuthority> extractAuthorityFromClaims() {
+        return SecurityUtils.extractAuthorityFromClaims(claims);
+    }
+}
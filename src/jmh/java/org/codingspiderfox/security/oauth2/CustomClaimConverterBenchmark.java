@@ -0,0 +1,104 @@
+package org.codingspiderfox.security.oauth2;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.codingspiderfox.benchmark.BenchmarkUsers;
+import org.codingspiderfox.security.AuthoritiesConstants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Benchmark of the claim mapping of {@link CustomClaimConverter} when the userinfo response is cached, which is the
+ * case of all the requests but the first one of a session.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CustomClaimConverterBenchmark {
+
+    private final Map<String, Object> claims = BenchmarkUsers.claims();
+
+    private CustomClaimConverter customClaimConverter;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ClientRegistration registration = ClientRegistration
+            .withRegistrationId("oidc")
+            .clientId("benchmark")
+            .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+            .redirectUri("{baseUrl}/login/oauth2/code/{registrationId}")
+            .authorizationUri("https://idp.example.com/authorize")
+            .tokenUri("https://idp.example.com/token")
+            .userInfoUri("https://idp.example.com/userinfo")
+            .build();
+        customClaimConverter =
+            new CustomClaimConverter(registration, new UserInfoRestTemplate(), 10000, Duration.ofDays(1), new SimpleMeterRegistry());
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer benchmark");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        // loads the userinfo response in the cache
+        customClaimConverter.convert(claims);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Benchmark
+    public Map<String, Object> convert() {
+        return customClaimConverter.convert(claims);
+    }
+
+    private static class UserInfoRestTemplate extends RestTemplate {
+
+        private final ObjectNode userInfo;
+
+        UserInfoRestTemplate() {
+            userInfo = new ObjectMapper().createObjectNode();
+            userInfo.put("preferred_username", "john.doe@example.com");
+            userInfo.put("given_name", "John");
+            userInfo.put("family_name", "Doe");
+            userInfo.putArray("groups").add(AuthoritiesConstants.ADMIN).add(AuthoritiesConstants.USER);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> ResponseEntity<T> exchange(
+            String url,
+            HttpMethod method,
+            HttpEntity<?> requestEntity,
+            Class<T> responseType,
+            Object... uriVariables
+        ) {
+            return (ResponseEntity<T>) ResponseEntity.ok(userInfo);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package org.codingspiderfox.service;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.codingspiderfox.benchmark.BenchmarkUsers;
+import org.codingspiderfox.domain.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of the mapping of the identity provider claims to a {@link User}, done on each
+ * {@link UserService#getUserFromAuthentication} call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserServiceBenchmark {
+
+    private final Map<String, Object> claims = BenchmarkUsers.claims();
+
+    @Benchmark
+    public User getUser() {
+        return UserService.getUser(claims);
+    }
+}
@@ -0,0 +1,49 @@
+package org.codingspiderfox.service.dto;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.codingspiderfox.benchmark.BenchmarkUsers;
+import org.codingspiderfox.domain.User;
+import org.codingspiderfox.security.AuthoritiesConstants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of the construction of an {@link AdminUserDTO}, from the authorities of the entity or from authority
+ * names loaded separately.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AdminUserDTOBenchmark {
+
+    private final Set<String> authorities = Set.of(AuthoritiesConstants.USER, AuthoritiesConstants.ADMIN);
+
+    private User user;
+
+    @Setup
+    public void setUp() {
+        user = BenchmarkUsers.users(1).get(0);
+    }
+
+    @Benchmark
+    public AdminUserDTO fromUser() {
+        return new AdminUserDTO(user);
+    }
+
+    @Benchmark
+    public AdminUserDTO fromUserAndAuthorities() {
+        return new AdminUserDTO(user, authorities);
+    }
+}
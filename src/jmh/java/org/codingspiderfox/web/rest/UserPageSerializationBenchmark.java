@@ -0,0 +1,72 @@
+package org.codingspiderfox.web.rest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.hibernate5.Hibernate5Module;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.codingspiderfox.benchmark.BenchmarkUsers;
+import org.codingspiderfox.service.dto.AdminUserDTO;
+import org.codingspiderfox.service.dto.UserDTO;
+import org.codingspiderfox.service.mapper.UserMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Benchmark of the Jackson serialization of the pages of users returned by {@link UserResource} and
+ * {@link PublicUserResource}, with the modules of {@code JacksonConfiguration}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserPageSerializationBenchmark {
+
+    @Param({ "20", "1000" })
+    private int size;
+
+    private ObjectWriter writer;
+
+    private List<AdminUserDTO> adminUsers;
+
+    private List<UserDTO> publicUsers;
+
+    @Setup
+    public void setUp() {
+        writer =
+            Jackson2ObjectMapperBuilder
+                .json()
+                .modules(new JavaTimeModule(), new Jdk8Module(), new Hibernate5Module())
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build()
+                .writer();
+        UserMapper userMapper = new UserMapper();
+        adminUsers = userMapper.usersToAdminUserDTOs(BenchmarkUsers.users(size));
+        publicUsers = userMapper.usersToUserDTOs(BenchmarkUsers.users(size));
+    }
+
+    @Benchmark
+    public byte[] adminUsers() throws JsonProcessingException {
+        return writer.writeValueAsBytes(adminUsers);
+    }
+
+    @Benchmark
+    public byte[] publicUsers() throws JsonProcessingException {
+        return writer.writeValueAsBytes(publicUsers);
+    }
+}
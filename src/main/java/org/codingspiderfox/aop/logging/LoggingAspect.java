@@ -1,6 +1,12 @@
 package org.codingspiderfox.aop.logging;
 
-import java.util.Arrays;
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.IntStream;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.AfterThrowing;
@@ -16,15 +22,20 @@ import tech.jhipster.config.JHipsterConstants;
 /**
  * Aspect for logging execution of service and repository Spring components.
  *
- * By default, it only runs with the "dev" profile.
+ * It only runs when {@code application.logging-aspect.mode} is {@code log}, which is the default with the "dev" profile.
  */
 @Aspect
 public class LoggingAspect {
 
-    private final Environment env;
+    private final boolean development;
 
-    public LoggingAspect(Environment env) {
-        this.env = env;
+    private final int maxArgumentLength;
+
+    private final Map<String, Logger> loggers = new ConcurrentHashMap<>();
+
+    public LoggingAspect(Environment env, int maxArgumentLength) {
+        this.development = env.acceptsProfiles(Profiles.of(JHipsterConstants.SPRING_PROFILE_DEVELOPMENT));
+        this.maxArgumentLength = maxArgumentLength;
     }
 
     /**
@@ -58,7 +69,75 @@ public class LoggingAspect {
      * @return {@link Logger} associated to the given {@link JoinPoint}.
      */
     private Logger logger(JoinPoint joinPoint) {
-        return LoggerFactory.getLogger(joinPoint.getSignature().getDeclaringTypeName());
+        return loggers.computeIfAbsent(joinPoint.getSignature().getDeclaringTypeName(), LoggerFactory::getLogger);
+    }
+
+    /**
+     * Renders a value for the logs, truncated to {@code application.logging-aspect.max-argument-length} characters.
+     * <p>
+     * Collections, maps and arrays are rendered element by element, and only until the limit is reached, so that a large
+     * one costs no more than a small one.
+     *
+     * @param value the value.
+     * @return the rendered value.
+     */
+    String render(Object value) {
+        if (value instanceof Collection) {
+            Collection<?> collection = (Collection<?>) value;
+            return renderElements(collection.iterator(), collection.size(), '[', ']', this::render);
+        }
+        if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            return renderElements(
+                map.entrySet().iterator(),
+                map.size(),
+                '{',
+                '}',
+                entry -> render(entry.getKey()) + "=" + render(entry.getValue())
+            );
+        }
+        if (value != null && value.getClass().isArray()) {
+            int length = Array.getLength(value);
+            return renderElements(IntStream.range(0, length).mapToObj(i -> Array.get(value, i)).iterator(), length, '[', ']', this::render);
+        }
+        String rendered = String.valueOf(value);
+        if (rendered.length() <= maxArgumentLength) {
+            return rendered;
+        }
+        return rendered.substring(0, maxArgumentLength) + "...(" + rendered.length() + " chars)";
+    }
+
+    private <T> String renderElements(Iterator<T> elements, int size, char open, char close, Function<T, String> renderer) {
+        StringBuilder rendered = new StringBuilder().append(open);
+        boolean first = true;
+        while (elements.hasNext() && rendered.length() <= maxArgumentLength) {
+            if (!first) {
+                rendered.append(", ");
+            }
+            rendered.append(renderer.apply(elements.next()));
+            first = false;
+        }
+        if (rendered.length() < maxArgumentLength && !elements.hasNext()) {
+            return rendered.append(close).toString();
+        }
+        return rendered.substring(0, Math.min(rendered.length(), maxArgumentLength)) + "...(" + size + " elements)";
+    }
+
+    /**
+     * Renders the arguments of a call for the logs, each one truncated like {@link #render(Object)}.
+     *
+     * @param args the arguments.
+     * @return the rendered arguments.
+     */
+    String renderArguments(Object[] args) {
+        StringBuilder rendered = new StringBuilder("[");
+        for (int i = 0; i < args.length; i++) {
+            if (i > 0) {
+                rendered.append(", ");
+            }
+            rendered.append(render(args[i]));
+        }
+        return rendered.append(']').toString();
     }
 
     /**
@@ -69,7 +148,7 @@ public class LoggingAspect {
      */
     @AfterThrowing(pointcut = "applicationPackagePointcut() && springBeanPointcut()", throwing = "e")
     public void logAfterThrowing(JoinPoint joinPoint, Throwable e) {
-        if (env.acceptsProfiles(Profiles.of(JHipsterConstants.SPRING_PROFILE_DEVELOPMENT))) {
+        if (development) {
             logger(joinPoint)
                 .error(
                     "Exception in {}() with cause = \'{}\' and exception = \'{}\'",
@@ -99,16 +178,16 @@ public class LoggingAspect {
     public Object logAround(ProceedingJoinPoint joinPoint) throws Throwable {
         Logger log = logger(joinPoint);
         if (log.isDebugEnabled()) {
-            log.debug("Enter: {}() with argument[s] = {}", joinPoint.getSignature().getName(), Arrays.toString(joinPoint.getArgs()));
+            log.debug("Enter: {}() with argument[s] = {}", joinPoint.getSignature().getName(), renderArguments(joinPoint.getArgs()));
         }
         try {
             Object result = joinPoint.proceed();
             if (log.isDebugEnabled()) {
-                log.debug("Exit: {}() with result = {}", joinPoint.getSignature().getName(), result);
+                log.debug("Exit: {}() with result = {}", joinPoint.getSignature().getName(), render(result));
             }
             return result;
         } catch (IllegalArgumentException e) {
-            log.error("Illegal argument: {} in {}()", Arrays.toString(joinPoint.getArgs()), joinPoint.getSignature().getName());
+            log.error("Illegal argument: {} in {}()", renderArguments(joinPoint.getArgs()), joinPoint.getSignature().getName());
             throw e;
         }
     }
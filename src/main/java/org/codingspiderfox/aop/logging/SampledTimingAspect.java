@@ -0,0 +1,126 @@
+package org.codingspiderfox.aop.logging;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Aspect recording the latency of service, repository and Web REST methods in the {@code method.timed} Micrometer
+ * timer, tagged with the class and method names.
+ * <p>
+ * The class is the one of the advised bean rather than the one declaring the method, so that the methods inherited
+ * from the Spring Data interfaces are timed separately for each repository.
+ * <p>
+ * Only one call in every {@code application.logging-aspect.sampling-interval} of each method is timed, the others
+ * only pay for a counter increment. It only runs when {@code application.logging-aspect.mode} is {@code timing}.
+ */
+@Aspect
+public class SampledTimingAspect {
+
+    static final String TIMER_NAME = "method.timed";
+
+    private static final String APPLICATION_PACKAGE = "org.codingspiderfox.";
+
+    private final MeterRegistry meterRegistry;
+
+    private final int samplingInterval;
+
+    private final Map<Class<?>, Map<Method, SampledTimer>> timers = new ConcurrentHashMap<>();
+
+    public SampledTimingAspect(MeterRegistry meterRegistry, int samplingInterval) {
+        this.meterRegistry = meterRegistry;
+        this.samplingInterval = Math.max(1, samplingInterval);
+    }
+
+    /**
+     * Advice that times a sample of the calls of a method.
+     *
+     * @param joinPoint join point for advice.
+     * @return result.
+     * @throws Throwable the exception thrown by the method.
+     */
+    @Around("org.codingspiderfox.aop.logging.LoggingAspect.applicationPackagePointcut() && org.codingspiderfox.aop.logging.LoggingAspect.springBeanPointcut()")
+    public Object timeAround(ProceedingJoinPoint joinPoint) throws Throwable {
+        SampledTimer timer = timer(joinPoint);
+        if (timer.calls.getAndIncrement() % samplingInterval != 0) {
+            return joinPoint.proceed();
+        }
+        long start = meterRegistry.config().clock().monotonicTime();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            timer.record(meterRegistry.config().clock().monotonicTime() - start);
+        }
+    }
+
+    private SampledTimer timer(JoinPoint joinPoint) {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Map<Method, SampledTimer> beanTimers = timers.computeIfAbsent(
+            joinPoint.getThis().getClass(),
+            beanClass -> new ConcurrentHashMap<>()
+        );
+        SampledTimer timer = beanTimers.get(method);
+        if (timer == null) {
+            timer = beanTimers.computeIfAbsent(method, key -> createTimer(userClass(joinPoint), key));
+        }
+        return timer;
+    }
+
+    /**
+     * Resolves the application class of the advised bean: its own class for the services and REST controllers, and its
+     * interface for the Spring Data repositories, which are implemented by a generic class.
+     *
+     * @param joinPoint the join point.
+     * @return the application class.
+     */
+    static Class<?> userClass(JoinPoint joinPoint) {
+        Class<?> targetClass = AopProxyUtils.ultimateTargetClass(joinPoint.getTarget());
+        if (targetClass.getName().startsWith(APPLICATION_PACKAGE)) {
+            return targetClass;
+        }
+        for (Class<?> beanInterface : ClassUtils.getAllInterfacesForClassAsSet(joinPoint.getThis().getClass())) {
+            if (beanInterface.getName().startsWith(APPLICATION_PACKAGE)) {
+                return beanInterface;
+            }
+        }
+        return targetClass;
+    }
+
+    private SampledTimer createTimer(Class<?> userClass, Method method) {
+        return new SampledTimer(
+            Timer
+                .builder(TIMER_NAME)
+                .description("Latency of a sample of the calls to the service, repository and REST methods")
+                .tag("class", userClass.getSimpleName())
+                .tag("method", method.getName())
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+        );
+    }
+
+    private static final class SampledTimer {
+
+        private final AtomicLong calls = new AtomicLong();
+
+        private final Timer timer;
+
+        private SampledTimer(Timer timer) {
+            this.timer = timer;
+        }
+
+        private void record(long nanos) {
+            timer.record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package org.codingspiderfox.config;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 /**
@@ -9,4 +11,552 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  * See {@link tech.jhipster.config.JHipsterProperties} for a good example.
  */
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
-public class ApplicationProperties {}
+public class ApplicationProperties {
+
+    private final Security security = new Security();
+
+    private final SearchIndexing searchIndexing = new SearchIndexing();
+
+    private final Map<String, Cache> caches = new LinkedHashMap<>();
+
+    private final CacheInvalidation cacheInvalidation = new CacheInvalidation();
+
+    private final PostgresNotifications postgresNotifications = new PostgresNotifications();
+
+    private final Websocket websocket = new Websocket();
+
+    private final LoggingAspect loggingAspect = new LoggingAspect();
+
+    private final UserExport userExport = new UserExport();
+
+    public Security getSecurity() {
+        return security;
+    }
+
+    public SearchIndexing getSearchIndexing() {
+        return searchIndexing;
+    }
+
+    public Map<String, Cache> getCaches() {
+        return caches;
+    }
+
+    public CacheInvalidation getCacheInvalidation() {
+        return cacheInvalidation;
+    }
+
+    public PostgresNotifications getPostgresNotifications() {
+        return postgresNotifications;
+    }
+
+    public Websocket getWebsocket() {
+        return websocket;
+    }
+
+    public LoggingAspect getLoggingAspect() {
+        return loggingAspect;
+    }
+
+    public UserExport getUserExport() {
+        return userExport;
+    }
+
+    public static class Security {
+
+        private final UserInfoCache userInfoCache = new UserInfoCache();
+
+        private final Jwt jwt = new Jwt();
+
+        private long accessTokenSkewSeconds = 60;
+
+        public UserInfoCache getUserInfoCache() {
+            return userInfoCache;
+        }
+
+        public Jwt getJwt() {
+            return jwt;
+        }
+
+        public long getAccessTokenSkewSeconds() {
+            return accessTokenSkewSeconds;
+        }
+
+        public void setAccessTokenSkewSeconds(long accessTokenSkewSeconds) {
+            this.accessTokenSkewSeconds = accessTokenSkewSeconds;
+        }
+
+        public static class UserInfoCache {
+
+            private int maxEntries = 10000;
+
+            private long timeToLiveSeconds = 300;
+
+            public int getMaxEntries() {
+                return maxEntries;
+            }
+
+            public void setMaxEntries(int maxEntries) {
+                this.maxEntries = maxEntries;
+            }
+
+            public long getTimeToLiveSeconds() {
+                return timeToLiveSeconds;
+            }
+
+            public void setTimeToLiveSeconds(long timeToLiveSeconds) {
+                this.timeToLiveSeconds = timeToLiveSeconds;
+            }
+        }
+
+        public static class Jwt {
+
+            private int cacheMaxEntries = 10000;
+
+            private long jwkSetRefreshIntervalSeconds = 300;
+
+            public int getCacheMaxEntries() {
+                return cacheMaxEntries;
+            }
+
+            public void setCacheMaxEntries(int cacheMaxEntries) {
+                this.cacheMaxEntries = cacheMaxEntries;
+            }
+
+            public long getJwkSetRefreshIntervalSeconds() {
+                return jwkSetRefreshIntervalSeconds;
+            }
+
+            public void setJwkSetRefreshIntervalSeconds(long jwkSetRefreshIntervalSeconds) {
+                this.jwkSetRefreshIntervalSeconds = jwkSetRefreshIntervalSeconds;
+            }
+        }
+    }
+
+    public static class SearchIndexing {
+
+        private int batchSize = 500;
+
+        private int maxBatchesPerFlush = 20;
+
+        private long flushIntervalMs = 1000;
+
+        private long initialBackoffMs = 1000;
+
+        private long maxBackoffMs = 60000;
+
+        private int reindexChunkSize = 1000;
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public int getMaxBatchesPerFlush() {
+            return maxBatchesPerFlush;
+        }
+
+        public void setMaxBatchesPerFlush(int maxBatchesPerFlush) {
+            this.maxBatchesPerFlush = maxBatchesPerFlush;
+        }
+
+        public long getFlushIntervalMs() {
+            return flushIntervalMs;
+        }
+
+        public void setFlushIntervalMs(long flushIntervalMs) {
+            this.flushIntervalMs = flushIntervalMs;
+        }
+
+        public long getInitialBackoffMs() {
+            return initialBackoffMs;
+        }
+
+        public void setInitialBackoffMs(long initialBackoffMs) {
+            this.initialBackoffMs = initialBackoffMs;
+        }
+
+        public long getMaxBackoffMs() {
+            return maxBackoffMs;
+        }
+
+        public void setMaxBackoffMs(long maxBackoffMs) {
+            this.maxBackoffMs = maxBackoffMs;
+        }
+
+        public int getReindexChunkSize() {
+            return reindexChunkSize;
+        }
+
+        public void setReindexChunkSize(int reindexChunkSize) {
+            this.reindexChunkSize = reindexChunkSize;
+        }
+    }
+
+    /**
+     * Sizing, expiry and tiering of one cache, overriding {@code jhipster.cache.ehcache} for that cache.
+     */
+    public static class Cache {
+
+        private Long heapEntries;
+
+        private long offHeapSizeMb = 0;
+
+        private Long timeToLiveSeconds;
+
+        public Long getHeapEntries() {
+            return heapEntries;
+        }
+
+        public void setHeapEntries(Long heapEntries) {
+            this.heapEntries = heapEntries;
+        }
+
+        public long getOffHeapSizeMb() {
+            return offHeapSizeMb;
+        }
+
+        public void setOffHeapSizeMb(long offHeapSizeMb) {
+            this.offHeapSizeMb = offHeapSizeMb;
+        }
+
+        public Long getTimeToLiveSeconds() {
+            return timeToLiveSeconds;
+        }
+
+        public void setTimeToLiveSeconds(Long timeToLiveSeconds) {
+            this.timeToLiveSeconds = timeToLiveSeconds;
+        }
+    }
+
+    public static class CacheInvalidation {
+
+        private boolean enabled = false;
+
+        private String channel = "cache_invalidation";
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getChannel() {
+            return channel;
+        }
+
+        public void setChannel(String channel) {
+            this.channel = channel;
+        }
+    }
+
+    public static class PostgresNotifications {
+
+        private String eventChannel = "cluster_event";
+
+        private long flushIntervalMs = 20;
+
+        public String getEventChannel() {
+            return eventChannel;
+        }
+
+        public void setEventChannel(String eventChannel) {
+            this.eventChannel = eventChannel;
+        }
+
+        public long getFlushIntervalMs() {
+            return flushIntervalMs;
+        }
+
+        public void setFlushIntervalMs(long flushIntervalMs) {
+            this.flushIntervalMs = flushIntervalMs;
+        }
+    }
+
+    public static class Websocket {
+
+        /**
+         * How the messages sent to {@code /topic} reach the subscribers.
+         */
+        public enum BrokerMode {
+            /**
+             * An in-memory broker, only reaching the sessions connected to this node.
+             */
+            SIMPLE,
+            /**
+             * An in-memory broker on each node, relaying the messages to the other nodes with PostgreSQL {@code LISTEN/NOTIFY}.
+             */
+            POSTGRES,
+            /**
+             * An external STOMP broker, such as RabbitMQ or ActiveMQ, shared by all the nodes.
+             */
+            RELAY,
+        }
+
+        private BrokerMode broker = BrokerMode.SIMPLE;
+
+        private final Postgres postgres = new Postgres();
+
+        private final Relay relay = new Relay();
+
+        private int inboundPoolSize = 8;
+
+        private int outboundPoolSize = 8;
+
+        private int brokerPoolSize = 4;
+
+        private int sendTimeLimitMs = 10000;
+
+        private int sendBufferSizeLimitBytes = 512 * 1024;
+
+        private int messageSizeLimitBytes = 64 * 1024;
+
+        private long trackerFlushIntervalMs = 500;
+
+        private long presenceIdleTimeoutSeconds = 3600;
+
+        private long presenceEvictionIntervalMs = 60000;
+
+        public BrokerMode getBroker() {
+            return broker;
+        }
+
+        public void setBroker(BrokerMode broker) {
+            this.broker = broker;
+        }
+
+        public Postgres getPostgres() {
+            return postgres;
+        }
+
+        public Relay getRelay() {
+            return relay;
+        }
+
+        public int getInboundPoolSize() {
+            return inboundPoolSize;
+        }
+
+        public void setInboundPoolSize(int inboundPoolSize) {
+            this.inboundPoolSize = inboundPoolSize;
+        }
+
+        public int getOutboundPoolSize() {
+            return outboundPoolSize;
+        }
+
+        public void setOutboundPoolSize(int outboundPoolSize) {
+            this.outboundPoolSize = outboundPoolSize;
+        }
+
+        public int getBrokerPoolSize() {
+            return brokerPoolSize;
+        }
+
+        public void setBrokerPoolSize(int brokerPoolSize) {
+            this.brokerPoolSize = brokerPoolSize;
+        }
+
+        public int getSendTimeLimitMs() {
+            return sendTimeLimitMs;
+        }
+
+        public void setSendTimeLimitMs(int sendTimeLimitMs) {
+            this.sendTimeLimitMs = sendTimeLimitMs;
+        }
+
+        public int getSendBufferSizeLimitBytes() {
+            return sendBufferSizeLimitBytes;
+        }
+
+        public void setSendBufferSizeLimitBytes(int sendBufferSizeLimitBytes) {
+            this.sendBufferSizeLimitBytes = sendBufferSizeLimitBytes;
+        }
+
+        public int getMessageSizeLimitBytes() {
+            return messageSizeLimitBytes;
+        }
+
+        public void setMessageSizeLimitBytes(int messageSizeLimitBytes) {
+            this.messageSizeLimitBytes = messageSizeLimitBytes;
+        }
+
+        public long getTrackerFlushIntervalMs() {
+            return trackerFlushIntervalMs;
+        }
+
+        public void setTrackerFlushIntervalMs(long trackerFlushIntervalMs) {
+            this.trackerFlushIntervalMs = trackerFlushIntervalMs;
+        }
+
+        public long getPresenceIdleTimeoutSeconds() {
+            return presenceIdleTimeoutSeconds;
+        }
+
+        public void setPresenceIdleTimeoutSeconds(long presenceIdleTimeoutSeconds) {
+            this.presenceIdleTimeoutSeconds = presenceIdleTimeoutSeconds;
+        }
+
+        public long getPresenceEvictionIntervalMs() {
+            return presenceEvictionIntervalMs;
+        }
+
+        public void setPresenceEvictionIntervalMs(long presenceEvictionIntervalMs) {
+            this.presenceEvictionIntervalMs = presenceEvictionIntervalMs;
+        }
+
+        public static class Postgres {
+
+            private String channel = "websocket_broker";
+
+            private String snapshotChannel = "websocket_tracker_snapshot";
+
+            public String getChannel() {
+                return channel;
+            }
+
+            public void setChannel(String channel) {
+                this.channel = channel;
+            }
+
+            public String getSnapshotChannel() {
+                return snapshotChannel;
+            }
+
+            public void setSnapshotChannel(String snapshotChannel) {
+                this.snapshotChannel = snapshotChannel;
+            }
+        }
+
+        public static class Relay {
+
+            private String host = "localhost";
+
+            private int port = 61613;
+
+            private String clientLogin = "guest";
+
+            private String clientPasscode = "guest";
+
+            private String systemLogin = "guest";
+
+            private String systemPasscode = "guest";
+
+            public String getHost() {
+                return host;
+            }
+
+            public void setHost(String host) {
+                this.host = host;
+            }
+
+            public int getPort() {
+                return port;
+            }
+
+            public void setPort(int port) {
+                this.port = port;
+            }
+
+            public String getClientLogin() {
+                return clientLogin;
+            }
+
+            public void setClientLogin(String clientLogin) {
+                this.clientLogin = clientLogin;
+            }
+
+            public String getClientPasscode() {
+                return clientPasscode;
+            }
+
+            public void setClientPasscode(String clientPasscode) {
+                this.clientPasscode = clientPasscode;
+            }
+
+            public String getSystemLogin() {
+                return systemLogin;
+            }
+
+            public void setSystemLogin(String systemLogin) {
+                this.systemLogin = systemLogin;
+            }
+
+            public String getSystemPasscode() {
+                return systemPasscode;
+            }
+
+            public void setSystemPasscode(String systemPasscode) {
+                this.systemPasscode = systemPasscode;
+            }
+        }
+    }
+
+    /**
+     * Instrumentation of the repository, service and REST beans; no aspect is registered at all when it is off.
+     */
+    public static class LoggingAspect {
+
+        public enum Mode {
+            /**
+             * No instrumentation.
+             */
+            OFF,
+            /**
+             * Debug logs on entering and exiting each method.
+             */
+            LOG,
+            /**
+             * Latency histograms of a sample of the calls of each method, in the {@code method.timed} timer.
+             */
+            TIMING,
+        }
+
+        private Mode mode = Mode.OFF;
+
+        private int maxArgumentLength = 200;
+
+        private int samplingInterval = 10;
+
+        public Mode getMode() {
+            return mode;
+        }
+
+        public void setMode(Mode mode) {
+            this.mode = mode;
+        }
+
+        public int getMaxArgumentLength() {
+            return maxArgumentLength;
+        }
+
+        public void setMaxArgumentLength(int maxArgumentLength) {
+            this.maxArgumentLength = maxArgumentLength;
+        }
+
+        public int getSamplingInterval() {
+            return samplingInterval;
+        }
+
+        public void setSamplingInterval(int samplingInterval) {
+            this.samplingInterval = samplingInterval;
+        }
+    }
+
+    public static class UserExport {
+
+        private long timeoutMs = 1800000;
+
+        public long getTimeoutMs() {
+            return timeoutMs;
+        }
+
+        public void setTimeoutMs(long timeoutMs) {
+            this.timeoutMs = timeoutMs;
+        }
+    }
+}
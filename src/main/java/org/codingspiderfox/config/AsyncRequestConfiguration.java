@@ -0,0 +1,18 @@
+package org.codingspiderfox.config;
+
+import org.codingspiderfox.web.rest.util.AsyncRequestTimeoutInterceptor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Configure the asynchronous request processing, so that handlers can set their own timeout.
+ */
+@Configuration
+public class AsyncRequestConfiguration implements WebMvcConfigurer {
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.registerCallableInterceptors(new AsyncRequestTimeoutInterceptor());
+    }
+}
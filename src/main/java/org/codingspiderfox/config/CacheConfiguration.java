@@ -1,7 +1,9 @@
 package org.codingspiderfox.config;
 
 import java.time.Duration;
+import java.util.Map;
 import org.ehcache.config.builders.*;
+import org.ehcache.config.units.MemoryUnit;
 import org.ehcache.jsr107.Eh107Configuration;
 import org.hibernate.cache.jcache.ConfigSettings;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -21,18 +23,35 @@ public class CacheConfiguration {
 
     private GitProperties gitProperties;
     private BuildProperties buildProperties;
+    private final JHipsterProperties.Cache.Ehcache ehcache;
+    private final Map<String, ApplicationProperties.Cache> caches;
     private final javax.cache.configuration.Configuration<Object, Object> jcacheConfiguration;
 
-    public CacheConfiguration(JHipsterProperties jHipsterProperties) {
-        JHipsterProperties.Cache.Ehcache ehcache = jHipsterProperties.getCache().getEhcache();
+    public CacheConfiguration(JHipsterProperties jHipsterProperties, ApplicationProperties applicationProperties) {
+        ehcache = jHipsterProperties.getCache().getEhcache();
+        caches = applicationProperties.getCaches();
 
-        jcacheConfiguration =
-            Eh107Configuration.fromEhcacheCacheConfiguration(
-                CacheConfigurationBuilder
-                    .newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(ehcache.getMaxEntries()))
-                    .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(Duration.ofSeconds(ehcache.getTimeToLiveSeconds())))
-                    .build()
-            );
+        jcacheConfiguration = jcacheConfiguration(new ApplicationProperties.Cache());
+    }
+
+    /**
+     * Builds the configuration of a cache, falling back to {@code jhipster.cache.ehcache} for the unset values.
+     * <p>
+     * An off-heap tier is only added when {@code off-heap-size-mb} is set, as it requires serializable keys and values.
+     */
+    private javax.cache.configuration.Configuration<Object, Object> jcacheConfiguration(ApplicationProperties.Cache cache) {
+        long heapEntries = cache.getHeapEntries() != null ? cache.getHeapEntries() : ehcache.getMaxEntries();
+        long timeToLiveSeconds = cache.getTimeToLiveSeconds() != null ? cache.getTimeToLiveSeconds() : ehcache.getTimeToLiveSeconds();
+        ResourcePoolsBuilder resourcePools = ResourcePoolsBuilder.heap(heapEntries);
+        if (cache.getOffHeapSizeMb() > 0) {
+            resourcePools = resourcePools.offheap(cache.getOffHeapSizeMb(), MemoryUnit.MB);
+        }
+        return Eh107Configuration.fromEhcacheCacheConfiguration(
+            CacheConfigurationBuilder
+                .newCacheConfigurationBuilder(Object.class, Object.class, resourcePools)
+                .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(Duration.ofSeconds(timeToLiveSeconds)))
+                .build()
+        );
     }
 
     @Bean
@@ -45,6 +64,8 @@ public class CacheConfiguration {
         return cm -> {
             createCache(cm, org.codingspiderfox.repository.UserRepository.USERS_BY_LOGIN_CACHE);
             createCache(cm, org.codingspiderfox.repository.UserRepository.USERS_BY_EMAIL_CACHE);
+            createCache(cm, org.codingspiderfox.service.UserService.USER_SYNC_FINGERPRINTS_CACHE);
+            createCache(cm, org.codingspiderfox.service.UserSuggestionService.USER_SUGGESTIONS_CACHE);
             createCache(cm, org.codingspiderfox.domain.User.class.getName());
             createCache(cm, org.codingspiderfox.domain.Authority.class.getName());
             createCache(cm, org.codingspiderfox.domain.User.class.getName() + ".authorities");
@@ -57,7 +78,8 @@ public class CacheConfiguration {
         if (cache != null) {
             cache.clear();
         } else {
-            cm.createCache(cacheName, jcacheConfiguration);
+            ApplicationProperties.Cache tuning = caches.get(cacheName);
+            cm.createCache(cacheName, tuning != null ? jcacheConfiguration(tuning) : jcacheConfiguration);
         }
     }
 
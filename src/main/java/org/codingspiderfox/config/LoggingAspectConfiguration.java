@@ -1,17 +1,25 @@
 package org.codingspiderfox.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.codingspiderfox.aop.logging.LoggingAspect;
+import org.codingspiderfox.aop.logging.SampledTimingAspect;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.*;
 import org.springframework.core.env.Environment;
-import tech.jhipster.config.JHipsterConstants;
 
 @Configuration
 @EnableAspectJAutoProxy
 public class LoggingAspectConfiguration {
 
     @Bean
-    @Profile(JHipsterConstants.SPRING_PROFILE_DEVELOPMENT)
-    public LoggingAspect loggingAspect(Environment env) {
-        return new LoggingAspect(env);
+    @ConditionalOnProperty(prefix = "application.logging-aspect", name = "mode", havingValue = "log")
+    public LoggingAspect loggingAspect(Environment env, ApplicationProperties applicationProperties) {
+        return new LoggingAspect(env, applicationProperties.getLoggingAspect().getMaxArgumentLength());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "application.logging-aspect", name = "mode", havingValue = "timing")
+    public SampledTimingAspect sampledTimingAspect(MeterRegistry meterRegistry, ApplicationProperties applicationProperties) {
+        return new SampledTimingAspect(meterRegistry, applicationProperties.getLoggingAspect().getSamplingInterval());
     }
 }
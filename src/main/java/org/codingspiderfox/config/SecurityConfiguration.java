@@ -1,17 +1,26 @@
 package org.codingspiderfox.config;
 
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
 import java.util.*;
 import org.codingspiderfox.security.*;
 import org.codingspiderfox.security.SecurityUtils;
 import org.codingspiderfox.security.oauth2.AudienceValidator;
+import org.codingspiderfox.security.oauth2.CachingJwtDecoder;
 import org.codingspiderfox.security.oauth2.CustomClaimConverter;
 import org.codingspiderfox.security.oauth2.JwtGrantedAuthorityConverter;
+import org.codingspiderfox.security.oauth2.PrefetchingJwkSource;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.http.HttpMethod;
+import org.springframework.security.access.expression.method.MethodSecurityExpressionHandler;
 import org.springframework.security.authentication.AbstractAuthenticationToken;
 import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -20,6 +29,7 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.mapping.GrantedAuthoritiesMapper;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
 import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
 import org.springframework.security.oauth2.core.DelegatingOAuth2TokenValidator;
 import org.springframework.security.oauth2.core.OAuth2TokenValidator;
@@ -47,10 +57,18 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
 
     private final SecurityProblemSupport problemSupport;
 
-    public SecurityConfiguration(CorsFilter corsFilter, JHipsterProperties jHipsterProperties, SecurityProblemSupport problemSupport) {
+    private final ApplicationProperties applicationProperties;
+
+    public SecurityConfiguration(
+        CorsFilter corsFilter,
+        JHipsterProperties jHipsterProperties,
+        SecurityProblemSupport problemSupport,
+        ApplicationProperties applicationProperties
+    ) {
         this.corsFilter = corsFilter;
         this.problemSupport = problemSupport;
         this.jHipsterProperties = jHipsterProperties;
+        this.applicationProperties = applicationProperties;
     }
 
     @Override
@@ -125,33 +143,86 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
     @Bean
     public GrantedAuthoritiesMapper userAuthoritiesMapper() {
         return authorities -> {
-            Set<GrantedAuthority> mappedAuthorities = new HashSet<>();
+            Collection<GrantedAuthority> mappedAuthorities = List.of();
 
-            authorities.forEach(authority -> {
+            for (GrantedAuthority authority : authorities) {
                 // Check for OidcUserAuthority because Spring Security 5.2 returns
                 // each scope as a GrantedAuthority, which we don't care about.
                 if (authority instanceof OidcUserAuthority) {
                     OidcUserAuthority oidcUserAuthority = (OidcUserAuthority) authority;
-                    mappedAuthorities.addAll(SecurityUtils.extractAuthorityFromClaims(oidcUserAuthority.getUserInfo().getClaims()));
+                    List<GrantedAuthority> roles = SecurityUtils.extractAuthorityFromClaims(oidcUserAuthority.getUserInfo().getClaims());
+                    if (mappedAuthorities.isEmpty()) {
+                        // the memoised authorities of the roles, in the common case of a single user info
+                        mappedAuthorities = roles;
+                    } else {
+                        mappedAuthorities = new LinkedHashSet<>(mappedAuthorities);
+                        mappedAuthorities.addAll(roles);
+                    }
                 }
-            });
+            }
             return mappedAuthorities;
         };
     }
 
+    /**
+     * Evaluates the method security expressions against the authorities resolved once per authentication.
+     * <p>
+     * Static, as the method security configuration looks it up before this configuration is created.
+     *
+     * @return the {@link MethodSecurityExpressionHandler} picked up by {@link EnableGlobalMethodSecurity}.
+     */
+    @Bean
+    static MethodSecurityExpressionHandler methodSecurityExpressionHandler() {
+        return new AuthoritySetMethodSecurityExpressionHandler();
+    }
+
+    /**
+     * JWK set of the IdP, prefetched and refreshed in the background.
+     * <p>
+     * {@link #jwtDecoder} needs its algorithms, so it is created, and the JWK set fetched, at startup: the application
+     * does not start while the IdP is unreachable. It is only lazy so that it is never created, nor the IdP called, when
+     * {@link #jwtDecoder} is replaced, as in the tests.
+     */
+    @Bean
+    @Lazy
+    PrefetchingJwkSource jwkSource(ClientRegistrationRepository clientRegistrationRepository, RestTemplateBuilder restTemplateBuilder) {
+        ClientRegistration registration = clientRegistrationRepository.findByRegistrationId("oidc");
+        return new PrefetchingJwkSource(
+            registration.getProviderDetails().getJwkSetUri(),
+            restTemplateBuilder.build(),
+            Duration.ofSeconds(applicationProperties.getSecurity().getJwt().getJwkSetRefreshIntervalSeconds())
+        );
+    }
+
     @Bean
-    JwtDecoder jwtDecoder(ClientRegistrationRepository clientRegistrationRepository, RestTemplateBuilder restTemplateBuilder) {
-        NimbusJwtDecoder jwtDecoder = (NimbusJwtDecoder) JwtDecoders.fromOidcIssuerLocation(issuerUri);
+    JwtDecoder jwtDecoder(
+        ClientRegistrationRepository clientRegistrationRepository,
+        RestTemplateBuilder restTemplateBuilder,
+        MeterRegistry meterRegistry,
+        PrefetchingJwkSource jwkSource
+    ) {
+        DefaultJWTProcessor<SecurityContext> jwtProcessor = new DefaultJWTProcessor<>();
+        jwtProcessor.setJWSKeySelector(new JWSVerificationKeySelector<>(jwkSource.getJwsAlgorithms(), jwkSource));
+        // Spring Security validates the claim set independent from Nimbus
+        jwtProcessor.setJWTClaimsSetVerifier((claims, context) -> {});
+        NimbusJwtDecoder jwtDecoder = new NimbusJwtDecoder(jwtProcessor);
 
         OAuth2TokenValidator<Jwt> audienceValidator = new AudienceValidator(jHipsterProperties.getSecurity().getOauth2().getAudience());
         OAuth2TokenValidator<Jwt> withIssuer = JwtValidators.createDefaultWithIssuer(issuerUri);
         OAuth2TokenValidator<Jwt> withAudience = new DelegatingOAuth2TokenValidator<>(withIssuer, audienceValidator);
 
         jwtDecoder.setJwtValidator(withAudience);
+        ApplicationProperties.Security.UserInfoCache userInfoCache = applicationProperties.getSecurity().getUserInfoCache();
         jwtDecoder.setClaimSetConverter(
-            new CustomClaimConverter(clientRegistrationRepository.findByRegistrationId("oidc"), restTemplateBuilder.build())
+            new CustomClaimConverter(
+                clientRegistrationRepository.findByRegistrationId("oidc"),
+                restTemplateBuilder.build(),
+                userInfoCache.getMaxEntries(),
+                Duration.ofSeconds(userInfoCache.getTimeToLiveSeconds()),
+                meterRegistry
+            )
         );
 
-        return jwtDecoder;
+        return new CachingJwtDecoder(jwtDecoder, applicationProperties.getSecurity().getJwt().getCacheMaxEntries());
     }
 }
@@ -3,9 +3,12 @@ package org.codingspiderfox.config;
 import java.security.Principal;
 import java.util.*;
 import org.codingspiderfox.security.AuthoritiesConstants;
+import org.codingspiderfox.web.websocket.PostgresBrokerRelay;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.server.*;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.security.authentication.AnonymousAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -23,13 +26,60 @@ public class WebsocketConfiguration implements WebSocketMessageBrokerConfigurer
 
     private final JHipsterProperties jHipsterProperties;
 
-    public WebsocketConfiguration(JHipsterProperties jHipsterProperties) {
+    private final ApplicationProperties.Websocket properties;
+
+    private final ObjectProvider<PostgresBrokerRelay> postgresBrokerRelay;
+
+    public WebsocketConfiguration(
+        JHipsterProperties jHipsterProperties,
+        ApplicationProperties applicationProperties,
+        ObjectProvider<PostgresBrokerRelay> postgresBrokerRelay
+    ) {
         this.jHipsterProperties = jHipsterProperties;
+        this.properties = applicationProperties.getWebsocket();
+        this.postgresBrokerRelay = postgresBrokerRelay;
     }
 
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        config.enableSimpleBroker("/topic");
+        if (properties.getBroker() == ApplicationProperties.Websocket.BrokerMode.RELAY) {
+            ApplicationProperties.Websocket.Relay relay = properties.getRelay();
+            config
+                .enableStompBrokerRelay("/topic")
+                .setRelayHost(relay.getHost())
+                .setRelayPort(relay.getPort())
+                .setClientLogin(relay.getClientLogin())
+                .setClientPasscode(relay.getClientPasscode())
+                .setSystemLogin(relay.getSystemLogin())
+                .setSystemPasscode(relay.getSystemPasscode());
+        } else {
+            config.enableSimpleBroker("/topic");
+        }
+        // fan out to the subscribers on a dedicated pool rather than on the threads reading the inbound messages
+        config.configureBrokerChannel().taskExecutor().corePoolSize(properties.getBrokerPoolSize());
+        postgresBrokerRelay.ifAvailable(relay -> config.configureBrokerChannel().interceptors(relay));
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor().corePoolSize(properties.getInboundPoolSize());
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor().corePoolSize(properties.getOutboundPoolSize());
+    }
+
+    /**
+     * Bounds what a session may buffer: a client that does not read its messages fast enough is disconnected once its
+     * sends stall for longer than the time limit or its buffer overflows, instead of holding up the outbound threads.
+     */
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration
+            .setSendTimeLimit(properties.getSendTimeLimitMs())
+            .setSendBufferSizeLimit(properties.getSendBufferSizeLimitBytes())
+            .setMessageSizeLimit(properties.getMessageSizeLimitBytes());
     }
 
     @Override
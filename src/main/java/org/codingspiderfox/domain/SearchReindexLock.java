@@ -0,0 +1,101 @@
+package org.codingspiderfox.domain;
+
+import java.io.Serializable;
+import java.time.Instant;
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+
+/**
+ * The node rebuilding a search index, if any.
+ * <p>
+ * The outbox flush of the other nodes reads the row with a shared lock in each batch transaction, and skips the batch
+ * while another node holds an unexpired lease, so that the rebuilding node indexes, and records, every change.
+ */
+@Entity
+@Table(name = "jhi_search_reindex_lock")
+public class SearchReindexLock implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @NotNull
+    @Size(max = 50)
+    @Column(name = "index_name", length = 50, nullable = false)
+    private String indexName;
+
+    @Size(max = 36)
+    @Column(name = "node_id", length = 36)
+    private String nodeId;
+
+    @Column(name = "locked_until")
+    private Instant lockedUntil;
+
+    public SearchReindexLock() {
+        // Empty constructor needed for Hibernate.
+    }
+
+    public SearchReindexLock(String indexName) {
+        this.indexName = indexName;
+    }
+
+    public String getIndexName() {
+        return indexName;
+    }
+
+    public void setIndexName(String indexName) {
+        this.indexName = indexName;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public void setNodeId(String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    public Instant getLockedUntil() {
+        return lockedUntil;
+    }
+
+    public void setLockedUntil(Instant lockedUntil) {
+        this.lockedUntil = lockedUntil;
+    }
+
+    /**
+     * @param nodeId the id of a node.
+     * @param now the current time.
+     * @return {@code true} if another node holds an unexpired lease.
+     */
+    public boolean isHeldByAnotherNode(String nodeId, Instant now) {
+        return this.nodeId != null && !this.nodeId.equals(nodeId) && lockedUntil != null && now.isBefore(lockedUntil);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SearchReindexLock)) {
+            return false;
+        }
+        return indexName != null && indexName.equals(((SearchReindexLock) o).indexName);
+    }
+
+    @Override
+    public int hashCode() {
+        // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "SearchReindexLock{" +
+            "indexName='" + indexName + '\'' +
+            ", nodeId='" + nodeId + '\'' +
+            ", lockedUntil='" + lockedUntil + '\'' +
+            "}";
+    }
+}
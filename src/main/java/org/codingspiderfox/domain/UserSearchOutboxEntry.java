@@ -0,0 +1,92 @@
+package org.codingspiderfox.domain;
+
+import java.io.Serializable;
+import java.time.Instant;
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+
+/**
+ * A pending change of a {@link User} that still has to be applied to the search index.
+ * <p>
+ * Entries are written in the same transaction as the change and removed once the user has been indexed.
+ */
+@Entity
+@Table(name = "jhi_user_search_outbox")
+public class UserSearchOutboxEntry implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
+    @SequenceGenerator(name = "sequenceGenerator")
+    private Long id;
+
+    @NotNull
+    @Size(max = 100)
+    @Column(name = "user_id", length = 100, nullable = false)
+    private String userId;
+
+    @NotNull
+    @Column(name = "created_date", nullable = false)
+    private Instant createdDate = Instant.now();
+
+    public UserSearchOutboxEntry() {
+        // Empty constructor needed for Hibernate.
+    }
+
+    public UserSearchOutboxEntry(String userId) {
+        this.userId = userId;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public Instant getCreatedDate() {
+        return createdDate;
+    }
+
+    public void setCreatedDate(Instant createdDate) {
+        this.createdDate = createdDate;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof UserSearchOutboxEntry)) {
+            return false;
+        }
+        return id != null && id.equals(((UserSearchOutboxEntry) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "UserSearchOutboxEntry{" +
+            "id=" + id +
+            ", userId='" + userId + '\'' +
+            ", createdDate='" + createdDate + '\'' +
+            "}";
+    }
+}
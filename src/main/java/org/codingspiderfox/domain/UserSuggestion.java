@@ -0,0 +1,104 @@
+package org.codingspiderfox.domain;
+
+import java.io.Serializable;
+import java.util.Objects;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.elasticsearch.annotations.Document;
+import org.springframework.data.elasticsearch.annotations.Field;
+import org.springframework.data.elasticsearch.annotations.FieldType;
+import org.springframework.data.elasticsearch.annotations.Setting;
+
+/**
+ * The search-as-you-type view of an activated {@link User}.
+ * <p>
+ * The names are indexed with edge n-grams, so that a prefix typed by the user is matched with a plain term lookup.
+ */
+@Document(indexName = "user-suggestion")
+@Setting(settingPath = "config/elasticsearch/user-suggestion-settings.json")
+public class UserSuggestion implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @Field(type = FieldType.Keyword)
+    private String id;
+
+    @Field(type = FieldType.Text, analyzer = "autocomplete", searchAnalyzer = "autocomplete_search")
+    private String login;
+
+    @Field(type = FieldType.Text, analyzer = "autocomplete", searchAnalyzer = "autocomplete_search")
+    private String firstName;
+
+    @Field(type = FieldType.Text, analyzer = "autocomplete", searchAnalyzer = "autocomplete_search")
+    private String lastName;
+
+    public UserSuggestion() {
+        // Empty constructor needed for Elasticsearch.
+    }
+
+    public UserSuggestion(User user) {
+        this.id = user.getId();
+        this.login = user.getLogin();
+        this.firstName = user.getFirstName();
+        this.lastName = user.getLastName();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getLogin() {
+        return login;
+    }
+
+    public void setLogin(String login) {
+        this.login = login;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public void setFirstName(String firstName) {
+        this.firstName = firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public void setLastName(String lastName) {
+        this.lastName = lastName;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof UserSuggestion)) {
+            return false;
+        }
+        return id != null && id.equals(((UserSuggestion) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(id);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "UserSuggestion{" +
+            "id='" + id + '\'' +
+            ", login='" + login + '\'' +
+            ", firstName='" + firstName + '\'' +
+            ", lastName='" + lastName + '\'' +
+            "}";
+    }
+}
@@ -0,0 +1,35 @@
+package org.codingspiderfox.management;
+
+import org.codingspiderfox.service.UserSearchReindexService;
+import org.codingspiderfox.service.dto.ReindexStatusDTO;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint to rebuild the user search and suggestion indices and follow its progress.
+ * <p>
+ * {@code GET /management/userreindex} returns the progress, {@code POST /management/userreindex} starts a rebuild.
+ */
+@Component
+@Endpoint(id = "userreindex")
+public class UserSearchReindexEndpoint {
+
+    private final UserSearchReindexService userSearchReindexService;
+
+    public UserSearchReindexEndpoint(UserSearchReindexService userSearchReindexService) {
+        this.userSearchReindexService = userSearchReindexService;
+    }
+
+    @ReadOperation
+    public ReindexStatusDTO status() {
+        return userSearchReindexService.getStatus();
+    }
+
+    @WriteOperation
+    public ReindexStatusDTO start() {
+        userSearchReindexService.start();
+        return userSearchReindexService.getStatus();
+    }
+}
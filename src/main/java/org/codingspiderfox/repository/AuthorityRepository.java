@@ -1,9 +1,52 @@
 package org.codingspiderfox.repository;
 
+import java.util.Collection;
 import org.codingspiderfox.domain.Authority;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
 
 /**
  * Spring Data JPA repository for the {@link Authority} entity.
  */
-public interface AuthorityRepository extends JpaRepository<Authority, String> {}
+public interface AuthorityRepository extends JpaRepository<Authority, String>, AuthorityRepositoryInternal {}
+
+interface AuthorityRepositoryInternal {
+    /**
+     * Inserts the authorities in one batch, skipping the ones that already exist, even when inserted concurrently.
+     *
+     * @param names the names of the authorities.
+     */
+    void insertMissing(Collection<String> names);
+}
+
+class AuthorityRepositoryInternalImpl implements AuthorityRepositoryInternal {
+
+    private static final String POSTGRESQL_UPSERT = "insert into jhi_authority (name) values (?) on conflict do nothing";
+
+    private static final String MERGE_UPSERT = "merge into jhi_authority (name) key (name) values (?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile String upsert;
+
+    AuthorityRepositoryInternalImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void insertMissing(Collection<String> names) {
+        if (names.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(upsert(), names, names.size(), (ps, name) -> ps.setString(1, name));
+    }
+
+    private String upsert() {
+        if (upsert == null) {
+            String database = jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            upsert = "PostgreSQL".equals(database) ? POSTGRESQL_UPSERT : MERGE_UPSERT;
+        }
+        return upsert;
+    }
+}
@@ -0,0 +1,30 @@
+package org.codingspiderfox.repository;
+
+import java.util.Optional;
+import javax.persistence.LockModeType;
+import org.codingspiderfox.domain.SearchReindexLock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Spring Data JPA repository for the {@link SearchReindexLock} entity.
+ */
+@Repository
+public interface SearchReindexLockRepository extends JpaRepository<SearchReindexLock, String> {
+    /**
+     * Reads the lock of an index with a shared row lock, held until the end of the transaction.
+     */
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("select reindexLock from SearchReindexLock reindexLock where reindexLock.indexName = :indexName")
+    Optional<SearchReindexLock> findForShareByIndexName(@Param("indexName") String indexName);
+
+    /**
+     * Reads the lock of an index with an exclusive row lock, waiting for the transactions holding a shared one.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select reindexLock from SearchReindexLock reindexLock where reindexLock.indexName = :indexName")
+    Optional<SearchReindexLock> findForUpdateByIndexName(@Param("indexName") String indexName);
+}
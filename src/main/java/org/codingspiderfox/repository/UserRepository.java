@@ -1,20 +1,32 @@
 package org.codingspiderfox.repository;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
 import org.codingspiderfox.domain.User;
+import org.codingspiderfox.service.dto.UserDTO;
+import org.hibernate.jpa.QueryHints;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
 
 /**
  * Spring Data JPA repository for the {@link User} entity.
  */
 @Repository
-public interface UserRepository extends JpaRepository<User, String> {
+public interface UserRepository extends JpaRepository<User, String>, UserRepositoryInternal {
     String USERS_BY_LOGIN_CACHE = "usersByLogin";
 
     String USERS_BY_EMAIL_CACHE = "usersByEmail";
@@ -25,5 +37,163 @@ public interface UserRepository extends JpaRepository<User, String> {
     @Cacheable(cacheNames = USERS_BY_LOGIN_CACHE)
     Optional<User> findOneWithAuthoritiesByLogin(String login);
 
-    Page<User> findAllByIdNotNullAndActivatedIsTrue(Pageable pageable);
+    /**
+     * Finds the authority names of users from the {@code jhi_user_authority} join table, without loading the users or
+     * initializing their collections.
+     *
+     * @param userIds the ids of the users.
+     * @return a row per authority of each user.
+     */
+    @Query("select u.id as userId, a.name as authorityName from User u join u.authorities a where u.id in :userIds")
+    List<UserAuthority> findAllUserAuthorities(@Param("userIds") Collection<String> userIds);
+
+    @EntityGraph(attributePaths = "authorities")
+    List<User> findAllWithAuthoritiesByActivatedIsTrueAndLoginIn(Collection<String> logins);
+
+    @EntityGraph(attributePaths = "authorities")
+    List<User> findAllWithAuthoritiesByActivatedIsTrueAndIdIn(Collection<String> ids);
+
+    /**
+     * Finds the activated users, selecting only the columns of a {@link UserDTO} instead of loading the entities.
+     *
+     * @param pageable the pagination information.
+     * @return the page of users.
+     */
+    @Query(
+        value = "select new org.codingspiderfox.service.dto.UserDTO(u.id, u.login) from User u where u.activated = true",
+        countQuery = "select count(u) from User u where u.activated = true"
+    )
+    Page<UserDTO> findAllPublicUsers(Pageable pageable);
+
+    long countByActivatedIsTrue();
+
+    List<User> findAllByIdGreaterThanOrderByIdAsc(String id, Pageable pageable);
+
+    /**
+     * A row of the {@code jhi_user_authority} join table.
+     */
+    interface UserAuthority {
+        String getUserId();
+
+        String getAuthorityName();
+    }
+}
+
+interface UserRepositoryInternal {
+    /**
+     * The unique columns users can be listed by with {@link #findAllAfter}.
+     */
+    Set<String> KEYSET_PROPERTIES = Set.of("id", "login");
+
+    /**
+     * Finds the users following a key in the order of a unique property, seeking to the key through its index instead
+     * of skipping the previous rows.
+     *
+     * @param order the order, on one of the {@link #KEYSET_PROPERTIES}.
+     * @param after the key of the last user of the previous page, or {@code null} for the first page.
+     * @param activatedOnly whether only the activated users are listed.
+     * @param limit the maximum number of users.
+     * @return the users following the key.
+     */
+    List<User> findAllAfter(Sort.Order order, String after, boolean activatedOnly, int limit);
+
+    /**
+     * Finds the activated users following a key like {@link #findAllAfter}, selecting only the columns of a
+     * {@link UserDTO}.
+     *
+     * @param order the order, on one of the {@link #KEYSET_PROPERTIES}.
+     * @param after the key of the last user of the previous page, or {@code null} for the first page.
+     * @param limit the maximum number of users.
+     * @return the users following the key.
+     */
+    List<UserDTO> findAllPublicUsersAfter(Sort.Order order, String after, int limit);
+
+    /**
+     * Estimates the number of users from the PostgreSQL planner statistics, without scanning the table.
+     * <p>
+     * Other databases do not expose such statistics, so the users are counted.
+     *
+     * @return the approximate number of users.
+     */
+    long estimateCount();
+}
+
+class UserRepositoryInternalImpl implements UserRepositoryInternal {
+
+    private final EntityManager entityManager;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    UserRepositoryInternalImpl(EntityManager entityManager, JdbcTemplate jdbcTemplate) {
+        this.entityManager = entityManager;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<User> findAllAfter(Sort.Order order, String after, boolean activatedOnly, int limit) {
+        // the entities are only read, so Hibernate does not need to keep their snapshots for dirty checking
+        return createKeysetQuery("select u", User.class, order, after, activatedOnly, limit)
+            .setHint(QueryHints.HINT_READONLY, true)
+            .getResultList();
+    }
+
+    @Override
+    public List<UserDTO> findAllPublicUsersAfter(Sort.Order order, String after, int limit) {
+        return createKeysetQuery(
+            "select new org.codingspiderfox.service.dto.UserDTO(u.id, u.login)",
+            UserDTO.class,
+            order,
+            after,
+            true,
+            limit
+        )
+            .getResultList();
+    }
+
+    private <T> TypedQuery<T> createKeysetQuery(
+        String select,
+        Class<T> resultClass,
+        Sort.Order order,
+        String after,
+        boolean activatedOnly,
+        int limit
+    ) {
+        if (!KEYSET_PROPERTIES.contains(order.getProperty())) {
+            throw new IllegalArgumentException("Users can not be listed by " + order.getProperty());
+        }
+        String key = "u." + order.getProperty();
+        List<String> conditions = new ArrayList<>();
+        if (activatedOnly) {
+            conditions.add("u.activated = true");
+        }
+        if (after != null) {
+            conditions.add(key + (order.isAscending() ? " > " : " < ") + ":after");
+        }
+        String jpql =
+            select +
+            " from User u" +
+            (conditions.isEmpty() ? "" : " where " + String.join(" and ", conditions)) +
+            " order by " +
+            key +
+            (order.isAscending() ? " asc" : " desc");
+        TypedQuery<T> typedQuery = entityManager.createQuery(jpql, resultClass).setMaxResults(limit);
+        if (after != null) {
+            typedQuery.setParameter("after", after);
+        }
+        return typedQuery;
+    }
+
+    @Override
+    public long estimateCount() {
+        String database = jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        if ("PostgreSQL".equals(database)) {
+            Long estimate = jdbcTemplate.queryForObject(
+                "select greatest(reltuples, 0)::bigint from pg_class where oid = 'jhi_user'::regclass",
+                Long.class
+            );
+            return estimate != null ? estimate : 0;
+        }
+        Long count = jdbcTemplate.queryForObject("select count(*) from jhi_user", Long.class);
+        return count != null ? count : 0;
+    }
 }
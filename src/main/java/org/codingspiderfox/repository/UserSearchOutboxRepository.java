@@ -0,0 +1,28 @@
+package org.codingspiderfox.repository;
+
+import java.util.List;
+import java.util.Optional;
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import org.codingspiderfox.domain.UserSearchOutboxEntry;
+import org.hibernate.LockOptions;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Spring Data JPA repository for the {@link UserSearchOutboxEntry} entity.
+ */
+@Repository
+public interface UserSearchOutboxRepository extends JpaRepository<UserSearchOutboxEntry, Long> {
+    /**
+     * Reads the oldest entries with an exclusive row lock, skipping the entries locked by the batch of another node.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "javax.persistence.lock.timeout", value = "" + LockOptions.SKIP_LOCKED))
+    List<UserSearchOutboxEntry> findForIndexingByOrderByIdAsc(Pageable pageable);
+
+    Optional<UserSearchOutboxEntry> findFirstByOrderByIdAsc();
+}
@@ -1,12 +1,19 @@
 package org.codingspiderfox.repository.search;
 
-import static org.elasticsearch.index.query.QueryBuilders.queryStringQuery;
+import static org.elasticsearch.index.query.QueryBuilders.multiMatchQuery;
 
-import java.util.stream.Stream;
+import java.util.List;
+import java.util.stream.Collectors;
 import org.codingspiderfox.domain.User;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.elasticsearch.core.ElasticsearchRestTemplate;
 import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.data.elasticsearch.core.query.FetchSourceFilter;
 import org.springframework.data.elasticsearch.core.query.NativeSearchQuery;
+import org.springframework.data.elasticsearch.core.query.NativeSearchQueryBuilder;
 import org.springframework.data.elasticsearch.repository.ElasticsearchRepository;
 
 /**
@@ -15,11 +22,24 @@ import org.springframework.data.elasticsearch.repository.ElasticsearchRepository
 public interface UserSearchRepository extends ElasticsearchRepository<User, String>, UserSearchRepositoryInternal {}
 
 interface UserSearchRepositoryInternal {
-    Stream<User> search(String query);
+    /**
+     * Searches users by login, first name and last name.
+     * <p>
+     * Only the public fields of the matching users are fetched from the index.
+     *
+     * @param query the text to search for.
+     * @param pageable the pagination information.
+     * @return the page of matching users, with only their id and login set.
+     */
+    Page<User> search(String query, Pageable pageable);
 }
 
 class UserSearchRepositoryInternalImpl implements UserSearchRepositoryInternal {
 
+    private static final String[] SEARCH_FIELDS = { "login", "firstName", "lastName" };
+
+    private static final String[] PUBLIC_FIELDS = { "id", "login" };
+
     private final ElasticsearchRestTemplate elasticsearchTemplate;
 
     UserSearchRepositoryInternalImpl(ElasticsearchRestTemplate elasticsearchTemplate) {
@@ -27,8 +47,14 @@ class UserSearchRepositoryInternalImpl implements UserSearchRepositoryInternal {
     }
 
     @Override
-    public Stream<User> search(String query) {
-        NativeSearchQuery nativeSearchQuery = new NativeSearchQuery(queryStringQuery(query));
-        return elasticsearchTemplate.search(nativeSearchQuery, User.class).map(SearchHit::getContent).stream();
+    public Page<User> search(String query, Pageable pageable) {
+        NativeSearchQuery nativeSearchQuery = new NativeSearchQueryBuilder()
+            .withQuery(multiMatchQuery(query, SEARCH_FIELDS))
+            .withSourceFilter(new FetchSourceFilter(PUBLIC_FIELDS, null))
+            .withPageable(pageable)
+            .build();
+        SearchHits<User> searchHits = elasticsearchTemplate.search(nativeSearchQuery, User.class);
+        List<User> users = searchHits.getSearchHits().stream().map(SearchHit::getContent).collect(Collectors.toList());
+        return new PageImpl<>(users, pageable, searchHits.getTotalHits());
     }
 }
@@ -0,0 +1,64 @@
+package org.codingspiderfox.repository.search;
+
+import static org.elasticsearch.index.query.QueryBuilders.multiMatchQuery;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import org.codingspiderfox.domain.UserSuggestion;
+import org.elasticsearch.index.query.MultiMatchQueryBuilder;
+import org.elasticsearch.index.query.Operator;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.elasticsearch.core.ElasticsearchRestTemplate;
+import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.data.elasticsearch.core.query.FetchSourceFilter;
+import org.springframework.data.elasticsearch.core.query.NativeSearchQuery;
+import org.springframework.data.elasticsearch.core.query.NativeSearchQueryBuilder;
+import org.springframework.data.elasticsearch.repository.ElasticsearchRepository;
+
+/**
+ * Spring Data Elasticsearch repository for the UserSuggestion document.
+ */
+public interface UserSuggestionSearchRepository
+    extends ElasticsearchRepository<UserSuggestion, String>, UserSuggestionSearchRepositoryInternal {}
+
+interface UserSuggestionSearchRepositoryInternal {
+    /**
+     * Finds the users whose login, first name or last name start with the words of the prefix.
+     * <p>
+     * Only the public fields of the best matches are fetched, without counting the total number of hits.
+     *
+     * @param prefix the text typed so far.
+     * @param size the maximum number of suggestions.
+     * @return the best matching suggestions, with only their id and login set.
+     */
+    List<UserSuggestion> suggest(String prefix, int size);
+}
+
+class UserSuggestionSearchRepositoryInternalImpl implements UserSuggestionSearchRepositoryInternal {
+
+    private static final String[] SEARCH_FIELDS = { "login", "firstName", "lastName" };
+
+    private static final String[] PUBLIC_FIELDS = { "id", "login" };
+
+    private final ElasticsearchRestTemplate elasticsearchTemplate;
+
+    UserSuggestionSearchRepositoryInternalImpl(ElasticsearchRestTemplate elasticsearchTemplate) {
+        this.elasticsearchTemplate = elasticsearchTemplate;
+    }
+
+    @Override
+    public List<UserSuggestion> suggest(String prefix, int size) {
+        NativeSearchQuery nativeSearchQuery = new NativeSearchQueryBuilder()
+            .withQuery(multiMatchQuery(prefix, SEARCH_FIELDS).type(MultiMatchQueryBuilder.Type.CROSS_FIELDS).operator(Operator.AND))
+            .withSourceFilter(new FetchSourceFilter(PUBLIC_FIELDS, null))
+            .withPageable(PageRequest.of(0, size))
+            .withTrackTotalHits(false)
+            .build();
+        return elasticsearchTemplate
+            .search(nativeSearchQuery, UserSuggestion.class)
+            .getSearchHits()
+            .stream()
+            .map(SearchHit::getContent)
+            .collect(Collectors.toList());
+    }
+}
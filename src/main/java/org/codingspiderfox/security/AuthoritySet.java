@@ -0,0 +1,99 @@
+package org.codingspiderfox.security;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import org.springframework.security.core.GrantedAuthority;
+
+/**
+ * The authorities of an authentication, resolved once so that checking them does not allocate.
+ * <p>
+ * The authorities of {@link AuthoritiesConstants} are kept as the bits of a mask, and any other one in a set.
+ */
+public final class AuthoritySet {
+
+    private static final int ANONYMOUS_BIT = 1;
+
+    private static final int USER_BIT = 1 << 1;
+
+    private static final int ADMIN_BIT = 1 << 2;
+
+    static final AuthoritySet EMPTY = new AuthoritySet(0, Set.of());
+
+    private final int knownAuthorities;
+
+    private final Set<String> otherAuthorities;
+
+    private AuthoritySet(int knownAuthorities, Set<String> otherAuthorities) {
+        this.knownAuthorities = knownAuthorities;
+        this.otherAuthorities = otherAuthorities;
+    }
+
+    /**
+     * Resolves granted authorities.
+     *
+     * @param authorities the granted authorities.
+     * @return the set of their names.
+     */
+    public static AuthoritySet of(Collection<? extends GrantedAuthority> authorities) {
+        int knownAuthorities = 0;
+        Set<String> otherAuthorities = null;
+        for (GrantedAuthority grantedAuthority : authorities) {
+            String authority = grantedAuthority.getAuthority();
+            int bit = bit(authority);
+            if (bit != 0) {
+                knownAuthorities |= bit;
+            } else if (authority != null) {
+                if (otherAuthorities == null) {
+                    otherAuthorities = new HashSet<>();
+                }
+                otherAuthorities.add(authority);
+            }
+        }
+        if (knownAuthorities == 0 && otherAuthorities == null) {
+            return EMPTY;
+        }
+        return new AuthoritySet(knownAuthorities, otherAuthorities == null ? Set.of() : Set.copyOf(otherAuthorities));
+    }
+
+    /**
+     * @param authority the name of an authority.
+     * @return true if the set holds the authority.
+     */
+    public boolean contains(String authority) {
+        int bit = bit(authority);
+        if (bit != 0) {
+            return (knownAuthorities & bit) != 0;
+        }
+        return authority != null && !otherAuthorities.isEmpty() && otherAuthorities.contains(authority);
+    }
+
+    /**
+     * @param authorities the names of authorities.
+     * @return true if the set holds any of the authorities.
+     */
+    public boolean containsAny(String... authorities) {
+        for (String authority : authorities) {
+            if (contains(authority)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int bit(String authority) {
+        if (authority == null) {
+            return 0;
+        }
+        switch (authority) {
+            case AuthoritiesConstants.ANONYMOUS:
+                return ANONYMOUS_BIT;
+            case AuthoritiesConstants.USER:
+                return USER_BIT;
+            case AuthoritiesConstants.ADMIN:
+                return ADMIN_BIT;
+            default:
+                return 0;
+        }
+    }
+}
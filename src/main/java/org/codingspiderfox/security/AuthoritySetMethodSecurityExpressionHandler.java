@@ -0,0 +1,191 @@
+package org.codingspiderfox.security;
+
+import java.io.Serializable;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.security.access.PermissionEvaluator;
+import org.springframework.security.access.expression.method.DefaultMethodSecurityExpressionHandler;
+import org.springframework.security.access.expression.method.MethodSecurityExpressionOperations;
+import org.springframework.security.authentication.AuthenticationTrustResolver;
+import org.springframework.security.core.Authentication;
+
+/**
+ * Evaluates the {@code @PreAuthorize} and {@code @PostAuthorize} expressions against the {@link AuthoritySet} of the
+ * authentication, resolved once by {@link SecurityUtils#getAuthorities(Authentication)}, rather than a set of the
+ * authority names built for each evaluation.
+ * <p>
+ * The root offers the same members as the default {@code MethodSecurityExpressionRoot}, and falls back to the default
+ * evaluation when a role hierarchy is configured, as it is not applied to the resolved sets.
+ */
+public class AuthoritySetMethodSecurityExpressionHandler extends DefaultMethodSecurityExpressionHandler {
+
+    @Override
+    protected MethodSecurityExpressionOperations createSecurityExpressionRoot(Authentication authentication, MethodInvocation invocation) {
+        if (getRoleHierarchy() != null) {
+            return super.createSecurityExpressionRoot(authentication, invocation);
+        }
+        AuthoritySetExpressionRoot root = new AuthoritySetExpressionRoot(
+            authentication,
+            getTrustResolver(),
+            getPermissionEvaluator(),
+            getDefaultRolePrefix()
+        );
+        root.setThis(invocation.getThis());
+        return root;
+    }
+
+    static class AuthoritySetExpressionRoot implements MethodSecurityExpressionOperations {
+
+        // the permissions passed to hasPermission, as in SecurityExpressionRoot
+        public final String read = "read";
+
+        public final String write = "write";
+
+        public final String create = "create";
+
+        public final String delete = "delete";
+
+        public final String admin = "administration";
+
+        private final Authentication authentication;
+
+        private final AuthoritySet authorities;
+
+        private final AuthenticationTrustResolver trustResolver;
+
+        private final PermissionEvaluator permissionEvaluator;
+
+        private final String rolePrefix;
+
+        private Object filterObject;
+
+        private Object returnObject;
+
+        private Object target;
+
+        AuthoritySetExpressionRoot(
+            Authentication authentication,
+            AuthenticationTrustResolver trustResolver,
+            PermissionEvaluator permissionEvaluator,
+            String rolePrefix
+        ) {
+            if (authentication == null) {
+                throw new IllegalArgumentException("Authentication object cannot be null");
+            }
+            this.authentication = authentication;
+            this.authorities = SecurityUtils.getAuthorities(authentication);
+            this.trustResolver = trustResolver;
+            this.permissionEvaluator = permissionEvaluator;
+            this.rolePrefix = rolePrefix;
+        }
+
+        @Override
+        public Authentication getAuthentication() {
+            return authentication;
+        }
+
+        public Object getPrincipal() {
+            return authentication.getPrincipal();
+        }
+
+        @Override
+        public boolean hasAuthority(String authority) {
+            return authorities.contains(authority);
+        }
+
+        @Override
+        public boolean hasAnyAuthority(String... authorities) {
+            return this.authorities.containsAny(authorities);
+        }
+
+        @Override
+        public boolean hasRole(String role) {
+            return authorities.contains(withRolePrefix(role));
+        }
+
+        @Override
+        public boolean hasAnyRole(String... roles) {
+            for (String role : roles) {
+                if (hasRole(role)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private String withRolePrefix(String role) {
+            if (role == null || rolePrefix == null || rolePrefix.isEmpty() || role.startsWith(rolePrefix)) {
+                return role;
+            }
+            return rolePrefix + role;
+        }
+
+        @Override
+        public boolean permitAll() {
+            return true;
+        }
+
+        @Override
+        public boolean denyAll() {
+            return false;
+        }
+
+        @Override
+        public boolean isAnonymous() {
+            return trustResolver.isAnonymous(authentication);
+        }
+
+        @Override
+        public boolean isAuthenticated() {
+            return !isAnonymous();
+        }
+
+        @Override
+        public boolean isRememberMe() {
+            return trustResolver.isRememberMe(authentication);
+        }
+
+        @Override
+        public boolean isFullyAuthenticated() {
+            return !trustResolver.isAnonymous(authentication) && !trustResolver.isRememberMe(authentication);
+        }
+
+        @Override
+        public boolean hasPermission(Object target, Object permission) {
+            return permissionEvaluator.hasPermission(authentication, target, permission);
+        }
+
+        @Override
+        public boolean hasPermission(Object targetId, String targetType, Object permission) {
+            return permissionEvaluator.hasPermission(authentication, (Serializable) targetId, targetType, permission);
+        }
+
+        @Override
+        public void setFilterObject(Object filterObject) {
+            this.filterObject = filterObject;
+        }
+
+        @Override
+        public Object getFilterObject() {
+            return filterObject;
+        }
+
+        @Override
+        public void setReturnObject(Object returnObject) {
+            this.returnObject = returnObject;
+        }
+
+        @Override
+        public Object getReturnObject() {
+            return returnObject;
+        }
+
+        void setThis(Object target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object getThis() {
+            return target;
+        }
+    }
+}
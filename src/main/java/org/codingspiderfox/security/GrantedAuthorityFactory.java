@@ -0,0 +1,77 @@
+package org.codingspiderfox.security;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+/**
+ * Maps the roles of the identity provider to granted authorities, keeping only the {@code ROLE_} ones.
+ * <p>
+ * The identity provider only issues a handful of role combinations, so the mapping of each distinct list of roles is
+ * memoised and the same {@link GrantedAuthority} instance is shared by all the mappings that grant an authority. At
+ * most {@value #MAX_ROLE_LISTS} lists are memoised, the others are mapped on each call.
+ */
+public final class GrantedAuthorityFactory {
+
+    static final int MAX_ROLE_LISTS = 256;
+
+    private static final String ROLE_PREFIX = "ROLE_";
+
+    private static final Map<String, GrantedAuthority> AUTHORITIES = new ConcurrentHashMap<>();
+
+    private static final Map<List<String>, List<GrantedAuthority>> ROLE_LISTS = new ConcurrentHashMap<>();
+
+    static {
+        for (String authority : new String[] { AuthoritiesConstants.ADMIN, AuthoritiesConstants.USER, AuthoritiesConstants.ANONYMOUS }) {
+            AUTHORITIES.put(authority, new SimpleGrantedAuthority(authority));
+        }
+    }
+
+    private GrantedAuthorityFactory() {}
+
+    /**
+     * Maps roles to granted authorities.
+     *
+     * @param roles the roles, in the order of the claim.
+     * @return the unmodifiable list of the authorities of the {@code ROLE_} roles, without duplicates.
+     */
+    public static List<GrantedAuthority> fromRoles(Collection<String> roles) {
+        if (roles.isEmpty()) {
+            return List.of();
+        }
+        List<GrantedAuthority> authorities = roles instanceof List ? ROLE_LISTS.get(roles) : null;
+        if (authorities != null) {
+            return authorities;
+        }
+        boolean memoised = ROLE_LISTS.size() < MAX_ROLE_LISTS;
+        List<GrantedAuthority> mapped = new ArrayList<>(roles.size());
+        for (String role : roles) {
+            if (role.startsWith(ROLE_PREFIX)) {
+                GrantedAuthority authority = memoised ? AUTHORITIES.computeIfAbsent(role, SimpleGrantedAuthority::new) : authority(role);
+                // the claim may repeat a role, for instance when it is granted both directly and through a group
+                if (!mapped.contains(authority)) {
+                    mapped.add(authority);
+                }
+            }
+        }
+        authorities = List.copyOf(mapped);
+        if (memoised && roles instanceof List) {
+            List<GrantedAuthority> previous = ROLE_LISTS.putIfAbsent(List.copyOf(roles), authorities);
+            return previous != null ? previous : authorities;
+        }
+        return authorities;
+    }
+
+    /**
+     * @param authority the name of an authority.
+     * @return the shared instance of the authority if it has one, a new one otherwise.
+     */
+    public static GrantedAuthority authority(String authority) {
+        GrantedAuthority grantedAuthority = AUTHORITIES.get(authority);
+        return grantedAuthority != null ? grantedAuthority : new SimpleGrantedAuthority(authority);
+    }
+}
@@ -1,11 +1,10 @@
 package org.codingspiderfox.security;
 
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
 import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -19,6 +18,13 @@ public final class SecurityUtils {
 
     public static final String CLAIMS_NAMESPACE = "https://www.jhipster.tech/";
 
+    /**
+     * The authorities of the last authentication checked by each thread, which is usually the one of the current
+     * request for all the checks of the request. Spring Security copies the authorities into its tokens, so they
+     * cannot carry the resolved set themselves.
+     */
+    private static final ThreadLocal<ResolvedAuthorities> RESOLVED_AUTHORITIES = ThreadLocal.withInitial(ResolvedAuthorities::new);
+
     private SecurityUtils() {}
 
     /**
@@ -57,7 +63,7 @@ public final class SecurityUtils {
      */
     public static boolean isAuthenticated() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        return authentication != null && getAuthorities(authentication).noneMatch(AuthoritiesConstants.ANONYMOUS::equals);
+        return authentication != null && !getAuthorities(authentication).contains(AuthoritiesConstants.ANONYMOUS);
     }
 
     /**
@@ -68,9 +74,7 @@ public final class SecurityUtils {
      */
     public static boolean hasCurrentUserAnyOfAuthorities(String... authorities) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        return (
-            authentication != null && getAuthorities(authentication).anyMatch(authority -> Arrays.asList(authorities).contains(authority))
-        );
+        return authentication != null && getAuthorities(authentication).containsAny(authorities);
     }
 
     /**
@@ -93,26 +97,51 @@ public final class SecurityUtils {
         return hasCurrentUserAnyOfAuthorities(authority);
     }
 
-    private static Stream<String> getAuthorities(Authentication authentication) {
-        Collection<? extends GrantedAuthority> authorities = authentication instanceof JwtAuthenticationToken
-            ? extractAuthorityFromClaims(((JwtAuthenticationToken) authentication).getToken().getClaims())
-            : authentication.getAuthorities();
-        return authorities.stream().map(GrantedAuthority::getAuthority);
+    /**
+     * Get the authorities of an authentication, resolved once per authentication and thread.
+     *
+     * @param authentication the authentication.
+     * @return the authorities of the authentication.
+     */
+    public static AuthoritySet getAuthorities(Authentication authentication) {
+        ResolvedAuthorities resolved = RESOLVED_AUTHORITIES.get();
+        if (resolved.authentication.get() != authentication) {
+            Collection<? extends GrantedAuthority> authorities = authentication instanceof JwtAuthenticationToken
+                ? extractAuthorityFromClaims(((JwtAuthenticationToken) authentication).getToken().getClaims())
+                : authentication.getAuthorities();
+            resolved.authorities = AuthoritySet.of(authorities);
+            // weakly referenced, so that the thread does not keep a logged out authentication alive
+            resolved.authentication = new WeakReference<>(authentication);
+        }
+        return resolved.authorities;
     }
 
+    /**
+     * Get the authorities granted by the roles of the "groups", "roles" or namespaced "roles" claim.
+     *
+     * @param claims the claims of the token.
+     * @return the unmodifiable list of the authorities, shared by the claims with the same roles.
+     */
     public static List<GrantedAuthority> extractAuthorityFromClaims(Map<String, Object> claims) {
-        return mapRolesToGrantedAuthorities(getRolesFromClaims(claims));
+        return GrantedAuthorityFactory.fromRoles(getRolesFromClaims(claims));
     }
 
     @SuppressWarnings("unchecked")
     private static Collection<String> getRolesFromClaims(Map<String, Object> claims) {
-        return (Collection<String>) claims.getOrDefault(
-            "groups",
-            claims.getOrDefault("roles", claims.getOrDefault(CLAIMS_NAMESPACE + "roles", new ArrayList<>()))
-        );
+        Object roles = claims.get("groups");
+        if (roles == null) {
+            roles = claims.get("roles");
+        }
+        if (roles == null) {
+            roles = claims.get(CLAIMS_NAMESPACE + "roles");
+        }
+        return roles != null ? (Collection<String>) roles : List.of();
     }
 
-    private static List<GrantedAuthority> mapRolesToGrantedAuthorities(Collection<String> roles) {
-        return roles.stream().filter(role -> role.startsWith("ROLE_")).map(SimpleGrantedAuthority::new).collect(Collectors.toList());
+    private static final class ResolvedAuthorities {
+
+        private Reference<Authentication> authentication = new WeakReference<>(null);
+
+        private AuthoritySet authorities = AuthoritySet.EMPTY;
     }
 }
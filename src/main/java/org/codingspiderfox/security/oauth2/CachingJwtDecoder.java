@@ -0,0 +1,67 @@
+package org.codingspiderfox.security.oauth2;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+/**
+ * {@link JwtDecoder} keeping successfully decoded and validated tokens until they expire, so that
+ * a bearer token sent again and again is only verified once.
+ * <p>
+ * Tokens are keyed by their SHA-256 digest in a bounded LRU cache. Tokens without an expiry are never cached.
+ */
+public class CachingJwtDecoder implements JwtDecoder {
+
+    private final JwtDecoder delegate;
+
+    private final Map<String, Jwt> jwts;
+
+    public CachingJwtDecoder(JwtDecoder delegate, int maxEntries) {
+        this.delegate = delegate;
+        this.jwts =
+            Collections.synchronizedMap(
+                new LinkedHashMap<>(16, 0.75f, true) {
+                    private static final long serialVersionUID = 1L;
+
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<String, Jwt> eldest) {
+                        return size() > maxEntries;
+                    }
+                }
+            );
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        String digest = digest(token);
+        Jwt jwt = jwts.get(digest);
+        if (jwt != null) {
+            if (Instant.now().isBefore(jwt.getExpiresAt())) {
+                return jwt;
+            }
+            jwts.remove(digest);
+        }
+        jwt = delegate.decode(token);
+        if (jwt.getExpiresAt() != null) {
+            jwts.put(digest, jwt);
+        }
+        return jwt;
+    }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
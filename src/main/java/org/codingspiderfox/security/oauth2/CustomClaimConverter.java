@@ -2,10 +2,19 @@ package org.codingspiderfox.security.oauth2;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 import org.codingspiderfox.security.SecurityUtils;
@@ -24,9 +33,15 @@ import org.springframework.web.context.request.ServletRequestAttributes;
 
 /**
  * Claim converter to add custom claims by retrieving the user from the userinfo endpoint.
+ * <p>
+ * Userinfo responses are kept in a bounded LRU cache with a time-to-live, and concurrent
+ * requests for the same subject share a single call to the userinfo endpoint.
  */
 public class CustomClaimConverter implements Converter<Map<String, Object>, Map<String, Object>> {
 
+    // not the cache.* meters of the Spring caches, whose tags differ
+    private static final String METER_PREFIX = "security.userinfo.cache.";
+
     private final BearerTokenResolver bearerTokenResolver = new DefaultBearerTokenResolver();
 
     private final MappedJwtClaimSetConverter delegate = MappedJwtClaimSetConverter.withDefaults(Collections.emptyMap());
@@ -35,11 +50,43 @@ public class CustomClaimConverter implements Converter<Map<String, Object>, Map<
 
     private final ClientRegistration registration;
 
-    private final Map<String, ObjectNode> users = new HashMap<>();
+    private final Map<String, CachedUserInfo> users;
+
+    private final ConcurrentMap<String, CompletableFuture<ObjectNode>> usersLoading = new ConcurrentHashMap<>();
+
+    private final long timeToLiveNanos;
+
+    private final Counter hits;
 
-    public CustomClaimConverter(ClientRegistration registration, RestTemplate restTemplate) {
+    private final Counter misses;
+
+    private final Timer loads;
+
+    public CustomClaimConverter(
+        ClientRegistration registration,
+        RestTemplate restTemplate,
+        int maxEntries,
+        Duration timeToLive,
+        MeterRegistry meterRegistry
+    ) {
         this.registration = registration;
         this.restTemplate = restTemplate;
+        this.timeToLiveNanos = timeToLive.toNanos();
+        this.users =
+            Collections.synchronizedMap(
+                new LinkedHashMap<>(16, 0.75f, true) {
+                    private static final long serialVersionUID = 1L;
+
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<String, CachedUserInfo> eldest) {
+                        return size() > maxEntries;
+                    }
+                }
+            );
+        this.hits = Counter.builder(METER_PREFIX + "gets").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder(METER_PREFIX + "gets").tag("result", "miss").register(meterRegistry);
+        this.loads = Timer.builder(METER_PREFIX + "load.duration").register(meterRegistry);
+        Gauge.builder(METER_PREFIX + "size", users, Map::size).register(meterRegistry);
     }
 
     public Map<String, Object> convert(Map<String, Object> claims) {
@@ -53,18 +100,7 @@ public class CustomClaimConverter implements Converter<Map<String, Object>, Map<
             headers.set("Authorization", buildBearer(token));
 
             // Retrieve user infos from OAuth provider if not already loaded
-            ObjectNode user = users.computeIfAbsent(
-                claims.get("sub").toString(),
-                s -> {
-                    ResponseEntity<ObjectNode> userInfo = restTemplate.exchange(
-                        registration.getProviderDetails().getUserInfoEndpoint().getUri(),
-                        HttpMethod.GET,
-                        new HttpEntity<String>(headers),
-                        ObjectNode.class
-                    );
-                    return userInfo.getBody();
-                }
-            );
+            ObjectNode user = getUserInfo(claims.get("sub").toString(), headers);
 
             // Add custom claims
             if (user != null) {
@@ -82,20 +118,73 @@ public class CustomClaimConverter implements Converter<Map<String, Object>, Map<
                         .collect(Collectors.toList());
                     convertedClaims.put("groups", groups);
                 }
+                if (user.has(SecurityUtils.CLAIMS_NAMESPACE + "roles")) {
+                    List<String> roles = StreamSupport
+                        .stream(user.get(SecurityUtils.CLAIMS_NAMESPACE + "roles").spliterator(), false)
+                        .map(JsonNode::asText)
+                        .collect(Collectors.toList());
+                    convertedClaims.put("roles", roles);
+                }
             }
+        }
+        return convertedClaims;
+    }
 
-            if (user.has(SecurityUtils.CLAIMS_NAMESPACE + "roles")) {
-                List<String> roles = StreamSupport
-                    .stream(user.get(SecurityUtils.CLAIMS_NAMESPACE + "roles").spliterator(), false)
-                    .map(JsonNode::asText)
-                    .collect(Collectors.toList());
-                convertedClaims.put("roles", roles);
+    private ObjectNode getUserInfo(String sub, HttpHeaders headers) {
+        CachedUserInfo cached = users.get(sub);
+        if (cached != null && cached.expiresAt - System.nanoTime() > 0) {
+            hits.increment();
+            return cached.userInfo;
+        }
+        misses.increment();
+        // only one thread calls the userinfo endpoint per subject, the others wait for its result
+        CompletableFuture<ObjectNode> loading = new CompletableFuture<>();
+        CompletableFuture<ObjectNode> inFlight = usersLoading.putIfAbsent(sub, loading);
+        if (inFlight != null) {
+            try {
+                return inFlight.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
             }
         }
-        return convertedClaims;
+        try {
+            ObjectNode userInfo = loads.record(() -> fetchUserInfo(headers));
+            if (userInfo != null) {
+                users.put(sub, new CachedUserInfo(userInfo, System.nanoTime() + timeToLiveNanos));
+            }
+            loading.complete(userInfo);
+            return userInfo;
+        } catch (RuntimeException e) {
+            loading.completeExceptionally(e);
+            throw e;
+        } finally {
+            usersLoading.remove(sub, loading);
+        }
+    }
+
+    private ObjectNode fetchUserInfo(HttpHeaders headers) {
+        ResponseEntity<ObjectNode> userInfo = restTemplate.exchange(
+            registration.getProviderDetails().getUserInfoEndpoint().getUri(),
+            HttpMethod.GET,
+            new HttpEntity<String>(headers),
+            ObjectNode.class
+        );
+        return userInfo.getBody();
     }
 
     private String buildBearer(String token) {
         return "Bearer " + token;
     }
+
+    private static class CachedUserInfo {
+
+        private final ObjectNode userInfo;
+
+        private final long expiresAt;
+
+        CachedUserInfo(ObjectNode userInfo, long expiresAt) {
+            this.userInfo = userInfo;
+            this.expiresAt = expiresAt;
+        }
+    }
 }
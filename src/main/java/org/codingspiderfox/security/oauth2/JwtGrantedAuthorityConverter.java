@@ -7,6 +7,10 @@ import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.stereotype.Component;
 
+/**
+ * Converts the roles claims of a JWT to granted authorities, through the memoised mapping of
+ * {@link org.codingspiderfox.security.GrantedAuthorityFactory}: tokens with the same roles share the same authorities.
+ */
 @Component
 public class JwtGrantedAuthorityConverter implements Converter<Jwt, Collection<GrantedAuthority>> {
 
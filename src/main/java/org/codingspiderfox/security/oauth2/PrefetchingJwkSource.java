@@ -0,0 +1,137 @@
+package org.codingspiderfox.security.oauth2;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.KeyType;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.SecurityContext;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.client.RestOperations;
+
+/**
+ * JWK source keeping the IdP's JWK set in memory and refreshing it in the background, so that
+ * request threads do not block on the JWK set endpoint when the IdP rotates its keys.
+ * <p>
+ * A token signed with an unknown key still triggers a synchronous refresh, at most once per
+ * {@code minRefreshInterval}, to cover rotations that happen between two background refreshes. The
+ * concurrent requests missing the same key wait for that refresh rather than calling the IdP too.
+ */
+public class PrefetchingJwkSource implements JWKSource<SecurityContext>, AutoCloseable {
+
+    private static final Duration DEFAULT_MIN_REFRESH_INTERVAL = Duration.ofSeconds(30);
+
+    private final Logger log = LoggerFactory.getLogger(PrefetchingJwkSource.class);
+
+    private final String jwkSetUri;
+
+    private final RestOperations restOperations;
+
+    private final long minRefreshIntervalNanos;
+
+    private final ScheduledExecutorService scheduler;
+
+    private volatile JWKSet jwkSet;
+
+    private volatile long lastRefreshAttempt;
+
+    public PrefetchingJwkSource(String jwkSetUri, RestOperations restOperations, Duration refreshInterval) {
+        this(jwkSetUri, restOperations, refreshInterval, DEFAULT_MIN_REFRESH_INTERVAL);
+    }
+
+    PrefetchingJwkSource(String jwkSetUri, RestOperations restOperations, Duration refreshInterval, Duration minRefreshInterval) {
+        this.jwkSetUri = jwkSetUri;
+        this.restOperations = restOperations;
+        this.minRefreshIntervalNanos = minRefreshInterval.toNanos();
+        refresh();
+        this.scheduler =
+            Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "jwk-set-refresh");
+                thread.setDaemon(true);
+                return thread;
+            });
+        this.scheduler.scheduleWithFixedDelay(
+                this::refreshQuietly,
+                refreshInterval.toMillis(),
+                refreshInterval.toMillis(),
+                TimeUnit.MILLISECONDS
+            );
+    }
+
+    @Override
+    public List<JWK> get(JWKSelector jwkSelector, SecurityContext context) {
+        List<JWK> jwks = jwkSelector.select(jwkSet);
+        if (jwks.isEmpty()) {
+            synchronized (this) {
+                // another request may have refreshed the set while this one waited for the lock
+                jwks = jwkSelector.select(jwkSet);
+                if (jwks.isEmpty() && System.nanoTime() - lastRefreshAttempt >= minRefreshIntervalNanos) {
+                    log.debug("No matching key in the JWK set, refreshing it from {}", jwkSetUri);
+                    refreshQuietly();
+                    jwks = jwkSelector.select(jwkSet);
+                }
+            }
+        }
+        return jwks;
+    }
+
+    /**
+     * Gets the signature algorithms supported by the keys of the JWK set.
+     *
+     * @return the signature algorithms, {@code RS256} if the keys do not advertise any.
+     */
+    public Set<JWSAlgorithm> getJwsAlgorithms() {
+        Set<JWSAlgorithm> algorithms = new HashSet<>();
+        for (JWK jwk : jwkSet.getKeys()) {
+            if (jwk.getKeyUse() != null && !KeyUse.SIGNATURE.equals(jwk.getKeyUse())) {
+                continue;
+            }
+            if (jwk.getAlgorithm() != null) {
+                algorithms.add(JWSAlgorithm.parse(jwk.getAlgorithm().getName()));
+            } else if (KeyType.RSA.equals(jwk.getKeyType())) {
+                algorithms.addAll(JWSAlgorithm.Family.RSA);
+            } else if (KeyType.EC.equals(jwk.getKeyType())) {
+                algorithms.addAll(JWSAlgorithm.Family.EC);
+            }
+        }
+        if (algorithms.isEmpty()) {
+            algorithms.add(JWSAlgorithm.RS256);
+        }
+        return algorithms;
+    }
+
+    private synchronized void refresh() {
+        // failed attempts count too, so that an unreachable IdP is not called on every request
+        lastRefreshAttempt = System.nanoTime();
+        String body = restOperations.getForObject(jwkSetUri, String.class);
+        try {
+            jwkSet = JWKSet.parse(body);
+        } catch (ParseException e) {
+            throw new IllegalStateException("Invalid JWK set returned by " + jwkSetUri, e);
+        }
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            log.warn("Could not refresh the JWK set from {}: {}", jwkSetUri, e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
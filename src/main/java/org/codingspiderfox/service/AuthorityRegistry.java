@@ -0,0 +1,160 @@
+package org.codingspiderfox.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.codingspiderfox.domain.Authority;
+import org.codingspiderfox.repository.AuthorityRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Service keeping the catalogue of {@link Authority} names in memory.
+ * <p>
+ * The catalogue is loaded on first use and replaced by a fresh copy whenever authorities are added, so that
+ * lookups never hit the database. Additions are announced with a {@link PostgresNotificationService} event, and the
+ * other nodes reload their catalogue on next use.
+ */
+@Service
+public class AuthorityRegistry {
+
+    static final String AUTHORITIES_EVENT = "authorities";
+
+    private final Logger log = LoggerFactory.getLogger(AuthorityRegistry.class);
+
+    private final AuthorityRepository authorityRepository;
+
+    private volatile Catalogue catalogue;
+
+    private final PostgresNotificationService postgresNotificationService;
+
+    public AuthorityRegistry(AuthorityRepository authorityRepository, PostgresNotificationService postgresNotificationService) {
+        this.authorityRepository = authorityRepository;
+        this.postgresNotificationService = postgresNotificationService;
+        postgresNotificationService.subscribe(AUTHORITIES_EVENT, names -> invalidate());
+    }
+
+    /**
+     * @return the names of all the authorities, sorted.
+     */
+    public List<String> getNames() {
+        return catalogue().sortedNames;
+    }
+
+    /**
+     * @return the entity tag of the current catalogue.
+     */
+    public String getETag() {
+        return catalogue().eTag;
+    }
+
+    /**
+     * @param name the name of an authority.
+     * @return {@code true} if the authority exists.
+     */
+    public boolean contains(String name) {
+        return catalogue().names.contains(name);
+    }
+
+    /**
+     * Inserts the authorities that are not known yet, as part of the current transaction.
+     * <p>
+     * The catalogue is reloaded, and the other nodes notified, once the transaction has committed.
+     *
+     * @param names the names of the authorities to register.
+     */
+    public void registerAll(Collection<String> names) {
+        Set<String> known = catalogue().names;
+        Set<String> unseen = names.stream().filter(name -> !known.contains(name)).collect(Collectors.toSet());
+        if (unseen.isEmpty()) {
+            return;
+        }
+        log.debug("Saving authorities {} in local database", unseen);
+        authorityRepository.insertMissing(unseen);
+        postgresNotificationService.publishEvent(AUTHORITIES_EVENT, "");
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        refresh();
+                    }
+                }
+            );
+        } else {
+            refresh();
+        }
+    }
+
+    /**
+     * Reloads the catalogue from the database.
+     */
+    public void refresh() {
+        reload();
+    }
+
+    /**
+     * Drops the catalogue, so that it is reloaded on next use.
+     * <p>
+     * Waits for a reload in progress, which may have read the authorities before the change being announced.
+     */
+    synchronized void invalidate() {
+        catalogue = null;
+    }
+
+    private Catalogue catalogue() {
+        Catalogue current = catalogue;
+        if (current == null) {
+            synchronized (this) {
+                current = catalogue;
+                if (current == null) {
+                    // the loaded catalogue itself, as the field may be invalidated again once the lock is released
+                    current = reload();
+                }
+            }
+        }
+        return current;
+    }
+
+    private synchronized Catalogue reload() {
+        Catalogue loaded = new Catalogue(authorityRepository.findAll().stream().map(Authority::getName).collect(Collectors.toSet()));
+        catalogue = loaded;
+        return loaded;
+    }
+
+    private static final class Catalogue {
+
+        private final Set<String> names;
+
+        private final List<String> sortedNames;
+
+        private final String eTag;
+
+        private Catalogue(Set<String> names) {
+            this.names = Set.copyOf(names);
+            this.sortedNames = names.stream().sorted().collect(Collectors.toUnmodifiableList());
+            this.eTag = eTag(sortedNames);
+        }
+
+        private static String eTag(List<String> sortedNames) {
+            try {
+                MessageDigest digest = MessageDigest.getInstance("SHA-256");
+                for (String name : sortedNames) {
+                    digest.update(name.getBytes(StandardCharsets.UTF_8));
+                    digest.update((byte) 0);
+                }
+                return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest.digest()) + "\"";
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package org.codingspiderfox.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import javax.persistence.EntityManagerFactory;
+import org.codingspiderfox.config.ApplicationProperties;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Service broadcasting cache evictions to the other application nodes through PostgreSQL {@code LISTEN/NOTIFY}.
+ * <p>
+ * Evictions are published once the surrounding transaction has committed, and sent in batches by the
+ * {@link PostgresNotificationService}. Each node applies the evictions of its peers to its Spring caches and
+ * Hibernate second-level cache regions. Nothing is sent nor listened to unless
+ * {@code application.cache-invalidation.enabled} is set.
+ */
+@Service
+public class CacheInvalidationBus {
+
+    private static final String CACHE = "cache";
+
+    private static final String CACHE_CLEAR = "cache-clear";
+
+    private static final String ENTITY = "entity";
+
+    private static final String COLLECTION = "collection";
+
+    private final Logger log = LoggerFactory.getLogger(CacheInvalidationBus.class);
+
+    private final CacheManager cacheManager;
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final PostgresNotificationService postgresNotificationService;
+
+    private final ObjectMapper objectMapper;
+
+    private final ApplicationProperties.CacheInvalidation properties;
+
+    public CacheInvalidationBus(
+        CacheManager cacheManager,
+        EntityManagerFactory entityManagerFactory,
+        PostgresNotificationService postgresNotificationService,
+        ObjectMapper objectMapper,
+        ApplicationProperties applicationProperties
+    ) {
+        this.cacheManager = cacheManager;
+        this.entityManagerFactory = entityManagerFactory;
+        this.postgresNotificationService = postgresNotificationService;
+        this.objectMapper = objectMapper;
+        this.properties = applicationProperties.getCacheInvalidation();
+        if (properties.isEnabled()) {
+            // Notifications sent while disconnected are lost, so nothing cached meanwhile can be trusted
+            postgresNotificationService.register(properties.getChannel(), this::receive, this::clearAll);
+        }
+    }
+
+    /**
+     * Evicts an entry of a Spring cache on the other nodes.
+     *
+     * @param cacheName the name of the cache.
+     * @param key the key of the entry.
+     */
+    public void publishEviction(String cacheName, String key) {
+        publish(CACHE, cacheName, key);
+    }
+
+    /**
+     * Clears a Spring cache on the other nodes.
+     *
+     * @param cacheName the name of the cache.
+     */
+    public void publishClear(String cacheName) {
+        publish(CACHE_CLEAR, cacheName, "");
+    }
+
+    /**
+     * Evicts an entity from the second-level cache of the other nodes.
+     *
+     * @param entityClass the class of the entity.
+     * @param id the id of the entity.
+     */
+    public void publishEntityEviction(Class<?> entityClass, String id) {
+        publish(ENTITY, entityClass.getName(), id);
+    }
+
+    /**
+     * Evicts a collection from the second-level cache of the other nodes.
+     *
+     * @param role the role of the collection, i.e. the entity class name and the property name.
+     * @param ownerId the id of the entity owning the collection.
+     */
+    public void publishCollectionEviction(String role, String ownerId) {
+        publish(COLLECTION, role, ownerId);
+    }
+
+    private void publish(String kind, String region, String key) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        ArrayNode eviction = objectMapper.createArrayNode().add(kind).add(region).add(key);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        postgresNotificationService.send(properties.getChannel(), eviction);
+                    }
+                }
+            );
+        } else {
+            postgresNotificationService.send(properties.getChannel(), eviction);
+        }
+    }
+
+    /**
+     * Applies an eviction sent by another node.
+     *
+     * @param node the id of the sending node.
+     * @param eviction the eviction.
+     */
+    void receive(String node, JsonNode eviction) {
+        String kind = eviction.path(0).asText();
+        String region = eviction.path(1).asText();
+        String key = eviction.path(2).asText();
+        switch (kind) {
+            case CACHE:
+                Cache cache = cacheManager.getCache(region);
+                if (cache != null) {
+                    cache.evict(key);
+                }
+                break;
+            case CACHE_CLEAR:
+                Cache cleared = cacheManager.getCache(region);
+                if (cleared != null) {
+                    cleared.clear();
+                }
+                break;
+            case ENTITY:
+                entityManagerFactory.unwrap(SessionFactory.class).getCache().evictEntityData(region, key);
+                break;
+            case COLLECTION:
+                entityManagerFactory.unwrap(SessionFactory.class).getCache().evictCollectionData(region, key);
+                break;
+            default:
+                log.debug("Ignoring unknown cache invalidation kind {}", kind);
+        }
+    }
+
+    private void clearAll() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+    }
+}
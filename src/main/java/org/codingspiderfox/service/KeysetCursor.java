@@ -0,0 +1,50 @@
+package org.codingspiderfox.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import org.springframework.data.domain.Sort;
+
+/**
+ * The position in a keyset-paginated listing: the order of the listing and the key of the last element returned.
+ * <p>
+ * It is exchanged with clients as an opaque URL-safe token.
+ */
+final class KeysetCursor {
+
+    private static final String SEPARATOR = ":";
+
+    private final Sort.Order order;
+
+    private final String after;
+
+    KeysetCursor(Sort.Order order, String after) {
+        this.order = order;
+        this.after = after;
+    }
+
+    Sort.Order getOrder() {
+        return order;
+    }
+
+    String getAfter() {
+        return after;
+    }
+
+    String encode() {
+        String position = order.getProperty() + SEPARATOR + order.getDirection() + SEPARATOR + after;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param token a token returned by {@link #encode()}.
+     * @return the decoded cursor.
+     * @throws IllegalArgumentException if the token is malformed.
+     */
+    static KeysetCursor decode(String token) {
+        String[] position = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(SEPARATOR, 3);
+        if (position.length != 3) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        return new KeysetCursor(new Sort.Order(Sort.Direction.fromString(position[1]), position[0]), position[2]);
+    }
+}
@@ -0,0 +1,403 @@
+package org.codingspiderfox.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.codingspiderfox.config.ApplicationProperties;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Service exchanging messages between the application nodes through PostgreSQL {@code LISTEN/NOTIFY}, for the
+ * {@link CacheInvalidationBus} and the broker relay of the websocket tracker.
+ * <p>
+ * Each node listens to all the {@link #register(String, BiConsumer, Runnable) registered} channels on a single
+ * dedicated connection. The messages are queued and sent in batches, as large as a notification allows, by a
+ * background flush running on its own thread, so that the shared scheduler's jobs can not delay it. The messages of a
+ * node are not delivered back to it. The service also carries named events, delivered to the listeners
+ * {@link #subscribe(String, Consumer) subscribed} on the other nodes.
+ * <p>
+ * Nothing is sent nor listened to unless {@code application.cache-invalidation.enabled} is set or
+ * {@code application.websocket.broker} is {@code postgres}.
+ */
+@Service
+public class PostgresNotificationService {
+
+    /**
+     * The largest payload PostgreSQL accepts in a notification.
+     */
+    public static final int MAX_NOTIFICATION_BYTES = 7999;
+
+    /**
+     * The largest message that fits in a notification, along with the envelope naming the sending node.
+     */
+    public static final int MAX_MESSAGE_BYTES = MAX_NOTIFICATION_BYTES - 64;
+
+    private static final Pattern CHANNEL_PATTERN = Pattern.compile("[a-z_][a-z0-9_]*");
+
+    private static final long LISTEN_TIMEOUT_MILLIS = 500;
+
+    private static final long RECONNECT_DELAY_MILLIS = 5000;
+
+    private final Logger log = LoggerFactory.getLogger(PostgresNotificationService.class);
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final Map<String, Channel> channels = new ConcurrentHashMap<>();
+
+    private final Map<String, List<Consumer<String>>> eventListeners = new ConcurrentHashMap<>();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final DataSourceProperties dataSourceProperties;
+
+    private final ObjectMapper objectMapper;
+
+    private final ApplicationProperties.PostgresNotifications properties;
+
+    private final boolean enabled;
+
+    private volatile boolean running;
+
+    private Thread listener;
+
+    private ScheduledExecutorService flusher;
+
+    public PostgresNotificationService(
+        JdbcTemplate jdbcTemplate,
+        PlatformTransactionManager transactionManager,
+        DataSourceProperties dataSourceProperties,
+        ObjectMapper objectMapper,
+        ApplicationProperties applicationProperties
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.dataSourceProperties = dataSourceProperties;
+        this.objectMapper = objectMapper;
+        this.properties = applicationProperties.getPostgresNotifications();
+        this.enabled =
+            applicationProperties.getCacheInvalidation().isEnabled() ||
+            applicationProperties.getWebsocket().getBroker() == ApplicationProperties.Websocket.BrokerMode.POSTGRES;
+        register(properties.getEventChannel(), this::receiveEvent, () -> {});
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        listener = new Thread(this::listen, "postgres-notification-listener");
+        listener.setDaemon(true);
+        listener.start();
+        flusher =
+            Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "postgres-notification-flush");
+                thread.setDaemon(true);
+                return thread;
+            });
+        long flushInterval = properties.getFlushIntervalMs();
+        flusher.scheduleWithFixedDelay(this::flush, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (listener != null) {
+            listener.interrupt();
+        }
+        if (flusher != null) {
+            flusher.shutdown();
+        }
+    }
+
+    /**
+     * @return {@code true} if the messages are sent to the other nodes.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return the id of this node, sent along with its messages.
+     */
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Registers a channel, which this node listens to from then on.
+     *
+     * @param channel the name of the channel.
+     * @param receiver called on the listening thread with the id of the sending node and each message of the other nodes.
+     * @param reconnected called on the listening thread once the connection is re-established, as the messages sent
+     *                    meanwhile are lost.
+     */
+    public void register(String channel, BiConsumer<String, JsonNode> receiver, Runnable reconnected) {
+        if (!CHANNEL_PATTERN.matcher(channel).matches()) {
+            throw new IllegalStateException("Invalid notification channel: " + channel);
+        }
+        channels.put(channel, new Channel(receiver, reconnected));
+    }
+
+    /**
+     * Queues a message for the other nodes listening to a channel.
+     *
+     * @param channel the name of the channel.
+     * @param message the message.
+     * @return {@code false} if the message was dropped, because it is larger than {@link #MAX_MESSAGE_BYTES} or nothing
+     * is sent.
+     */
+    public boolean send(String channel, JsonNode message) {
+        if (!enabled) {
+            return false;
+        }
+        Channel target = channels.get(channel);
+        if (target == null) {
+            throw new IllegalStateException("Unregistered notification channel: " + channel);
+        }
+        String serialized = message.toString();
+        int bytes = serialized.getBytes(StandardCharsets.UTF_8).length;
+        if (bytes > MAX_MESSAGE_BYTES) {
+            log.warn("Not sending a message of {} bytes on channel {}", bytes, channel);
+            return false;
+        }
+        target.pending.add(new PendingMessage(serialized, bytes));
+        return true;
+    }
+
+    /**
+     * Sends an event to the listeners subscribed on the other nodes, once the surrounding transaction has committed.
+     *
+     * @param event the name of the event.
+     * @param value the value passed to the listeners.
+     */
+    public void publishEvent(String event, String value) {
+        if (!enabled) {
+            return;
+        }
+        ObjectNode message = objectMapper.createObjectNode().put("event", event).put("value", value);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        send(properties.getEventChannel(), message);
+                    }
+                }
+            );
+        } else {
+            send(properties.getEventChannel(), message);
+        }
+    }
+
+    /**
+     * Subscribes to the events sent by the other nodes.
+     * <p>
+     * The listener is called on the listening thread, so it must not block.
+     *
+     * @param event the name of the event.
+     * @param listener the listener, called with the value of the event.
+     */
+    public void subscribe(String event, Consumer<String> listener) {
+        eventListeners.computeIfAbsent(event, name -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    private void receiveEvent(String node, JsonNode message) {
+        String value = message.path("value").asText();
+        eventListeners.getOrDefault(message.path("event").asText(), List.of()).forEach(listener -> listener.accept(value));
+    }
+
+    /**
+     * Sends the pending messages of every channel.
+     */
+    public void flush() {
+        for (String channel : channels.keySet()) {
+            List<String> payloads = drain(channel);
+            if (payloads.isEmpty()) {
+                continue;
+            }
+            try {
+                // The notifications are only delivered on commit, and the pool does not auto-commit
+                transactionTemplate.executeWithoutResult(status ->
+                    payloads.forEach(payload -> jdbcTemplate.queryForRowSet("select pg_notify(?, ?)", channel, payload))
+                );
+            } catch (RuntimeException e) {
+                log.warn("Could not send {} notifications on channel {}: {}", payloads.size(), channel, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Packs the pending messages of a channel into as few notifications as possible.
+     *
+     * @param channel the name of the channel.
+     * @return the payloads of the notifications.
+     */
+    List<String> drain(String channel) {
+        Queue<PendingMessage> pending = channels.get(channel).pending;
+        String prefix = "{\"node\":\"" + nodeId + "\",\"messages\":[";
+        List<String> payloads = new ArrayList<>();
+        StringBuilder batch = null;
+        int batchBytes = 0;
+        PendingMessage message;
+        while ((message = pending.poll()) != null) {
+            if (batch != null && batchBytes + 1 + message.bytes + 2 > MAX_NOTIFICATION_BYTES) {
+                payloads.add(batch.append("]}").toString());
+                batch = null;
+            }
+            if (batch == null) {
+                batch = new StringBuilder(prefix).append(message.serialized);
+                batchBytes = prefix.length() + message.bytes;
+            } else {
+                batch.append(',').append(message.serialized);
+                batchBytes += 1 + message.bytes;
+            }
+        }
+        if (batch != null) {
+            payloads.add(batch.append("]}").toString());
+        }
+        return payloads;
+    }
+
+    /**
+     * Hands the messages of a notification sent by another node to the receiver of its channel.
+     *
+     * @param channel the name of the channel.
+     * @param payload the notification payload.
+     */
+    void receive(String channel, String payload) {
+        Channel target = channels.get(channel);
+        if (target == null) {
+            return;
+        }
+        JsonNode notification;
+        try {
+            notification = objectMapper.readTree(payload);
+        } catch (JsonProcessingException e) {
+            log.warn("Ignoring malformed notification on channel {}: {}", channel, e.getMessage());
+            return;
+        }
+        String node = notification.path("node").asText();
+        if (nodeId.equals(node)) {
+            return;
+        }
+        for (JsonNode message : notification.path("messages")) {
+            try {
+                target.receiver.accept(node, message);
+            } catch (RuntimeException e) {
+                log.warn("Could not handle a message on channel {}: {}", channel, e.getMessage());
+            }
+        }
+    }
+
+    private void listen() {
+        boolean reconnecting = false;
+        while (running) {
+            try (
+                Connection connection = DriverManager.getConnection(
+                    dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(),
+                    dataSourceProperties.determinePassword()
+                )
+            ) {
+                Set<String> listened = new HashSet<>();
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    // the channels registered since the last notifications are listened to from now on
+                    for (String channel : channels.keySet()) {
+                        if (listened.add(channel)) {
+                            try (Statement statement = connection.createStatement()) {
+                                statement.execute("LISTEN " + channel);
+                            }
+                            log.debug("Listening to notifications on channel {}", channel);
+                        }
+                    }
+                    if (reconnecting) {
+                        reconnecting = false;
+                        channels.values().forEach(channel -> channel.reconnected.run());
+                    }
+                    PGNotification[] notifications = pgConnection.getNotifications((int) LISTEN_TIMEOUT_MILLIS);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            receive(notification.getName(), notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Lost the notification connection, reconnecting in {} ms: {}", RECONNECT_DELAY_MILLIS, e.getMessage());
+                reconnecting = true;
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private static final class Channel {
+
+        private final BiConsumer<String, JsonNode> receiver;
+
+        private final Runnable reconnected;
+
+        private final Queue<PendingMessage> pending = new ConcurrentLinkedQueue<>();
+
+        private Channel(BiConsumer<String, JsonNode> receiver, Runnable reconnected) {
+            this.receiver = receiver;
+            this.reconnected = reconnected;
+        }
+    }
+
+    private static final class PendingMessage {
+
+        private final String serialized;
+
+        private final int bytes;
+
+        private PendingMessage(String serialized, int bytes) {
+            this.serialized = serialized;
+            this.bytes = bytes;
+        }
+    }
+}
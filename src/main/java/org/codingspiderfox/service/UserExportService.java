@@ -0,0 +1,271 @@
+package org.codingspiderfox.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.HashSet;
+import java.util.TreeSet;
+import org.codingspiderfox.domain.User;
+import org.codingspiderfox.service.dto.AdminUserDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Service exporting all the users, as CSV or as newline-delimited JSON.
+ * <p>
+ * The users are read through a forward-only JDBC cursor and written to the output as they come, so that the memory
+ * used does not depend on the number of users. The cursor only advances as fast as the output accepts the rows.
+ */
+@Service
+public class UserExportService {
+
+    /**
+     * The export formats.
+     */
+    public enum Format {
+        CSV,
+        NDJSON,
+    }
+
+    /**
+     * The number of rows fetched from the database at once.
+     */
+    static final int FETCH_SIZE = 500;
+
+    static final String[] CSV_HEADER = {
+        "id",
+        "login",
+        "first_name",
+        "last_name",
+        "email",
+        "image_url",
+        "activated",
+        "lang_key",
+        "created_by",
+        "created_date",
+        "last_modified_by",
+        "last_modified_date",
+        "authorities",
+    };
+
+    // the authorities of a user are on consecutive rows, so a user is complete when the next one starts
+    private static final String EXPORT_QUERY =
+        "select u.id, u.login, u.first_name, u.last_name, u.email, u.image_url, u.activated, u.lang_key, u.created_by," +
+        " u.created_date, u.last_modified_by, u.last_modified_date, ua.authority_name" +
+        " from jhi_user u left join jhi_user_authority ua on ua.user_id = u.id order by u.id";
+
+    private final Logger log = LoggerFactory.getLogger(UserExportService.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    public UserExportService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, ObjectMapper objectMapper) {
+        // PostgreSQL only streams the rows of a query with a fetch size from within a transaction
+        this.jdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Exports all the users.
+     *
+     * @param format the format of the export.
+     * @param outputStream the stream to write the export to; it is flushed but not closed.
+     * @throws IOException if the export could not be written.
+     */
+    public void export(Format format, OutputStream outputStream) throws IOException {
+        log.debug("Exporting users as {}", format);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        try {
+            UserRowWriter rowWriter = format == Format.CSV ? new CsvRowWriter(writer) : new NdjsonRowWriter(writer, objectMapper);
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(EXPORT_QUERY, rowWriter));
+            rowWriter.finish();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    /**
+     * Groups the consecutive rows of each user and writes the user once all its authorities are read.
+     */
+    private abstract static class UserRowWriter implements RowCallbackHandler {
+
+        private AdminUserDTO current;
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            String id = rs.getString("id");
+            if (current == null || !current.getId().equals(id)) {
+                finish();
+                current = toUser(rs);
+            }
+            String authority = rs.getString("authority_name");
+            if (authority != null) {
+                current.getAuthorities().add(authority);
+            }
+        }
+
+        void finish() {
+            if (current == null) {
+                return;
+            }
+            try {
+                write(current);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            current = null;
+        }
+
+        abstract void write(AdminUserDTO user) throws IOException;
+
+        private static AdminUserDTO toUser(ResultSet rs) throws SQLException {
+            User user = new User();
+            user.setId(rs.getString("id"));
+            user.setLogin(rs.getString("login"));
+            user.setFirstName(rs.getString("first_name"));
+            user.setLastName(rs.getString("last_name"));
+            user.setEmail(rs.getString("email"));
+            user.setImageUrl(rs.getString("image_url"));
+            user.setActivated(rs.getBoolean("activated"));
+            user.setLangKey(rs.getString("lang_key"));
+            user.setCreatedBy(rs.getString("created_by"));
+            Timestamp createdDate = rs.getTimestamp("created_date");
+            user.setCreatedDate(createdDate != null ? createdDate.toInstant() : null);
+            user.setLastModifiedBy(rs.getString("last_modified_by"));
+            Timestamp lastModifiedDate = rs.getTimestamp("last_modified_date");
+            user.setLastModifiedDate(lastModifiedDate != null ? lastModifiedDate.toInstant() : null);
+            return new AdminUserDTO(user, new HashSet<>());
+        }
+    }
+
+    private static final class CsvRowWriter extends UserRowWriter {
+
+        private final Writer writer;
+
+        CsvRowWriter(Writer writer) {
+            this.writer = writer;
+            try {
+                writeLine(CSV_HEADER);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        void write(AdminUserDTO user) throws IOException {
+            writeLine(
+                user.getId(),
+                user.getLogin(),
+                user.getFirstName(),
+                user.getLastName(),
+                user.getEmail(),
+                user.getImageUrl(),
+                Boolean.toString(user.isActivated()),
+                user.getLangKey(),
+                user.getCreatedBy(),
+                user.getCreatedDate() != null ? user.getCreatedDate().toString() : null,
+                user.getLastModifiedBy(),
+                user.getLastModifiedDate() != null ? user.getLastModifiedDate().toString() : null,
+                String.join(" ", new TreeSet<>(user.getAuthorities()))
+            );
+        }
+
+        private void writeLine(String... values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(escape(values[i]));
+            }
+            writer.write("\r\n");
+        }
+    }
+
+    private static final class NdjsonRowWriter extends UserRowWriter {
+
+        private final Writer writer;
+
+        private final ObjectWriter objectWriter;
+
+        NdjsonRowWriter(Writer writer, ObjectMapper objectMapper) {
+            this.writer = writer;
+            this.objectWriter =
+                objectMapper
+                    .writerFor(AdminUserDTO.class)
+                    .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        }
+
+        @Override
+        void write(AdminUserDTO user) throws IOException {
+            objectWriter.writeValue(writer, user);
+            writer.write('\n');
+        }
+    }
+
+    /**
+     * Quotes a CSV value when it contains a separator, a quote or a line break, as specified by RFC 4180.
+     * <p>
+     * A value that a spreadsheet would evaluate as a formula is first prefixed with a {@code '}, which
+     * {@link #unescapeFormula(String)} removes on import.
+     */
+    static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (isFormula(value)) {
+            value = '\'' + value;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * Removes the {@code '} prefixed to a value by {@link #escape(String)} to neutralise a formula.
+     */
+    static String unescapeFormula(String value) {
+        if (value != null && value.length() > 1 && value.charAt(0) == '\'' && isFormula(value.substring(1))) {
+            return value.substring(1);
+        }
+        return value;
+    }
+
+    /**
+     * A value starting like a formula, or with a {@code '} before such a value, so that the escaping is reversible.
+     */
+    private static boolean isFormula(String value) {
+        if (value.isEmpty()) {
+            return false;
+        }
+        char first = value.charAt(0);
+        if (first == '=' || first == '+' || first == '-' || first == '@' || first == '\t' || first == '\r') {
+            return true;
+        }
+        return first == '\'' && isFormula(value.substring(1));
+    }
+}
@@ -0,0 +1,470 @@
+package org.codingspiderfox.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import org.codingspiderfox.config.Constants;
+import org.codingspiderfox.repository.UserRepository;
+import org.codingspiderfox.security.SecurityUtils;
+import org.codingspiderfox.service.dto.AdminUserDTO;
+import org.codingspiderfox.service.dto.UserImportResultDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Service importing users in bulk, from CSV or newline-delimited JSON in the format of {@link UserExportService}.
+ * <p>
+ * The users are read and written in chunks: the rows of a chunk are validated in parallel, then the valid ones are
+ * inserted with JDBC batches, together with their authorities and their search index outbox entries, in one
+ * transaction per chunk. Rows that can not be imported are reported without aborting the rest of the import.
+ */
+@Service
+public class UserImportService {
+
+    /**
+     * The number of users inserted per transaction.
+     */
+    static final int CHUNK_SIZE = 1000;
+
+    private static final String INSERT_USER =
+        "insert into jhi_user (id, login, first_name, last_name, email, image_url, activated, lang_key, created_by, created_date," +
+        " last_modified_by, last_modified_date) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_USER_AUTHORITY = "insert into jhi_user_authority (user_id, authority_name) values (?, ?)";
+
+    private static final String SELECT_EXISTING_USERS =
+        "select id, login, email from jhi_user where id in (:ids) or login in (:logins) or email in (:emails)";
+
+    private final Logger log = LoggerFactory.getLogger(UserImportService.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final UserSearchIndexingService userSearchIndexingService;
+
+    private final AuthorityRegistry authorityRegistry;
+
+    private final CacheManager cacheManager;
+
+    private final CacheInvalidationBus cacheInvalidationBus;
+
+    private final Validator validator;
+
+    private final ObjectReader ndjsonReader;
+
+    public UserImportService(
+        JdbcTemplate jdbcTemplate,
+        PlatformTransactionManager transactionManager,
+        UserSearchIndexingService userSearchIndexingService,
+        AuthorityRegistry authorityRegistry,
+        CacheManager cacheManager,
+        CacheInvalidationBus cacheInvalidationBus,
+        Validator validator,
+        ObjectMapper objectMapper
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.userSearchIndexingService = userSearchIndexingService;
+        this.authorityRegistry = authorityRegistry;
+        this.cacheManager = cacheManager;
+        this.cacheInvalidationBus = cacheInvalidationBus;
+        this.validator = validator;
+        this.ndjsonReader = objectMapper.readerFor(AdminUserDTO.class);
+    }
+
+    /**
+     * Imports users.
+     *
+     * @param format the format of the import.
+     * @param inputStream the users to import.
+     * @return the number of users imported and the rows that could not be.
+     * @throws IOException if the import could not be read.
+     */
+    public UserImportResultDTO importUsers(UserExportService.Format format, InputStream inputStream) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        RowReader rowReader = format == UserExportService.Format.CSV
+            ? new CsvRowReader(reader)
+            : new NdjsonRowReader(reader, ndjsonReader);
+        String importedBy = SecurityUtils.getCurrentUserLogin().orElse(Constants.SYSTEM);
+        List<UserImportResultDTO.RowError> errors = new ArrayList<>();
+        long imported = 0;
+        long rowNumber = 0;
+        List<Row> chunk = new ArrayList<>(CHUNK_SIZE);
+        Row row;
+        do {
+            row = rowReader.next(rowNumber + 1);
+            if (row != null) {
+                rowNumber++;
+                chunk.add(row);
+            }
+            if (chunk.size() == CHUNK_SIZE || (row == null && !chunk.isEmpty())) {
+                imported += importChunk(chunk, importedBy, errors);
+                chunk = new ArrayList<>(CHUNK_SIZE);
+            }
+        } while (row != null);
+        log.info("Imported {} users, {} rows rejected", imported, errors.size());
+        return new UserImportResultDTO(imported, errors);
+    }
+
+    private int importChunk(List<Row> chunk, String importedBy, List<UserImportResultDTO.RowError> errors) {
+        // validation only reads the rows, so it is spread over the cores
+        chunk.parallelStream().filter(row -> row.error == null).forEach(this::validate);
+        List<Row> valid = chunk.stream().filter(row -> row.error == null).collect(Collectors.toList());
+        int imported = 0;
+        try {
+            Integer inserted = transactionTemplate.execute(status -> insert(valid, importedBy));
+            imported = inserted != null ? inserted : 0;
+        } catch (DataAccessException e) {
+            // a concurrent write conflicted with the batch: insert its rows one by one to find the culprits
+            log.debug("Could not insert a batch of {} users, retrying row by row: {}", valid.size(), e.getMessage());
+            for (Row row : valid) {
+                row.error = null;
+                try {
+                    Integer inserted = transactionTemplate.execute(status -> insert(List.of(row), importedBy));
+                    imported += inserted != null ? inserted : 0;
+                } catch (DataAccessException rowException) {
+                    row.error = "Could not be inserted: " + rowException.getMostSpecificCause().getMessage();
+                }
+            }
+        }
+        chunk
+            .stream()
+            .filter(row -> row.error != null)
+            .map(row -> new UserImportResultDTO.RowError(row.number, row.user != null ? row.user.getLogin() : null, row.error))
+            .forEach(errors::add);
+        return imported;
+    }
+
+    private void validate(Row row) {
+        AdminUserDTO user = row.user;
+        if (user.getId() == null || user.getId().isBlank()) {
+            row.error = "id: must not be blank";
+            return;
+        }
+        Set<ConstraintViolation<AdminUserDTO>> violations = validator.validate(user);
+        if (!violations.isEmpty()) {
+            row.error =
+                violations
+                    .stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", "));
+            return;
+        }
+        List<String> unknownAuthorities = user
+            .getAuthorities()
+            .stream()
+            .filter(authority -> !authorityRegistry.contains(authority))
+            .sorted()
+            .collect(Collectors.toList());
+        if (!unknownAuthorities.isEmpty()) {
+            row.error = "authorities: unknown " + String.join(", ", unknownAuthorities);
+        }
+    }
+
+    /**
+     * Inserts the rows that do not clash with an existing user nor with a previous row.
+     *
+     * @return the number of users inserted.
+     */
+    private int insert(List<Row> rows, String importedBy) {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        Set<String> takenIds = new HashSet<>();
+        Set<String> takenLogins = new HashSet<>();
+        Set<String> takenEmails = new HashSet<>();
+        Set<String> emails = rows.stream().map(row -> row.user.getEmail()).filter(Objects::nonNull).collect(Collectors.toSet());
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+            .addValue("ids", rows.stream().map(row -> row.user.getId()).collect(Collectors.toSet()))
+            .addValue("logins", rows.stream().map(row -> row.user.getLogin()).collect(Collectors.toSet()))
+            // an empty IN list is not valid SQL
+            .addValue("emails", emails.isEmpty() ? Set.of("") : emails);
+        namedParameterJdbcTemplate.query(
+            SELECT_EXISTING_USERS,
+            parameters,
+            rs -> {
+                takenIds.add(rs.getString("id"));
+                takenLogins.add(rs.getString("login"));
+                takenEmails.add(rs.getString("email"));
+            }
+        );
+
+        List<AdminUserDTO> users = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            AdminUserDTO user = row.user;
+            if (!takenIds.add(user.getId())) {
+                row.error = "id: already in use";
+            } else if (!takenLogins.add(user.getLogin())) {
+                row.error = "login: already in use";
+            } else if (user.getEmail() != null && !takenEmails.add(user.getEmail())) {
+                row.error = "email: already in use";
+            } else {
+                users.add(user);
+            }
+        }
+        if (users.isEmpty()) {
+            return 0;
+        }
+
+        Timestamp now = Timestamp.from(Instant.now());
+        jdbcTemplate.batchUpdate(
+            INSERT_USER,
+            users
+                .stream()
+                .map(user ->
+                    new Object[] {
+                        user.getId(),
+                        user.getLogin(),
+                        user.getFirstName(),
+                        user.getLastName(),
+                        user.getEmail(),
+                        user.getImageUrl(),
+                        user.isActivated(),
+                        user.getLangKey() != null ? user.getLangKey() : Constants.DEFAULT_LANGUAGE,
+                        importedBy,
+                        now,
+                        importedBy,
+                        now
+                    }
+                )
+                .collect(Collectors.toList())
+        );
+        jdbcTemplate.batchUpdate(
+            INSERT_USER_AUTHORITY,
+            users
+                .stream()
+                .flatMap(user -> user.getAuthorities().stream().map(authority -> new Object[] { user.getId(), authority }))
+                .collect(Collectors.toList())
+        );
+        userSearchIndexingService.enqueueAll(users.stream().map(AdminUserDTO::getId).collect(Collectors.toList()));
+        clearUserCaches(users);
+        return users.size();
+    }
+
+    /**
+     * Evicts the lookups of the imported users that may have cached their absence.
+     * <p>
+     * The local caches are evicted once the transaction has committed, as a lookup in between would cache the absence
+     * again; the other nodes are notified at the same time.
+     */
+    private void clearUserCaches(List<AdminUserDTO> users) {
+        for (AdminUserDTO user : users) {
+            cacheInvalidationBus.publishEviction(UserRepository.USERS_BY_LOGIN_CACHE, user.getLogin());
+            if (user.getEmail() != null) {
+                cacheInvalidationBus.publishEviction(UserRepository.USERS_BY_EMAIL_CACHE, user.getEmail());
+            }
+        }
+        TransactionSynchronizationManager.registerSynchronization(
+            new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    Cache usersByLogin = Objects.requireNonNull(cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE));
+                    Cache usersByEmail = Objects.requireNonNull(cacheManager.getCache(UserRepository.USERS_BY_EMAIL_CACHE));
+                    for (AdminUserDTO user : users) {
+                        usersByLogin.evict(user.getLogin());
+                        if (user.getEmail() != null) {
+                            usersByEmail.evict(user.getEmail());
+                        }
+                    }
+                }
+            }
+        );
+    }
+
+    private static void normalize(AdminUserDTO user) {
+        if (user.getLogin() != null) {
+            user.setLogin(user.getLogin().toLowerCase());
+        }
+        if (user.getEmail() != null) {
+            user.setEmail(user.getEmail().toLowerCase());
+        }
+        if (user.getAuthorities() == null) {
+            user.setAuthorities(new HashSet<>());
+        }
+    }
+
+    /**
+     * A row of the import, with the reason it was rejected if it was.
+     */
+    private static final class Row {
+
+        private final long number;
+
+        private final AdminUserDTO user;
+
+        private volatile String error;
+
+        Row(long number, AdminUserDTO user, String error) {
+            this.number = number;
+            this.user = user;
+            this.error = error;
+        }
+    }
+
+    private interface RowReader {
+        /**
+         * @param number the number of the row to read.
+         * @return the row, or {@code null} at the end of the import.
+         */
+        Row next(long number) throws IOException;
+    }
+
+    private static final class NdjsonRowReader implements RowReader {
+
+        private final BufferedReader reader;
+
+        private final ObjectReader objectReader;
+
+        NdjsonRowReader(BufferedReader reader, ObjectReader objectReader) {
+            this.reader = reader;
+            this.objectReader = objectReader;
+        }
+
+        @Override
+        public Row next(long number) throws IOException {
+            String line;
+            do {
+                line = reader.readLine();
+                if (line == null) {
+                    return null;
+                }
+            } while (line.isBlank());
+            try {
+                AdminUserDTO user = objectReader.readValue(line);
+                normalize(user);
+                return new Row(number, user, null);
+            } catch (JsonProcessingException e) {
+                return new Row(number, null, "Malformed JSON: " + e.getOriginalMessage());
+            }
+        }
+    }
+
+    private static final class CsvRowReader implements RowReader {
+
+        private final BufferedReader reader;
+
+        private Map<String, Integer> columns;
+
+        CsvRowReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public Row next(long number) throws IOException {
+            if (columns == null) {
+                List<String> header = readRecord(reader);
+                if (header == null) {
+                    return null;
+                }
+                columns = new HashMap<>();
+                for (int i = 0; i < header.size(); i++) {
+                    columns.put(header.get(i).trim(), i);
+                }
+            }
+            List<String> values = readRecord(reader);
+            if (values == null) {
+                return null;
+            }
+            AdminUserDTO user = new AdminUserDTO();
+            user.setId(value(values, "id"));
+            user.setLogin(value(values, "login"));
+            user.setFirstName(value(values, "first_name"));
+            user.setLastName(value(values, "last_name"));
+            user.setEmail(value(values, "email"));
+            user.setImageUrl(value(values, "image_url"));
+            user.setActivated(Boolean.parseBoolean(value(values, "activated")));
+            user.setLangKey(value(values, "lang_key"));
+            String authorities = value(values, "authorities");
+            user.setAuthorities(
+                authorities != null ? Arrays.stream(authorities.split(" ")).filter(s -> !s.isEmpty()).collect(Collectors.toSet()) : null
+            );
+            normalize(user);
+            return new Row(number, user, null);
+        }
+
+        private String value(List<String> values, String column) {
+            Integer index = columns.get(column);
+            if (index == null || index >= values.size() || values.get(index).isEmpty()) {
+                return null;
+            }
+            return UserExportService.unescapeFormula(values.get(index));
+        }
+
+        /**
+         * Reads a record as specified by RFC 4180, whose quoted values may contain separators, quotes and line breaks.
+         *
+         * @return the values of the record, or {@code null} at the end of the input.
+         */
+        static List<String> readRecord(BufferedReader reader) throws IOException {
+            int c = reader.read();
+            if (c == -1) {
+                return null;
+            }
+            List<String> values = new ArrayList<>();
+            StringBuilder value = new StringBuilder();
+            boolean quoted = false;
+            while (c != -1) {
+                if (quoted) {
+                    if (c == '"') {
+                        reader.mark(1);
+                        int next = reader.read();
+                        if (next == '"') {
+                            value.append('"');
+                        } else {
+                            quoted = false;
+                            reader.reset();
+                        }
+                    } else {
+                        value.append((char) c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    values.add(value.toString());
+                    value.setLength(0);
+                } else if (c == '\n') {
+                    break;
+                } else if (c != '\r') {
+                    value.append((char) c);
+                }
+                c = reader.read();
+            }
+            values.add(value.toString());
+            return values;
+        }
+    }
+}
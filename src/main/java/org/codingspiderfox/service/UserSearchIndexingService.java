@@ -0,0 +1,305 @@
+package org.codingspiderfox.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import org.codingspiderfox.config.ApplicationProperties;
+import org.codingspiderfox.domain.SearchReindexLock;
+import org.codingspiderfox.domain.User;
+import org.codingspiderfox.domain.UserSearchOutboxEntry;
+import org.codingspiderfox.domain.UserSuggestion;
+import org.codingspiderfox.repository.SearchReindexLockRepository;
+import org.codingspiderfox.repository.UserRepository;
+import org.codingspiderfox.repository.UserSearchOutboxRepository;
+import org.codingspiderfox.repository.search.UserSearchRepository;
+import org.codingspiderfox.repository.search.UserSuggestionSearchRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Service keeping the {@link User} and {@link UserSuggestion} search indices in sync through a transactional outbox.
+ * <p>
+ * Changes are recorded with {@link #enqueue(User)} in the transaction that modifies the user, and a
+ * background worker bulk-indexes them in batches, backing off exponentially while Elasticsearch fails. Each batch locks
+ * its outbox entries and skips the ones locked by the other nodes, so that the nodes index distinct batches.
+ * <p>
+ * While this node {@link #startRecording() records} the indexed users for a reindex, it holds the lease of the
+ * {@link SearchReindexLock} of the index, which the other nodes check in the transaction of each batch: they skip their
+ * flush, so that every change of the shared outbox is indexed, and recorded, here. Taking the lease waits for the
+ * batches the other nodes are indexing. The lease is renewed on every flush and lapses {@value #LEASE_MILLIS} ms after
+ * the last one, should this node stop without releasing it.
+ */
+@Service
+public class UserSearchIndexingService {
+
+    static final String INDEX_NAME = "user";
+
+    static final long LEASE_MILLIS = 30000;
+
+    private final Logger log = LoggerFactory.getLogger(UserSearchIndexingService.class);
+
+    private final UserSearchOutboxRepository userSearchOutboxRepository;
+
+    private final UserRepository userRepository;
+
+    private final UserSearchRepository userSearchRepository;
+
+    private final UserSuggestionSearchRepository userSuggestionSearchRepository;
+
+    private final SearchReindexLockRepository searchReindexLockRepository;
+
+    private final CacheManager cacheManager;
+
+    private final CacheInvalidationBus cacheInvalidationBus;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ApplicationProperties.SearchIndexing properties;
+
+    private final AtomicLong queueDepth = new AtomicLong();
+
+    private final AtomicLong lagMillis = new AtomicLong();
+
+    private final Counter indexed;
+
+    private final Counter failures;
+
+    private int consecutiveFailures;
+
+    private Instant nextAttempt = Instant.EPOCH;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private volatile Set<String> recordedUserIds;
+
+    public UserSearchIndexingService(
+        UserSearchOutboxRepository userSearchOutboxRepository,
+        UserRepository userRepository,
+        UserSearchRepository userSearchRepository,
+        UserSuggestionSearchRepository userSuggestionSearchRepository,
+        SearchReindexLockRepository searchReindexLockRepository,
+        CacheManager cacheManager,
+        CacheInvalidationBus cacheInvalidationBus,
+        PlatformTransactionManager transactionManager,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
+    ) {
+        this.userSearchOutboxRepository = userSearchOutboxRepository;
+        this.userRepository = userRepository;
+        this.userSearchRepository = userSearchRepository;
+        this.userSuggestionSearchRepository = userSuggestionSearchRepository;
+        this.searchReindexLockRepository = searchReindexLockRepository;
+        this.cacheManager = cacheManager;
+        this.cacheInvalidationBus = cacheInvalidationBus;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = applicationProperties.getSearchIndexing();
+        Gauge.builder("search.outbox.depth", queueDepth, AtomicLong::get).tag("index", "user").register(meterRegistry);
+        Gauge.builder("search.outbox.lag", lagMillis, AtomicLong::get).tag("index", "user").baseUnit("milliseconds").register(meterRegistry);
+        this.indexed = Counter.builder("search.outbox.indexed").tag("index", "user").register(meterRegistry);
+        this.failures = Counter.builder("search.outbox.failures").tag("index", "user").register(meterRegistry);
+    }
+
+    /**
+     * Records that the user has to be (re-)indexed, as part of the current transaction.
+     *
+     * @param user the created or updated user.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(User user) {
+        userSearchOutboxRepository.save(new UserSearchOutboxEntry(user.getId()));
+    }
+
+    /**
+     * Records that the users have to be (re-)indexed, as part of the current transaction.
+     *
+     * @param userIds the ids of the created, updated or deleted users.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueAll(Collection<String> userIds) {
+        userSearchOutboxRepository.saveAll(userIds.stream().map(UserSearchOutboxEntry::new).collect(Collectors.toList()));
+    }
+
+    /**
+     * Starts recording the ids of the users indexed from now on, so that a reindex can replay the changes it raced with.
+     * The other nodes pause their flush until {@link #stopRecording()}, and this method returns once the batches they
+     * were indexing have been committed.
+     */
+    public void startRecording() {
+        recordedUserIds = ConcurrentHashMap.newKeySet();
+        try {
+            transactionTemplate.executeWithoutResult(status -> lease(nodeId));
+        } catch (RuntimeException e) {
+            recordedUserIds = null;
+            throw e;
+        }
+    }
+
+    /**
+     * Stops recording the indexed users.
+     *
+     * @return the ids of the users indexed since {@link #startRecording()}.
+     */
+    public Set<String> stopRecording() {
+        Set<String> userIds = recordedUserIds;
+        recordedUserIds = null;
+        try {
+            transactionTemplate.executeWithoutResult(status -> lease(null));
+        } catch (RuntimeException e) {
+            log.warn("Could not release the lease of the user index, it lapses in {} ms: {}", LEASE_MILLIS, e.getMessage());
+        }
+        return userIds != null ? userIds : Set.of();
+    }
+
+    /**
+     * Takes, renews or, with a {@code null} owner, releases the lease of the index, unless another node holds it.
+     */
+    private void lease(String owner) {
+        SearchReindexLock reindexLock = searchReindexLockRepository
+            .findForUpdateByIndexName(INDEX_NAME)
+            .orElseGet(() -> new SearchReindexLock(INDEX_NAME));
+        Instant now = Instant.now();
+        if (reindexLock.isHeldByAnotherNode(nodeId, now)) {
+            if (owner != null) {
+                throw new IllegalStateException("Node " + reindexLock.getNodeId() + " is already rebuilding the index");
+            }
+            return;
+        }
+        reindexLock.setNodeId(owner);
+        reindexLock.setLockedUntil(owner != null ? now.plusMillis(LEASE_MILLIS) : null);
+        searchReindexLockRepository.save(reindexLock);
+    }
+
+    /**
+     * Indexes the pending users, one batch per transaction, until the outbox is drained, indexing fails or
+     * {@code application.search-indexing.max-batches-per-flush} batches have been indexed, leaving the rest to the next
+     * run so that a large backlog does not hold a scheduler thread.
+     */
+    @Scheduled(fixedDelayString = "${application.search-indexing.flush-interval-ms:1000}")
+    public void flush() {
+        if (recordedUserIds != null) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> lease(nodeId));
+            } catch (RuntimeException e) {
+                log.warn("Could not renew the lease of the user index: {}", e.getMessage());
+            }
+        }
+        if (Instant.now().isBefore(nextAttempt)) {
+            return;
+        }
+        int total = 0;
+        try {
+            Integer flushed;
+            int batches = 0;
+            do {
+                flushed = transactionTemplate.execute(status -> flushBatch());
+                total += flushed != null ? flushed : 0;
+                batches++;
+            } while (flushed != null && flushed == properties.getBatchSize() && batches < properties.getMaxBatchesPerFlush());
+            consecutiveFailures = 0;
+        } catch (RuntimeException e) {
+            failures.increment();
+            consecutiveFailures++;
+            Duration backoff = backoff(consecutiveFailures);
+            nextAttempt = Instant.now().plus(backoff);
+            log.warn("Could not index users, retrying in {}: {}", backoff, e.getMessage());
+        } finally {
+            if (total > 0) {
+                clearSuggestionsCache();
+            }
+            updateGauges();
+        }
+    }
+
+    private int flushBatch() {
+        // the shared lock makes a reindex starting meanwhile wait for this batch to commit
+        if (
+            searchReindexLockRepository
+                .findForShareByIndexName(INDEX_NAME)
+                .filter(reindexLock -> reindexLock.isHeldByAnotherNode(nodeId, Instant.now()))
+                .isPresent()
+        ) {
+            log.debug("Not indexing users while another node rebuilds the index");
+            return 0;
+        }
+        List<UserSearchOutboxEntry> entries = userSearchOutboxRepository.findForIndexingByOrderByIdAsc(
+            PageRequest.of(0, properties.getBatchSize())
+        );
+        if (entries.isEmpty()) {
+            return 0;
+        }
+        Set<String> userIds = entries.stream().map(UserSearchOutboxEntry::getUserId).collect(Collectors.toSet());
+        Set<String> recording = recordedUserIds;
+        if (recording != null) {
+            recording.addAll(userIds);
+        }
+        List<User> users = userRepository.findAllById(userIds);
+        if (!users.isEmpty()) {
+            userSearchRepository.saveAll(users);
+        }
+        Map<Boolean, List<User>> usersByActivation = users.stream().collect(Collectors.partitioningBy(User::isActivated));
+        if (!usersByActivation.get(true).isEmpty()) {
+            userSuggestionSearchRepository.saveAll(
+                usersByActivation.get(true).stream().map(UserSuggestion::new).collect(Collectors.toList())
+            );
+        }
+        users.forEach(user -> userIds.remove(user.getId()));
+        if (!userIds.isEmpty()) {
+            userSearchRepository.deleteAllById(userIds);
+        }
+        usersByActivation.get(false).forEach(user -> userIds.add(user.getId()));
+        if (!userIds.isEmpty()) {
+            userSuggestionSearchRepository.deleteAllById(userIds);
+        }
+        userSearchOutboxRepository.deleteAllInBatch(entries);
+        indexed.increment(users.size());
+        log.debug("Indexed {} users from {} outbox entries", users.size(), entries.size());
+        return entries.size();
+    }
+
+    private void clearSuggestionsCache() {
+        Cache cache = cacheManager.getCache(UserSuggestionService.USER_SUGGESTIONS_CACHE);
+        if (cache != null) {
+            cache.clear();
+        }
+        // the other nodes cache suggestions too, which the users indexed here make stale
+        cacheInvalidationBus.publishClear(UserSuggestionService.USER_SUGGESTIONS_CACHE);
+    }
+
+    private Duration backoff(int failures) {
+        long backoff = properties.getInitialBackoffMs() << Math.min(failures - 1, 20);
+        return Duration.ofMillis(Math.min(backoff, properties.getMaxBackoffMs()));
+    }
+
+    private void updateGauges() {
+        try {
+            queueDepth.set(userSearchOutboxRepository.count());
+            lagMillis.set(
+                userSearchOutboxRepository
+                    .findFirstByOrderByIdAsc()
+                    .map(oldest -> Duration.between(oldest.getCreatedDate(), Instant.now()).toMillis())
+                    .orElse(0L)
+            );
+        } catch (RuntimeException e) {
+            log.debug("Could not read the search outbox state: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package org.codingspiderfox.service;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import org.codingspiderfox.config.ApplicationProperties;
+import org.codingspiderfox.domain.User;
+import org.codingspiderfox.domain.UserSuggestion;
+import org.codingspiderfox.repository.UserRepository;
+import org.codingspiderfox.service.dto.ReindexStatusDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.IndexOperations;
+import org.springframework.data.elasticsearch.core.index.AliasAction;
+import org.springframework.data.elasticsearch.core.index.AliasActionParameters;
+import org.springframework.data.elasticsearch.core.index.AliasActions;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Service rebuilding the {@link User} and {@link UserSuggestion} search indices without downtime.
+ * <p>
+ * Users are streamed from the database in id-ordered chunks, one read-only transaction per chunk, and bulk-loaded
+ * into a new versioned index, the activated ones also into a new versioned suggestion index. The {@code user} and
+ * {@code user-suggestion} aliases are then atomically moved to them, and the users indexed by
+ * {@link UserSearchIndexingService} in the meantime are re-enqueued so that no concurrent change is lost. The other
+ * nodes pause their flush during the rebuild, leaving the changes they would have indexed to this node, and a rebuild
+ * fails while another node runs one.
+ */
+@Service
+public class UserSearchReindexService {
+
+    public static final String ALIAS = "user";
+
+    public static final String SUGGESTION_ALIAS = "user-suggestion";
+
+    private static final DateTimeFormatter VERSION_FORMAT = DateTimeFormatter.ofPattern("yyyyMMddHHmmss").withZone(ZoneOffset.UTC);
+
+    private final Logger log = LoggerFactory.getLogger(UserSearchReindexService.class);
+
+    private final UserRepository userRepository;
+
+    private final UserSearchIndexingService userSearchIndexingService;
+
+    private final ElasticsearchOperations elasticsearchOperations;
+
+    private final TransactionTemplate readOnlyTransactionTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Executor taskExecutor;
+
+    private final Clock clock;
+
+    private final int chunkSize;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private final AtomicLong indexed = new AtomicLong();
+
+    private volatile ReindexStatusDTO.State state = ReindexStatusDTO.State.IDLE;
+
+    private volatile String index;
+
+    private volatile String suggestionIndex;
+
+    private volatile long total;
+
+    private volatile Instant startedAt;
+
+    private volatile Instant finishedAt;
+
+    private volatile String error;
+
+    @Autowired
+    public UserSearchReindexService(
+        UserRepository userRepository,
+        UserSearchIndexingService userSearchIndexingService,
+        ElasticsearchOperations elasticsearchOperations,
+        PlatformTransactionManager transactionManager,
+        @Qualifier("taskExecutor") Executor taskExecutor,
+        ApplicationProperties applicationProperties
+    ) {
+        this(
+            userRepository,
+            userSearchIndexingService,
+            elasticsearchOperations,
+            transactionManager,
+            taskExecutor,
+            Clock.systemUTC(),
+            applicationProperties.getSearchIndexing().getReindexChunkSize()
+        );
+    }
+
+    UserSearchReindexService(
+        UserRepository userRepository,
+        UserSearchIndexingService userSearchIndexingService,
+        ElasticsearchOperations elasticsearchOperations,
+        PlatformTransactionManager transactionManager,
+        Executor taskExecutor,
+        Clock clock,
+        int chunkSize
+    ) {
+        this.userRepository = userRepository;
+        this.userSearchIndexingService = userSearchIndexingService;
+        this.elasticsearchOperations = elasticsearchOperations;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.taskExecutor = taskExecutor;
+        this.clock = clock;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Starts rebuilding the index in the background, unless a rebuild is already running.
+     *
+     * @return {@code true} if a rebuild was started.
+     */
+    public boolean start() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        Instant now = clock.instant();
+        index = ALIAS + "-" + VERSION_FORMAT.format(now);
+        suggestionIndex = SUGGESTION_ALIAS + "-" + VERSION_FORMAT.format(now);
+        indexed.set(0);
+        total = userRepository.count();
+        startedAt = now;
+        finishedAt = null;
+        error = null;
+        state = ReindexStatusDTO.State.RUNNING;
+        try {
+            taskExecutor.execute(this::reindex);
+        } catch (RuntimeException e) {
+            fail(e);
+            throw e;
+        }
+        return true;
+    }
+
+    /**
+     * @return the progress of the current or last rebuild.
+     */
+    public ReindexStatusDTO getStatus() {
+        return new ReindexStatusDTO(state, index, indexed.get(), total, startedAt, finishedAt, error);
+    }
+
+    private void reindex() {
+        String newIndex = index;
+        String newSuggestionIndex = suggestionIndex;
+        log.info("Rebuilding the user search indices into {} and {}", newIndex, newSuggestionIndex);
+        IndexCoordinates coordinates = IndexCoordinates.of(newIndex);
+        IndexCoordinates suggestionCoordinates = IndexCoordinates.of(newSuggestionIndex);
+        IndexOperations indexOperations = elasticsearchOperations.indexOps(coordinates);
+        IndexOperations suggestionIndexOperations = elasticsearchOperations.indexOps(suggestionCoordinates);
+        boolean swapped = false;
+        try {
+            userSearchIndexingService.startRecording();
+            indexOperations.create();
+            indexOperations.putMapping(indexOperations.createMapping(User.class));
+            suggestionIndexOperations.create(suggestionIndexOperations.createSettings(UserSuggestion.class));
+            suggestionIndexOperations.putMapping(suggestionIndexOperations.createMapping(UserSuggestion.class));
+            String lastId = "";
+            List<User> chunk;
+            do {
+                String after = lastId;
+                chunk = readOnlyTransactionTemplate.execute(status -> loadChunk(after, coordinates, suggestionCoordinates));
+                if (!chunk.isEmpty()) {
+                    lastId = chunk.get(chunk.size() - 1).getId();
+                }
+            } while (chunk.size() == chunkSize);
+            indexOperations.refresh();
+            suggestionIndexOperations.refresh();
+            Set<String> previousIndices = swapAliases(newIndex, newSuggestionIndex);
+            swapped = true;
+            Set<String> changedUserIds = userSearchIndexingService.stopRecording();
+            if (!changedUserIds.isEmpty()) {
+                transactionTemplate.executeWithoutResult(status -> userSearchIndexingService.enqueueAll(changedUserIds));
+            }
+            previousIndices.forEach(previousIndex -> elasticsearchOperations.indexOps(IndexCoordinates.of(previousIndex)).delete());
+            finishedAt = clock.instant();
+            state = ReindexStatusDTO.State.COMPLETED;
+            log.info("Rebuilt the user search indices into {} and {} with {} users", newIndex, newSuggestionIndex, indexed.get());
+        } catch (RuntimeException e) {
+            userSearchIndexingService.stopRecording();
+            log.error("Could not rebuild the user search indices into {} and {}", newIndex, newSuggestionIndex, e);
+            if (!swapped) {
+                deleteQuietly(indexOperations);
+                deleteQuietly(suggestionIndexOperations);
+            }
+            fail(e);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private List<User> loadChunk(String after, IndexCoordinates coordinates, IndexCoordinates suggestionCoordinates) {
+        List<User> users = userRepository.findAllByIdGreaterThanOrderByIdAsc(after, PageRequest.of(0, chunkSize));
+        if (!users.isEmpty()) {
+            elasticsearchOperations.save(users, coordinates);
+            List<UserSuggestion> suggestions = users
+                .stream()
+                .filter(User::isActivated)
+                .map(UserSuggestion::new)
+                .collect(Collectors.toList());
+            if (!suggestions.isEmpty()) {
+                elasticsearchOperations.save(suggestions, suggestionCoordinates);
+            }
+            indexed.addAndGet(users.size());
+        }
+        return users;
+    }
+
+    /**
+     * Points both aliases to their new index in a single request, dropping the legacy concrete indices named like the
+     * aliases.
+     *
+     * @return the previous indices the aliases pointed to, to be deleted.
+     */
+    private Set<String> swapAliases(String newIndex, String newSuggestionIndex) {
+        AliasActions aliasActions = new AliasActions();
+        Set<String> previousIndices = new HashSet<>();
+        previousIndices.addAll(addSwapActions(aliasActions, ALIAS, newIndex));
+        previousIndices.addAll(addSwapActions(aliasActions, SUGGESTION_ALIAS, newSuggestionIndex));
+        elasticsearchOperations.indexOps(IndexCoordinates.of(ALIAS)).alias(aliasActions);
+        return previousIndices;
+    }
+
+    private Set<String> addSwapActions(AliasActions aliasActions, String alias, String newIndex) {
+        IndexOperations aliasOperations = elasticsearchOperations.indexOps(IndexCoordinates.of(alias));
+        Set<String> previousIndices = aliasOperations.getAliases(alias).keySet();
+        aliasActions.add(new AliasAction.Add(AliasActionParameters.builder().withIndices(newIndex).withAliases(alias).build()));
+        if (!previousIndices.isEmpty()) {
+            aliasActions.add(
+                new AliasAction.Remove(
+                    AliasActionParameters.builder().withIndices(previousIndices.toArray(String[]::new)).withAliases(alias).build()
+                )
+            );
+        } else if (aliasOperations.exists()) {
+            aliasActions.add(new AliasAction.RemoveIndex(AliasActionParameters.builder().withIndices(alias).build()));
+        }
+        return previousIndices;
+    }
+
+    private void deleteQuietly(IndexOperations indexOperations) {
+        try {
+            indexOperations.delete();
+        } catch (RuntimeException e) {
+            log.warn("Could not delete the abandoned index {}: {}", indexOperations.getIndexCoordinates(), e.getMessage());
+        }
+    }
+
+    private void fail(RuntimeException e) {
+        error = e.getMessage();
+        finishedAt = clock.instant();
+        state = ReindexStatusDTO.State.FAILED;
+        running.set(false);
+    }
+}
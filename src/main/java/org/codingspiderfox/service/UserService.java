@@ -1,28 +1,45 @@
 package org.codingspiderfox.service;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.codingspiderfox.config.Constants;
 import org.codingspiderfox.domain.Authority;
 import org.codingspiderfox.domain.User;
-import org.codingspiderfox.repository.AuthorityRepository;
 import org.codingspiderfox.repository.UserRepository;
-import org.codingspiderfox.repository.search.UserSearchRepository;
 import org.codingspiderfox.security.SecurityUtils;
 import org.codingspiderfox.service.dto.AdminUserDTO;
+import org.codingspiderfox.service.dto.KeysetPage;
 import org.codingspiderfox.service.dto.UserDTO;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.authentication.AbstractAuthenticationToken;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * Service class for managing users.
@@ -31,26 +48,40 @@ import org.springframework.transaction.annotation.Transactional;
 @Transactional
 public class UserService {
 
+    public static final String USER_SYNC_FINGERPRINTS_CACHE = "userSyncFingerprints";
+
+    private static final long SYNC_COALESCING_TIMEOUT_SECONDS = 5;
+
     private final Logger log = LoggerFactory.getLogger(UserService.class);
 
     private final UserRepository userRepository;
 
-    private final UserSearchRepository userSearchRepository;
+    private final UserSearchIndexingService userSearchIndexingService;
 
-    private final AuthorityRepository authorityRepository;
+    private final AuthorityRegistry authorityRegistry;
 
     private final CacheManager cacheManager;
 
+    private final CacheInvalidationBus cacheInvalidationBus;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ConcurrentMap<String, CompletableFuture<Void>> syncsInFlight = new ConcurrentHashMap<>();
+
     public UserService(
         UserRepository userRepository,
-        UserSearchRepository userSearchRepository,
-        AuthorityRepository authorityRepository,
-        CacheManager cacheManager
+        UserSearchIndexingService userSearchIndexingService,
+        AuthorityRegistry authorityRegistry,
+        CacheManager cacheManager,
+        CacheInvalidationBus cacheInvalidationBus,
+        PlatformTransactionManager transactionManager
     ) {
         this.userRepository = userRepository;
-        this.userSearchRepository = userSearchRepository;
-        this.authorityRepository = authorityRepository;
+        this.userSearchIndexingService = userSearchIndexingService;
+        this.authorityRegistry = authorityRegistry;
         this.cacheManager = cacheManager;
+        this.cacheInvalidationBus = cacheInvalidationBus;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     /**
@@ -74,7 +105,7 @@ public class UserService {
                 }
                 user.setLangKey(langKey);
                 user.setImageUrl(imageUrl);
-                userSearchRepository.save(user);
+                userSearchIndexingService.enqueue(user);
                 this.clearUserCaches(user);
                 log.debug("Changed Information for User: {}", user);
             });
@@ -82,12 +113,108 @@ public class UserService {
 
     @Transactional(readOnly = true)
     public Page<AdminUserDTO> getAllManagedUsers(Pageable pageable) {
-        return userRepository.findAll(pageable).map(AdminUserDTO::new);
+        Page<User> users = userRepository.findAll(pageable);
+        Map<String, Set<String>> authorities = findAuthorityNames(users.getContent());
+        return users.map(user -> new AdminUserDTO(user, authorities.getOrDefault(user.getId(), Collections.emptySet())));
     }
 
     @Transactional(readOnly = true)
     public Page<UserDTO> getAllPublicUsers(Pageable pageable) {
-        return userRepository.findAllByIdNotNullAndActivatedIsTrue(pageable).map(UserDTO::new);
+        return userRepository.findAllPublicUsers(pageable);
+    }
+
+    /**
+     * Lists the users after a cursor, seeking through the index of a unique column instead of skipping rows.
+     *
+     * @param cursor the cursor returned with the previous page, or {@code null} for the first page.
+     * @param sort the order of the listing, on {@code id} or {@code login}; ignored when a cursor is given.
+     * @param size the size of the page.
+     * @return the page of users, with the cursor to the next page.
+     * @throws IllegalArgumentException if the cursor is malformed or the order is not supported.
+     */
+    @Transactional(readOnly = true)
+    public KeysetPage<AdminUserDTO> getAllManagedUsers(String cursor, Sort sort, int size) {
+        KeysetCursor position = toPosition(cursor, sort);
+        List<User> users = userRepository.findAllAfter(position.getOrder(), position.getAfter(), false, size + 1);
+        KeysetPage<User> page = toPage(users, position, size, User::getId, User::getLogin);
+        Map<String, Set<String>> authorities = findAuthorityNames(page.getContent());
+        return page.map(user -> new AdminUserDTO(user, authorities.getOrDefault(user.getId(), Collections.emptySet())));
+    }
+
+    /**
+     * Lists the activated users after a cursor, see {@link #getAllManagedUsers(String, Sort, int)}.
+     *
+     * @param cursor the cursor returned with the previous page, or {@code null} for the first page.
+     * @param sort the order of the listing, on {@code id} or {@code login}; ignored when a cursor is given.
+     * @param size the size of the page.
+     * @return the page of users, with the cursor to the next page.
+     * @throws IllegalArgumentException if the cursor is malformed or the order is not supported.
+     */
+    @Transactional(readOnly = true)
+    public KeysetPage<UserDTO> getAllPublicUsers(String cursor, Sort sort, int size) {
+        KeysetCursor position = toPosition(cursor, sort);
+        List<UserDTO> users = userRepository.findAllPublicUsersAfter(position.getOrder(), position.getAfter(), size + 1);
+        return toPage(users, position, size, UserDTO::getId, UserDTO::getLogin);
+    }
+
+    /**
+     * Counts the users.
+     *
+     * @param activatedOnly whether only the activated users are counted; ignored by estimates.
+     * @param estimate whether an estimate from the database statistics is enough.
+     * @return the number of users.
+     */
+    @Transactional(readOnly = true)
+    public long countUsers(boolean activatedOnly, boolean estimate) {
+        if (estimate) {
+            return userRepository.estimateCount();
+        }
+        return activatedOnly ? userRepository.countByActivatedIsTrue() : userRepository.count();
+    }
+
+    /**
+     * Fetches the authority names of a page of users with a single query, instead of initializing their lazy
+     * collections one by one.
+     */
+    private Map<String, Set<String>> findAuthorityNames(List<User> users) {
+        if (users.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Set<String> userIds = users.stream().map(User::getId).collect(Collectors.toSet());
+        return userRepository
+            .findAllUserAuthorities(userIds)
+            .stream()
+            .collect(
+                Collectors.groupingBy(
+                    UserRepository.UserAuthority::getUserId,
+                    Collectors.mapping(UserRepository.UserAuthority::getAuthorityName, Collectors.toSet())
+                )
+            );
+    }
+
+    private static KeysetCursor toPosition(String cursor, Sort sort) {
+        return cursor == null || cursor.isEmpty()
+            ? new KeysetCursor(sort.stream().findFirst().orElse(Sort.Order.asc("id")), null)
+            : KeysetCursor.decode(cursor);
+    }
+
+    /**
+     * @param users the users following the cursor, fetched with one extra row telling whether there is a next page.
+     */
+    private static <T> KeysetPage<T> toPage(
+        List<T> users,
+        KeysetCursor position,
+        int size,
+        Function<T, String> id,
+        Function<T, String> login
+    ) {
+        if (users.size() <= size) {
+            return new KeysetPage<>(users, null);
+        }
+        List<T> content = users.subList(0, size);
+        T last = content.get(size - 1);
+        String lastKey = "login".equals(position.getOrder().getProperty()) ? login.apply(last) : id.apply(last);
+        return new KeysetPage<>(content, new KeysetCursor(position.getOrder(), lastKey).encode());
     }
 
     @Transactional(readOnly = true)
@@ -95,32 +222,122 @@ public class UserService {
         return userRepository.findOneWithAuthoritiesByLogin(login);
     }
 
+    /**
+     * Resolves activated users by login in one round trip.
+     * <p>
+     * The users already in the {@link UserRepository#USERS_BY_LOGIN_CACHE} cache are served from it, the others are
+     * fetched with a single {@code IN} query and added to the cache.
+     *
+     * @param logins the logins of the users.
+     * @return the activated users found, in the order of their logins.
+     */
+    @Transactional(readOnly = true)
+    public List<UserDTO> getUsersByLogins(Collection<String> logins) {
+        Cache cache = Objects.requireNonNull(cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE));
+        Map<String, User> usersByLogin = new HashMap<>();
+        Set<String> misses = new HashSet<>();
+        for (String login : logins) {
+            User user = cache.get(login, User.class);
+            if (user != null) {
+                if (user.isActivated()) {
+                    usersByLogin.put(login, user);
+                }
+            } else {
+                misses.add(login);
+            }
+        }
+        if (!misses.isEmpty()) {
+            for (User user : userRepository.findAllWithAuthoritiesByActivatedIsTrueAndLoginIn(misses)) {
+                cache.put(user.getLogin(), user);
+                usersByLogin.put(user.getLogin(), user);
+            }
+        }
+        return logins
+            .stream()
+            .distinct()
+            .map(usersByLogin::get)
+            .filter(Objects::nonNull)
+            .map(UserDTO::new)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Resolves activated users by id with a single {@code IN} query, adding them to the
+     * {@link UserRepository#USERS_BY_LOGIN_CACHE} cache.
+     *
+     * @param ids the ids of the users.
+     * @return the activated users found, in the order of their ids.
+     */
+    @Transactional(readOnly = true)
+    public List<UserDTO> getUsersByIds(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Cache cache = Objects.requireNonNull(cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE));
+        Map<String, User> usersById = new HashMap<>();
+        for (User user : userRepository.findAllWithAuthoritiesByActivatedIsTrueAndIdIn(new HashSet<>(ids))) {
+            cache.put(user.getLogin(), user);
+            usersById.put(user.getId(), user);
+        }
+        return ids
+            .stream()
+            .distinct()
+            .map(usersById::get)
+            .filter(Objects::nonNull)
+            .map(UserDTO::new)
+            .collect(Collectors.toList());
+    }
+
     /**
      * Gets a list of all the authorities.
      * @return a list of all the authorities.
      */
     @Transactional(readOnly = true)
     public List<String> getAuthorities() {
-        return authorityRepository.findAll().stream().map(Authority::getName).collect(Collectors.toList());
+        return authorityRegistry.getNames();
     }
 
     private User syncUserWithIdP(Map<String, Object> details, User user) {
-        // save authorities in to sync user roles/groups between IdP and JHipster's local database
-        Collection<String> dbAuthorities = getAuthorities();
-        Collection<String> userAuthorities = user.getAuthorities().stream().map(Authority::getName).collect(Collectors.toList());
-        for (String authority : userAuthorities) {
-            if (!dbAuthorities.contains(authority)) {
-                log.debug("Saving authority '{}' in local database", authority);
-                Authority authorityToSave = new Authority();
-                authorityToSave.setName(authority);
-                authorityRepository.save(authorityToSave);
+        // skip the database entirely when the IdP claims did not change since the last committed sync
+        String fingerprint = fingerprint(user);
+        if (isSynced(user.getLogin(), fingerprint)) {
+            return user;
+        }
+        // coalesce concurrent syncs for the same login: followers wait for the leader and re-check the fingerprint,
+        // before opening a transaction so that they hold no database connection meanwhile
+        CompletableFuture<Void> sync = new CompletableFuture<>();
+        CompletableFuture<Void> inFlight = syncsInFlight.putIfAbsent(user.getLogin(), sync);
+        if (inFlight != null) {
+            awaitSync(user.getLogin(), inFlight);
+            if (isSynced(user.getLogin(), fingerprint)) {
+                return user;
+            }
+            sync = null;
+        }
+        try {
+            return transactionTemplate.execute(status -> saveSyncedUser(details, user, fingerprint));
+        } finally {
+            // the transaction has committed, and the fingerprint been recorded, unless an outer transaction is still open
+            if (sync != null) {
+                syncsInFlight.remove(user.getLogin(), sync);
+                sync.complete(null);
             }
         }
+    }
+
+    private User saveSyncedUser(Map<String, Object> details, User user, String fingerprint) {
+        recordFingerprintAfterCommit(user.getLogin(), fingerprint);
+
+        // save authorities in to sync user roles/groups between IdP and JHipster's local database
+        authorityRegistry.registerAll(user.getAuthorities().stream().map(Authority::getName).collect(Collectors.toList()));
         // save account in to sync users between IdP and JHipster's local database
         Optional<User> existingUser = userRepository.findOneByLogin(user.getLogin());
         if (existingUser.isPresent()) {
-            // if IdP sends last updated information, use it to determine if an update should happen
-            if (details.get("updated_at") != null) {
+            // nothing to write when the profile is unchanged
+            if (hasSameProfile(existingUser.get(), user)) {
+                log.debug("User '{}' is already up to date in local database", user.getLogin());
+            } else if (details.get("updated_at") != null) {
+                // if IdP sends last updated information, use it to determine if an update should happen
                 Instant dbModifiedDate = existingUser.get().getLastModifiedDate();
                 Instant idpModifiedDate = (Instant) details.get("updated_at");
                 if (idpModifiedDate.isAfter(dbModifiedDate)) {
@@ -135,19 +352,83 @@ public class UserService {
         } else {
             log.debug("Saving user '{}' in local database", user.getLogin());
             userRepository.save(user);
+            userSearchIndexingService.enqueue(user);
             this.clearUserCaches(user);
         }
         return user;
     }
 
+    private boolean isSynced(String login, String fingerprint) {
+        return fingerprint.equals(Objects.requireNonNull(cacheManager.getCache(USER_SYNC_FINGERPRINTS_CACHE)).get(login, String.class));
+    }
+
+    private void awaitSync(String login, CompletableFuture<Void> inFlight) {
+        try {
+            inFlight.get(SYNC_COALESCING_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            log.debug("Concurrent sync of user '{}' did not complete, syncing again", login);
+        }
+    }
+
+    /**
+     * Records the fingerprint once the surrounding transaction has committed, so that followers
+     * only skip the sync when the leader's writes are visible to them.
+     */
+    private void recordFingerprintAfterCommit(String login, String fingerprint) {
+        TransactionSynchronizationManager.registerSynchronization(
+            new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    Objects.requireNonNull(cacheManager.getCache(USER_SYNC_FINGERPRINTS_CACHE)).put(login, fingerprint);
+                }
+            }
+        );
+    }
+
+    private static boolean hasSameProfile(User existingUser, User user) {
+        return (
+            Objects.equals(existingUser.getFirstName(), user.getFirstName()) &&
+            Objects.equals(existingUser.getLastName(), user.getLastName()) &&
+            Objects.equals(existingUser.getEmail(), user.getEmail()) &&
+            Objects.equals(existingUser.getLangKey(), user.getLangKey()) &&
+            Objects.equals(existingUser.getImageUrl(), user.getImageUrl())
+        );
+    }
+
+    /**
+     * Hashes the IdP claims that are synchronized into the local database: name, email, locale, picture and roles.
+     */
+    private static String fingerprint(User user) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        Stream
+            .concat(
+                Stream.of(user.getFirstName(), user.getLastName(), user.getEmail(), user.getLangKey(), user.getImageUrl()),
+                user.getAuthorities().stream().map(Authority::getName).sorted()
+            )
+            .forEach(value -> {
+                if (value != null) {
+                    digest.update(value.getBytes(StandardCharsets.UTF_8));
+                }
+                digest.update(value != null ? (byte) 0 : (byte) 1);
+            });
+        return Base64.getEncoder().encodeToString(digest.digest());
+    }
+
     /**
      * Returns the user from an OAuth 2.0 login or resource server with JWT.
-     * Synchronizes the user in the local repository.
+     * Synchronizes the user in the local repository, in a transaction of its own unless one is already open.
      *
      * @param authToken the authentication token.
      * @return the user from the authentication.
      */
-    @Transactional
+    @Transactional(propagation = Propagation.SUPPORTS)
     public AdminUserDTO getUserFromAuthentication(AbstractAuthenticationToken authToken) {
         Map<String, Object> attributes;
         if (authToken instanceof OAuth2AuthenticationToken) {
@@ -174,7 +455,7 @@ public class UserService {
         return new AdminUserDTO(syncUserWithIdP(attributes, user));
     }
 
-    private static User getUser(Map<String, Object> details) {
+    static User getUser(Map<String, Object> details) {
         User user = new User();
         Boolean activated = Boolean.TRUE;
         // handle resource server JWT, where sub claim is email and uid is ID
@@ -229,8 +510,13 @@ public class UserService {
 
     private void clearUserCaches(User user) {
         Objects.requireNonNull(cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE)).evict(user.getLogin());
+        cacheInvalidationBus.publishEviction(UserRepository.USERS_BY_LOGIN_CACHE, user.getLogin());
         if (user.getEmail() != null) {
             Objects.requireNonNull(cacheManager.getCache(UserRepository.USERS_BY_EMAIL_CACHE)).evict(user.getEmail());
+            cacheInvalidationBus.publishEviction(UserRepository.USERS_BY_EMAIL_CACHE, user.getEmail());
         }
+        Objects.requireNonNull(cacheManager.getCache(USER_SYNC_FINGERPRINTS_CACHE)).evict(user.getLogin());
+        cacheInvalidationBus.publishEntityEviction(User.class, user.getId());
+        cacheInvalidationBus.publishCollectionEviction(User.class.getName() + ".authorities", user.getId());
     }
 }
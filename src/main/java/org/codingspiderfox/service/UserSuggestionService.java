@@ -0,0 +1,72 @@
+package org.codingspiderfox.service;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+import org.codingspiderfox.domain.UserSuggestion;
+import org.codingspiderfox.repository.search.UserSuggestionSearchRepository;
+import org.codingspiderfox.service.dto.UserDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service suggesting users while their name is being typed.
+ * <p>
+ * Results are cached per normalized prefix; the cache is cleared by {@link UserSearchIndexingService} whenever
+ * the suggestion index changes.
+ */
+@Service
+public class UserSuggestionService {
+
+    public static final String USER_SUGGESTIONS_CACHE = "userSuggestions";
+
+    public static final int MAX_SUGGESTIONS = 20;
+
+    private final Logger log = LoggerFactory.getLogger(UserSuggestionService.class);
+
+    private final UserSuggestionSearchRepository userSuggestionSearchRepository;
+
+    public UserSuggestionService(UserSuggestionSearchRepository userSuggestionSearchRepository) {
+        this.userSuggestionSearchRepository = userSuggestionSearchRepository;
+    }
+
+    /**
+     * Normalizes a typed prefix, so that equivalent keystrokes share the same cache entry.
+     *
+     * @param prefix the text typed so far.
+     * @return the trimmed, lower-case prefix with collapsed whitespace.
+     */
+    public static String normalize(String prefix) {
+        return prefix == null ? "" : prefix.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Suggests the users matching a normalized prefix.
+     *
+     * @param prefix the normalized prefix, see {@link #normalize(String)}.
+     * @param size the maximum number of suggestions, capped to {@link #MAX_SUGGESTIONS}.
+     * @return the best matching users.
+     */
+    @Cacheable(cacheNames = USER_SUGGESTIONS_CACHE, key = "#prefix + ':' + #size")
+    public List<UserDTO> suggest(String prefix, int size) {
+        if (prefix.isEmpty() || size < 1) {
+            return Collections.emptyList();
+        }
+        log.debug("Suggesting users for prefix {}", prefix);
+        return userSuggestionSearchRepository
+            .suggest(prefix, Math.min(size, MAX_SUGGESTIONS))
+            .stream()
+            .map(UserSuggestionService::toUserDTO)
+            .collect(Collectors.toList());
+    }
+
+    private static UserDTO toUserDTO(UserSuggestion suggestion) {
+        UserDTO userDTO = new UserDTO();
+        userDTO.setId(suggestion.getId());
+        userDTO.setLogin(suggestion.getLogin());
+        return userDTO;
+    }
+}
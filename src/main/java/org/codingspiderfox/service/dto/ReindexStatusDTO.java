@@ -0,0 +1,97 @@
+package org.codingspiderfox.service.dto;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * A DTO representing the progress of a search index rebuild.
+ */
+public class ReindexStatusDTO {
+
+    /**
+     * The lifecycle of a rebuild.
+     */
+    public enum State {
+        IDLE,
+        RUNNING,
+        COMPLETED,
+        FAILED,
+    }
+
+    private final State state;
+
+    private final String index;
+
+    private final long indexed;
+
+    private final long total;
+
+    private final Instant startedAt;
+
+    private final Instant finishedAt;
+
+    private final String error;
+
+    public ReindexStatusDTO(State state, String index, long indexed, long total, Instant startedAt, Instant finishedAt, String error) {
+        this.state = state;
+        this.index = index;
+        this.indexed = indexed;
+        this.total = total;
+        this.startedAt = startedAt;
+        this.finishedAt = finishedAt;
+        this.error = error;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public String getIndex() {
+        return index;
+    }
+
+    public long getIndexed() {
+        return indexed;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * @return the number of documents indexed per second since the rebuild started.
+     */
+    public double getDocumentsPerSecond() {
+        if (startedAt == null) {
+            return 0;
+        }
+        long elapsedMillis = Duration.between(startedAt, finishedAt != null ? finishedAt : Instant.now()).toMillis();
+        return elapsedMillis > 0 ? indexed * 1000.0 / elapsedMillis : 0;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "ReindexStatusDTO{" +
+            "state=" + state +
+            ", index='" + index + '\'' +
+            ", indexed=" + indexed +
+            ", total=" + total +
+            ", startedAt=" + startedAt +
+            ", finishedAt=" + finishedAt +
+            ", error='" + error + '\'' +
+            "}";
+    }
+}
@@ -0,0 +1,59 @@
+package org.codingspiderfox.service.dto;
+
+import java.util.List;
+
+/**
+ * A DTO representing the outcome of a bulk user import.
+ */
+public class UserImportResultDTO {
+
+    /**
+     * A row that could not be imported.
+     */
+    public static class RowError {
+
+        private final long row;
+
+        private final String login;
+
+        private final String message;
+
+        public RowError(long row, String login, String message) {
+            this.row = row;
+            this.login = login;
+            this.message = message;
+        }
+
+        /**
+         * @return the number of the row in the import, starting at 1 with the first user.
+         */
+        public long getRow() {
+            return row;
+        }
+
+        public String getLogin() {
+            return login;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+
+    private final long imported;
+
+    private final List<RowError> errors;
+
+    public UserImportResultDTO(long imported, List<RowError> errors) {
+        this.imported = imported;
+        this.errors = errors;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public List<RowError> getErrors() {
+        return errors;
+    }
+}
@@ -1,10 +1,21 @@
 package org.codingspiderfox.web.filter;
 
 import java.io.IOException;
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+import org.codingspiderfox.config.ApplicationProperties;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.oauth2.client.OAuth2AuthorizeRequest;
@@ -16,6 +27,7 @@ import org.springframework.security.oauth2.client.web.DefaultOAuth2Authorization
 import org.springframework.security.oauth2.client.web.OAuth2AuthorizationRequestRedirectFilter;
 import org.springframework.security.oauth2.client.web.OAuth2AuthorizationRequestResolver;
 import org.springframework.security.oauth2.client.web.OAuth2AuthorizedClientRepository;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
 import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest;
 import org.springframework.security.web.DefaultRedirectStrategy;
 import org.springframework.security.web.RedirectStrategy;
@@ -24,10 +36,23 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 /**
  * Refresh oauth2 tokens.
+ * <p>
+ * The access token expiry is remembered in the session, along with the principal and client registration it belongs
+ * to, and requests are let through without authorizing the client again while the token is valid beyond the configured
+ * skew. Concurrent requests of a session whose token needs refreshing share a single authorization, waiting for it at
+ * most {@value #AUTHORIZATION_WAIT_TIMEOUT_SECONDS} seconds before authorizing on their own.
  */
 @Component
 public class OAuth2RefreshTokensWebFilter extends OncePerRequestFilter {
 
+    static final String ACCESS_TOKEN_EXPIRES_AT = OAuth2RefreshTokensWebFilter.class.getName() + ".ACCESS_TOKEN_EXPIRES_AT";
+
+    static final long AUTHORIZATION_WAIT_TIMEOUT_SECONDS = 10;
+
+    private final ConcurrentMap<String, CompletableFuture<Void>> authorizationsInFlight = new ConcurrentHashMap<>();
+
+    private final long accessTokenSkewSeconds;
+
     private final OAuth2AuthorizedClientManager clientManager;
     private final OAuth2AuthorizedClientRepository authorizedClientRepository;
     private final OAuth2AuthorizationRequestResolver authorizationRequestResolver;
@@ -36,8 +61,10 @@ public class OAuth2RefreshTokensWebFilter extends OncePerRequestFilter {
     public OAuth2RefreshTokensWebFilter(
         OAuth2AuthorizedClientManager clientManager,
         OAuth2AuthorizedClientRepository authorizedClientRepository,
-        ClientRegistrationRepository clientRegistrationRepository
+        ClientRegistrationRepository clientRegistrationRepository,
+        ApplicationProperties applicationProperties
     ) {
+        this.accessTokenSkewSeconds = applicationProperties.getSecurity().getAccessTokenSkewSeconds();
         this.clientManager = clientManager;
         this.authorizedClientRepository = authorizedClientRepository;
         this.authorizationRequestResolver =
@@ -51,11 +78,17 @@ public class OAuth2RefreshTokensWebFilter extends OncePerRequestFilter {
     public void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
         throws IOException, ServletException {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if ((authentication instanceof OAuth2AuthenticationToken)) {
+        if (
+            (authentication instanceof OAuth2AuthenticationToken) &&
+            !isAccessTokenFresh(request.getSession(false), (OAuth2AuthenticationToken) authentication)
+        ) {
             try {
-                OAuth2AuthorizedClient authorizedClient = authorizedClient((OAuth2AuthenticationToken) authentication);
-                this.authorizedClientRepository.saveAuthorizedClient(authorizedClient, authentication, request, response);
+                authorize((OAuth2AuthenticationToken) authentication, request, response);
             } catch (Exception e) {
+                HttpSession session = request.getSession(false);
+                if (session != null) {
+                    session.removeAttribute(ACCESS_TOKEN_EXPIRES_AT);
+                }
                 OAuth2AuthorizationRequest authorizationRequest = this.authorizationRequestResolver.resolve(request);
                 if (authorizationRequest != null) {
                     this.authorizationRedirectStrategy.sendRedirect(request, response, authorizationRequest.getAuthorizationRequestUri());
@@ -67,6 +100,77 @@ public class OAuth2RefreshTokensWebFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    private void authorize(OAuth2AuthenticationToken authentication, HttpServletRequest request, HttpServletResponse response) {
+        HttpSession session = request.getSession(false);
+        if (session == null) {
+            authorizeAndSave(authentication, request, response);
+            return;
+        }
+        CompletableFuture<Void> authorization = new CompletableFuture<>();
+        CompletableFuture<Void> inFlight = authorizationsInFlight.putIfAbsent(session.getId(), authorization);
+        if (inFlight != null) {
+            try {
+                inFlight.get(AUTHORIZATION_WAIT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException | TimeoutException e) {
+                // the concurrent authorization failed or hangs, authorize again below
+            }
+            if (isAccessTokenFresh(session, authentication)) {
+                return;
+            }
+            authorizeAndSave(authentication, request, response);
+            return;
+        }
+        try {
+            authorizeAndSave(authentication, request, response);
+            authorization.complete(null);
+        } catch (RuntimeException e) {
+            authorization.completeExceptionally(e);
+            throw e;
+        } finally {
+            authorizationsInFlight.remove(session.getId(), authorization);
+        }
+    }
+
+    private void authorizeAndSave(OAuth2AuthenticationToken authentication, HttpServletRequest request, HttpServletResponse response) {
+        OAuth2AuthorizedClient authorizedClient = authorizedClient(authentication);
+        this.authorizedClientRepository.saveAuthorizedClient(authorizedClient, authentication, request, response);
+        HttpSession session = request.getSession(false);
+        if (session != null) {
+            OAuth2AccessToken accessToken = authorizedClient.getAccessToken();
+            if (accessToken.getExpiresAt() != null) {
+                session.setAttribute(
+                    ACCESS_TOKEN_EXPIRES_AT,
+                    new AccessTokenExpiry(
+                        authentication.getName(),
+                        authentication.getAuthorizedClientRegistrationId(),
+                        accessToken.getExpiresAt()
+                    )
+                );
+            } else {
+                session.removeAttribute(ACCESS_TOKEN_EXPIRES_AT);
+            }
+        }
+    }
+
+    private boolean isAccessTokenFresh(HttpSession session, OAuth2AuthenticationToken authentication) {
+        if (session == null) {
+            return false;
+        }
+        Object attribute = session.getAttribute(ACCESS_TOKEN_EXPIRES_AT);
+        if (!(attribute instanceof AccessTokenExpiry)) {
+            return false;
+        }
+        AccessTokenExpiry expiry = (AccessTokenExpiry) attribute;
+        // an expiry left by a previous login or client does not describe the current authorized client
+        return (
+            Objects.equals(expiry.principalName, authentication.getName()) &&
+            Objects.equals(expiry.clientRegistrationId, authentication.getAuthorizedClientRegistrationId()) &&
+            Instant.now().plusSeconds(accessTokenSkewSeconds).isBefore(expiry.expiresAt)
+        );
+    }
+
     private OAuth2AuthorizedClient authorizedClient(OAuth2AuthenticationToken oauth2Authentication) {
         String clientRegistrationId = oauth2Authentication.getAuthorizedClientRegistrationId();
         OAuth2AuthorizeRequest request = OAuth2AuthorizeRequest
@@ -81,4 +185,21 @@ public class OAuth2RefreshTokensWebFilter extends OncePerRequestFilter {
         }
         return clientManager.authorize(request);
     }
+
+    private static class AccessTokenExpiry implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String principalName;
+
+        private final String clientRegistrationId;
+
+        private final Instant expiresAt;
+
+        AccessTokenExpiry(String principalName, String clientRegistrationId, Instant expiresAt) {
+            this.principalName = principalName;
+            this.clientRegistrationId = clientRegistrationId;
+            this.expiresAt = expiresAt;
+        }
+    }
 }
@@ -0,0 +1,41 @@
+package org.codingspiderfox.web.rest;
+
+import java.util.List;
+import org.codingspiderfox.security.AuthoritiesConstants;
+import org.codingspiderfox.web.websocket.PresenceRegistry;
+import org.codingspiderfox.web.websocket.dto.ActivityDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST controller exposing the users connected to the activity tracker.
+ */
+@RestController
+@RequestMapping("/api/admin")
+public class PresenceResource {
+
+    private final Logger log = LoggerFactory.getLogger(PresenceResource.class);
+
+    private final PresenceRegistry presenceRegistry;
+
+    public PresenceResource(PresenceRegistry presenceRegistry) {
+        this.presenceRegistry = presenceRegistry;
+    }
+
+    /**
+     * {@code GET /admin/presence} : get the open tracker sessions of this node - calling this are only allowed for the administrators.
+     *
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the latest activity of each session.
+     */
+    @GetMapping("/presence")
+    @PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
+    public ResponseEntity<List<ActivityDTO>> getPresence() {
+        log.debug("REST request to get the presence snapshot");
+        return ResponseEntity.ok(presenceRegistry.getSessions());
+    }
+}
@@ -4,10 +4,14 @@ import static org.elasticsearch.index.query.QueryBuilders.*;
 
 import java.util.*;
 import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
 import org.codingspiderfox.repository.search.UserSearchRepository;
+import org.codingspiderfox.service.AuthorityRegistry;
 import org.codingspiderfox.service.UserService;
+import org.codingspiderfox.service.UserSuggestionService;
+import org.codingspiderfox.service.dto.KeysetPage;
 import org.codingspiderfox.service.dto.UserDTO;
+import org.codingspiderfox.web.rest.errors.BadRequestAlertException;
+import org.codingspiderfox.web.rest.util.KeysetPaginationUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
@@ -16,6 +20,7 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import tech.jhipster.web.util.PaginationUtil;
 
@@ -23,48 +28,148 @@ import tech.jhipster.web.util.PaginationUtil;
 @RequestMapping("/api")
 public class PublicUserResource {
 
+    /**
+     * The maximum number of users resolved by a single batch request.
+     */
+    static final int MAX_BATCH_SIZE = 100;
+
     private final Logger log = LoggerFactory.getLogger(PublicUserResource.class);
 
     private final UserService userService;
     private final UserSearchRepository userSearchRepository;
+    private final UserSuggestionService userSuggestionService;
+    private final AuthorityRegistry authorityRegistry;
 
-    public PublicUserResource(UserSearchRepository userSearchRepository, UserService userService) {
+    public PublicUserResource(
+        UserSearchRepository userSearchRepository,
+        UserService userService,
+        UserSuggestionService userSuggestionService,
+        AuthorityRegistry authorityRegistry
+    ) {
         this.userService = userService;
         this.userSearchRepository = userSearchRepository;
+        this.userSuggestionService = userSuggestionService;
+        this.authorityRegistry = authorityRegistry;
     }
 
     /**
      * {@code GET /users} : get all users with only the public informations - calling this are allowed for anyone.
+     * <p>
+     * When a {@code cursor} parameter is given, even empty for the first page, the users are paginated by keyset on
+     * {@code id} or {@code login}, the next page being linked with {@code rel="next"}. The total count is then only
+     * returned when requested with {@code count=exact} or {@code count=estimate}.
      *
      * @param pageable the pagination information.
+     * @param cursor the cursor returned with the previous page, to paginate by keyset.
+     * @param count whether the total count should be {@code exact} or an {@code estimate}, when paginating by keyset.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body all users.
+     * @throws BadRequestAlertException {@code 400 (Bad Request)} if the cursor or the order is invalid.
      */
     @GetMapping("/users")
-    public ResponseEntity<List<UserDTO>> getAllPublicUsers(Pageable pageable) {
+    public ResponseEntity<List<UserDTO>> getAllPublicUsers(
+        Pageable pageable,
+        @RequestParam(required = false) String cursor,
+        @RequestParam(required = false) String count
+    ) {
         log.debug("REST request to get all public User names");
 
+        if (cursor != null) {
+            final KeysetPage<UserDTO> page;
+            try {
+                page = userService.getAllPublicUsers(cursor, pageable.getSort(), pageable.getPageSize());
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestAlertException(e.getMessage(), "userManagement", "invalidcursor");
+            }
+            HttpHeaders headers = KeysetPaginationUtil.generateKeysetPaginationHttpHeaders(
+                ServletUriComponentsBuilder.fromCurrentRequest(),
+                page
+            );
+            if (count != null) {
+                boolean estimate = "estimate".equals(count);
+                KeysetPaginationUtil.addTotalCount(headers, userService.countUsers(true, estimate), estimate);
+            }
+            return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
+        }
         final Page<UserDTO> page = userService.getAllPublicUsers(pageable);
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
         return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
     }
 
+    /**
+     * {@code GET /users/_batch?login=:login&id=:id} : get the activated users with the given logins and ids at once.
+     *
+     * @param logins the logins of the users.
+     * @param ids the ids of the users.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the users found, by login then by id.
+     * @throws BadRequestAlertException {@code 400 (Bad Request)} if more than {@link #MAX_BATCH_SIZE} users are asked.
+     */
+    @GetMapping("/users/_batch")
+    public ResponseEntity<List<UserDTO>> getUsers(
+        @RequestParam(name = "login", required = false) List<String> logins,
+        @RequestParam(name = "id", required = false) List<String> ids
+    ) {
+        log.debug("REST request to get Users by logins {} and ids {}", logins, ids);
+        List<String> requestedLogins = logins != null ? logins : Collections.emptyList();
+        List<String> requestedIds = ids != null ? ids : Collections.emptyList();
+        if (requestedLogins.size() + requestedIds.size() > MAX_BATCH_SIZE) {
+            throw new BadRequestAlertException(
+                "At most " + MAX_BATCH_SIZE + " users can be asked at once",
+                "userManagement",
+                "batchtoolarge"
+            );
+        }
+        List<UserDTO> users = new ArrayList<>(userService.getUsersByLogins(requestedLogins));
+        Set<String> found = users.stream().map(UserDTO::getId).collect(Collectors.toSet());
+        userService.getUsersByIds(requestedIds).stream().filter(user -> found.add(user.getId())).forEach(users::add);
+        return ResponseEntity.ok(users);
+    }
+
     /**
      * Gets a list of all roles.
-     * @return a string list of all roles.
+     * <p>
+     * The list carries an {@code ETag}, so that clients can revalidate it with {@code If-None-Match}.
+     *
+     * @param webRequest the current request.
+     * @return a string list of all roles, or {@code 304 (Not Modified)} if the client's copy is current.
      */
     @GetMapping("/authorities")
-    public List<String> getAuthorities() {
-        return userService.getAuthorities();
+    public ResponseEntity<List<String>> getAuthorities(WebRequest webRequest) {
+        String eTag = authorityRegistry.getETag();
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(eTag).body(authorityRegistry.getNames());
     }
 
     /**
      * {@code SEARCH /_search/users/:query} : search for the User corresponding to the query.
+     * <p>
+     * The query is matched against the login, first name and last name of the users.
      *
      * @param query the query to search.
-     * @return the result of the search.
+     * @param pageable the pagination information.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the page of matching users.
      */
     @GetMapping("/_search/users/{query}")
-    public List<UserDTO> search(@PathVariable String query) {
-        return StreamSupport.stream(userSearchRepository.search(query).spliterator(), false).map(UserDTO::new).collect(Collectors.toList());
+    public ResponseEntity<List<UserDTO>> search(@PathVariable String query, Pageable pageable) {
+        log.debug("REST request to search for a page of Users for query {}", query);
+        final Page<UserDTO> page = userSearchRepository.search(query, pageable).map(UserDTO::new);
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
+    }
+
+    /**
+     * {@code GET /_suggest/users?prefix=:prefix} : suggest the users whose login, first name or last name start with the prefix.
+     *
+     * @param prefix the text typed so far.
+     * @param size the maximum number of suggestions, at most {@link UserSuggestionService#MAX_SUGGESTIONS}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the best matching users.
+     */
+    @GetMapping("/_suggest/users")
+    public ResponseEntity<List<UserDTO>> suggest(@RequestParam String prefix, @RequestParam(defaultValue = "10") int size) {
+        log.debug("REST request to suggest Users for prefix {}", prefix);
+        String normalizedPrefix = UserSuggestionService.normalize(prefix);
+        int cappedSize = Math.min(size, UserSuggestionService.MAX_SUGGESTIONS);
+        return ResponseEntity.ok(userSuggestionService.suggest(normalizedPrefix, cappedSize));
     }
 }
@@ -2,24 +2,39 @@ package org.codingspiderfox.web.rest;
 
 import static org.elasticsearch.index.query.QueryBuilders.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 import javax.validation.constraints.Pattern;
+import org.codingspiderfox.config.ApplicationProperties;
 import org.codingspiderfox.config.Constants;
 import org.codingspiderfox.security.AuthoritiesConstants;
+import org.codingspiderfox.service.UserExportService;
+import org.codingspiderfox.service.UserImportService;
 import org.codingspiderfox.service.UserService;
 import org.codingspiderfox.service.dto.AdminUserDTO;
+import org.codingspiderfox.service.dto.KeysetPage;
+import org.codingspiderfox.service.dto.UserImportResultDTO;
+import org.codingspiderfox.web.rest.errors.BadRequestAlertException;
+import org.codingspiderfox.web.rest.util.AsyncRequestTimeoutInterceptor;
+import org.codingspiderfox.web.rest.util.KeysetPaginationUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import tech.jhipster.web.util.HeaderUtil;
 import tech.jhipster.web.util.PaginationUtil;
@@ -40,10 +55,9 @@ import tech.jhipster.web.util.ResponseUtil;
  * quite often do relationships with the user, and we don't want them to get the authorities all
  * the time for nothing (for performance reasons). This is the #1 goal: we should not impact our users'
  * application because of this use-case.</li>
- * <li> Not having an outer join causes n+1 requests to the database. This is not a real issue as
- * we have by default a second-level cache. This means on the first HTTP call we do the n+1 requests,
- * but then all authorities come from the cache, so in fact it's much better than doing an outer join
- * (which will get lots of data from the database, for each HTTP call).</li>
+ * <li> Not having an outer join would cause n+1 requests to the database. The user listings avoid them by
+ * fetching the authorities of a whole page from the join table in a second query, so that a page always
+ * costs the same number of queries, whatever its size and the state of the second-level cache.</li>
  * <li> As this manages users, for security reasons, we'd rather have a DTO layer.</li>
  * </ul>
  * <p>
@@ -53,6 +67,10 @@ import tech.jhipster.web.util.ResponseUtil;
 @RequestMapping("/api/admin")
 public class UserResource {
 
+    private static final MediaType TEXT_CSV = new MediaType("text", "csv", StandardCharsets.UTF_8);
+
+    private static final MediaType APPLICATION_NDJSON = new MediaType("application", "x-ndjson", StandardCharsets.UTF_8);
+
     private final Logger log = LoggerFactory.getLogger(UserResource.class);
 
     @Value("${jhipster.clientApp.name}")
@@ -60,26 +78,132 @@ public class UserResource {
 
     private final UserService userService;
 
-    public UserResource(UserService userService) {
+    private final UserExportService userExportService;
+
+    private final UserImportService userImportService;
+
+    private final long exportTimeoutMs;
+
+    public UserResource(
+        UserService userService,
+        UserExportService userExportService,
+        UserImportService userImportService,
+        ApplicationProperties applicationProperties
+    ) {
         this.userService = userService;
+        this.userExportService = userExportService;
+        this.userImportService = userImportService;
+        this.exportTimeoutMs = applicationProperties.getUserExport().getTimeoutMs();
     }
 
     /**
      * {@code GET /admin/users} : get all users with all the details - calling this are only allowed for the administrators.
+     * <p>
+     * When a {@code cursor} parameter is given, even empty for the first page, the users are paginated by keyset on
+     * {@code id} or {@code login}, the next page being linked with {@code rel="next"}. The total count is then only
+     * returned when requested with {@code count=exact} or {@code count=estimate}.
      *
      * @param pageable the pagination information.
+     * @param cursor the cursor returned with the previous page, to paginate by keyset.
+     * @param count whether the total count should be {@code exact} or an {@code estimate}, when paginating by keyset.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body all users.
+     * @throws BadRequestAlertException {@code 400 (Bad Request)} if the cursor or the order is invalid.
      */
     @GetMapping("/users")
     @PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
-    public ResponseEntity<List<AdminUserDTO>> getAllUsers(Pageable pageable) {
+    public ResponseEntity<List<AdminUserDTO>> getAllUsers(
+        Pageable pageable,
+        @RequestParam(required = false) String cursor,
+        @RequestParam(required = false) String count
+    ) {
         log.debug("REST request to get all User for an admin");
 
+        if (cursor != null) {
+            final KeysetPage<AdminUserDTO> page;
+            try {
+                page = userService.getAllManagedUsers(cursor, pageable.getSort(), pageable.getPageSize());
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestAlertException(e.getMessage(), "userManagement", "invalidcursor");
+            }
+            HttpHeaders headers = KeysetPaginationUtil.generateKeysetPaginationHttpHeaders(
+                ServletUriComponentsBuilder.fromCurrentRequest(),
+                page
+            );
+            if (count != null) {
+                boolean estimate = "estimate".equals(count);
+                KeysetPaginationUtil.addTotalCount(headers, userService.countUsers(false, estimate), estimate);
+            }
+            return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
+        }
         final Page<AdminUserDTO> page = userService.getAllManagedUsers(pageable);
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
         return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
     }
 
+    /**
+     * {@code GET /admin/users/export} : export all users with all the details - calling this are only allowed for the administrators.
+     * <p>
+     * The users are streamed as they are read from the database, so that exports of any size use constant memory. The
+     * stream is given {@code application.user-export.timeout-ms} to complete, rather than the default asynchronous
+     * request timeout.
+     *
+     * @param format the format of the export, {@code csv} or {@code ndjson}.
+     * @param webRequest the current request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the streamed export.
+     * @throws BadRequestAlertException {@code 400 (Bad Request)} if the format is not supported.
+     */
+    @GetMapping("/users/export")
+    @PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
+    public ResponseEntity<StreamingResponseBody> exportUsers(
+        @RequestParam(defaultValue = "csv") String format,
+        NativeWebRequest webRequest
+    ) {
+        log.debug("REST request to export all Users as {}", format);
+        UserExportService.Format exportFormat = toFormat(format);
+        AsyncRequestTimeoutInterceptor.setTimeout(webRequest, exportTimeoutMs);
+        MediaType mediaType = exportFormat == UserExportService.Format.CSV ? TEXT_CSV : APPLICATION_NDJSON;
+        StreamingResponseBody body = outputStream -> userExportService.export(exportFormat, outputStream);
+        return ResponseEntity
+            .ok()
+            .contentType(mediaType)
+            .header(
+                HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename("users." + format.toLowerCase()).build().toString()
+            )
+            .body(body);
+    }
+
+    /**
+     * {@code POST /admin/users/import} : import users in bulk, in the format of the export - calling this are only allowed for the administrators.
+     * <p>
+     * The rows that can not be imported, because they are invalid or clash with an existing user, are reported in the
+     * response while the others are imported.
+     *
+     * @param format the format of the import, {@code csv} or {@code ndjson}.
+     * @param inputStream the body of the request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the number of users imported and the rejected rows.
+     * @throws BadRequestAlertException {@code 400 (Bad Request)} if the format is not supported.
+     * @throws IOException if the body could not be read.
+     */
+    @PostMapping("/users/import")
+    @PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
+    public ResponseEntity<UserImportResultDTO> importUsers(@RequestParam(defaultValue = "csv") String format, InputStream inputStream)
+        throws IOException {
+        log.debug("REST request to import Users as {}", format);
+        UserExportService.Format importFormat = toFormat(format);
+        return ResponseEntity.ok(userImportService.importUsers(importFormat, inputStream));
+    }
+
+    private static UserExportService.Format toFormat(String format) {
+        if ("csv".equalsIgnoreCase(format)) {
+            return UserExportService.Format.CSV;
+        }
+        if ("ndjson".equalsIgnoreCase(format)) {
+            return UserExportService.Format.NDJSON;
+        }
+        throw new BadRequestAlertException("Unsupported format " + format, "userManagement", "invalidformat");
+    }
+
     /**
      * {@code GET /admin/users/:login} : get the "login" user.
      *
@@ -0,0 +1,37 @@
+package org.codingspiderfox.web.rest.util;
+
+import java.util.concurrent.Callable;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+
+/**
+ * Interceptor applying a per-request timeout to the asynchronous processing of a handler's result.
+ * <p>
+ * Handlers returning a {@code StreamingResponseBody} can not carry a timeout like a {@code WebAsyncTask} does, so
+ * they set it with {@link #setTimeout(NativeWebRequest, long)}, and it is applied just before the processing starts,
+ * in place of {@code spring.mvc.async.request-timeout}.
+ */
+public class AsyncRequestTimeoutInterceptor implements CallableProcessingInterceptor {
+
+    private static final String TIMEOUT_ATTRIBUTE = AsyncRequestTimeoutInterceptor.class.getName() + ".TIMEOUT";
+
+    /**
+     * Sets the timeout of the asynchronous processing of the current request.
+     *
+     * @param request the current request.
+     * @param timeoutMillis the timeout, in milliseconds.
+     */
+    public static void setTimeout(NativeWebRequest request, long timeoutMillis) {
+        request.setAttribute(TIMEOUT_ATTRIBUTE, timeoutMillis, RequestAttributes.SCOPE_REQUEST);
+    }
+
+    @Override
+    public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+        Object timeout = request.getAttribute(TIMEOUT_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (timeout instanceof Long && request instanceof AsyncWebRequest) {
+            ((AsyncWebRequest) request).setTimeout((Long) timeout);
+        }
+    }
+}
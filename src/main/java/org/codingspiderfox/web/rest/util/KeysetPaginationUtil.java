@@ -0,0 +1,52 @@
+package org.codingspiderfox.web.rest.util;
+
+import org.codingspiderfox.service.dto.KeysetPage;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * Utility class for handling keyset pagination.
+ * <p>
+ * Unlike offset pagination, the next page is addressed by an opaque cursor carried in a
+ * <a href="https://tools.ietf.org/html/rfc5988">Link header</a>, and the total count is only computed on demand.
+ */
+public final class KeysetPaginationUtil {
+
+    public static final String CURSOR_PARAMETER = "cursor";
+
+    private static final String HEADER_X_TOTAL_COUNT = "X-Total-Count";
+
+    private static final String HEADER_X_ESTIMATED_TOTAL_COUNT = "X-Estimated-Total-Count";
+
+    private KeysetPaginationUtil() {}
+
+    /**
+     * Generates the pagination headers of a keyset page.
+     *
+     * @param uriBuilder the builder of the current request URI.
+     * @param page the page.
+     * @param <T> the type of the listed elements.
+     * @return the headers, with a {@code next} link unless the page is the last one.
+     */
+    public static <T> HttpHeaders generateKeysetPaginationHttpHeaders(UriComponentsBuilder uriBuilder, KeysetPage<T> page) {
+        HttpHeaders headers = new HttpHeaders();
+        page
+            .getNextCursor()
+            .ifPresent(cursor -> {
+                String next = uriBuilder.replaceQueryParam(CURSOR_PARAMETER, cursor).replaceQueryParam("page").toUriString();
+                headers.add(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+            });
+        return headers;
+    }
+
+    /**
+     * Adds the total count to pagination headers.
+     *
+     * @param headers the pagination headers.
+     * @param totalCount the total number of elements.
+     * @param estimate whether the count is an estimate.
+     */
+    public static void addTotalCount(HttpHeaders headers, long totalCount, boolean estimate) {
+        headers.add(estimate ? HEADER_X_ESTIMATED_TOTAL_COUNT : HEADER_X_TOTAL_COUNT, Long.toString(totalCount));
+    }
+}
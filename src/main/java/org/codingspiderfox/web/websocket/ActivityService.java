@@ -2,45 +2,250 @@ package org.codingspiderfox.web.websocket;
 
 import static org.codingspiderfox.config.WebsocketConfiguration.IP_ADDRESS;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.nio.charset.StandardCharsets;
 import java.security.Principal;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.codingspiderfox.config.ApplicationProperties;
+import org.codingspiderfox.service.PostgresNotificationService;
 import org.codingspiderfox.web.websocket.dto.ActivityDTO;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.ApplicationListener;
+import org.springframework.messaging.MessageChannel;
 import org.springframework.messaging.handler.annotation.*;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
 import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Controller;
+import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.socket.messaging.SessionDisconnectEvent;
 
+/**
+ * Tracks the pages the users are on and publishes them to the subscribers of {@code /topic/tracker}.
+ * <p>
+ * Activities are conflated: only the latest one of each session is kept, and the changes since the previous tick are
+ * broadcast as a single batch every {@code application.websocket.tracker-flush-interval-ms}. A new subscriber first
+ * receives a snapshot of the current activities. Messages on {@code /topic/tracker} are thus arrays of activities,
+ * split so that each one serializes to at most {@value #MAX_MESSAGE_BYTES} bytes and fits in a notification of the
+ * PostgreSQL relay, pages being truncated to {@value #MAX_PAGE_LENGTH} characters.
+ * <p>
+ * The presence of each session is only known to the node holding its connection, so the snapshot answered to a new
+ * subscriber is node-local. With {@code application.websocket.broker} set to {@code postgres}, the subscription also
+ * sends a snapshot request to the other nodes on {@code application.websocket.postgres.snapshot-channel}. Each of them
+ * answers its activities on the same channel, and the node of the subscriber sends them to the subscribing session
+ * only. With the external broker relay, the snapshot stays node-local.
+ */
 @Controller
 public class ActivityService implements ApplicationListener<SessionDisconnectEvent> {
 
+    static final String TRACKER_TOPIC = "/topic/tracker";
+
+    /**
+     * The longest page kept in an activity, so that a single activity always fits in a message.
+     */
+    static final int MAX_PAGE_LENGTH = 512;
+
+    /**
+     * The largest serialized message on {@code /topic/tracker}, leaving room for the envelopes of the relay and of the
+     * snapshot answers.
+     */
+    static final int MAX_MESSAGE_BYTES = PostgresNotificationService.MAX_MESSAGE_BYTES - 512;
+
+    private static final String SNAPSHOT_REQUEST = "request";
+
+    private static final String SNAPSHOT_ANSWER = "answer";
+
     private static final Logger log = LoggerFactory.getLogger(ActivityService.class);
 
     private final SimpMessageSendingOperations messagingTemplate;
 
-    public ActivityService(SimpMessageSendingOperations messagingTemplate) {
+    private final MessageChannel clientOutboundChannel;
+
+    private final PresenceRegistry presenceRegistry;
+
+    private final Duration presenceIdleTimeout;
+
+    private final PostgresNotificationService postgresNotificationService;
+
+    private final ObjectMapper objectMapper;
+
+    private final String snapshotChannel;
+
+    private final Map<String, ActivityDTO> pendingActivities = new ConcurrentHashMap<>();
+
+    public ActivityService(
+        SimpMessageSendingOperations messagingTemplate,
+        @Qualifier("clientOutboundChannel") MessageChannel clientOutboundChannel,
+        PresenceRegistry presenceRegistry,
+        PostgresNotificationService postgresNotificationService,
+        ObjectMapper objectMapper,
+        ApplicationProperties applicationProperties
+    ) {
         this.messagingTemplate = messagingTemplate;
+        this.clientOutboundChannel = clientOutboundChannel;
+        this.presenceRegistry = presenceRegistry;
+        this.presenceIdleTimeout = Duration.ofSeconds(applicationProperties.getWebsocket().getPresenceIdleTimeoutSeconds());
+        this.postgresNotificationService = postgresNotificationService;
+        this.objectMapper = objectMapper;
+        if (applicationProperties.getWebsocket().getBroker() == ApplicationProperties.Websocket.BrokerMode.POSTGRES) {
+            this.snapshotChannel = applicationProperties.getWebsocket().getPostgres().getSnapshotChannel();
+            postgresNotificationService.register(snapshotChannel, this::receiveSnapshot, () -> {});
+        } else {
+            this.snapshotChannel = null;
+        }
     }
 
     @MessageMapping("/topic/activity")
-    @SendTo("/topic/tracker")
-    public ActivityDTO sendActivity(@Payload ActivityDTO activityDTO, StompHeaderAccessor stompHeaderAccessor, Principal principal) {
+    public void sendActivity(@Payload ActivityDTO activityDTO, StompHeaderAccessor stompHeaderAccessor, Principal principal) {
         activityDTO.setUserLogin(principal.getName());
         activityDTO.setSessionId(stompHeaderAccessor.getSessionId());
         activityDTO.setIpAddress(stompHeaderAccessor.getSessionAttributes().get(IP_ADDRESS).toString());
         activityDTO.setTime(Instant.now());
-        log.debug("Sending user tracking data {}", activityDTO);
-        return activityDTO;
+        if (activityDTO.getPage() != null && activityDTO.getPage().length() > MAX_PAGE_LENGTH) {
+            activityDTO.setPage(activityDTO.getPage().substring(0, MAX_PAGE_LENGTH));
+        }
+        log.debug("Queuing user tracking data {}", activityDTO);
+        presenceRegistry.update(activityDTO);
+        pendingActivities.put(activityDTO.getSessionId(), activityDTO);
+    }
+
+    /**
+     * Sends the current activities of this node to a new subscriber of {@code /topic/tracker}, and asks the other nodes
+     * for theirs when the PostgreSQL relay is enabled.
+     *
+     * @param stompHeaderAccessor the headers of the subscription.
+     * @return the latest activity of each session connected to this node.
+     */
+    @SubscribeMapping(TRACKER_TOPIC)
+    public List<ActivityDTO> getActivities(StompHeaderAccessor stompHeaderAccessor) {
+        if (snapshotChannel != null) {
+            ObjectNode request = objectMapper
+                .createObjectNode()
+                .put("type", SNAPSHOT_REQUEST)
+                .put("sessionId", stompHeaderAccessor.getSessionId())
+                .put("subscriptionId", stompHeaderAccessor.getSubscriptionId());
+            postgresNotificationService.send(snapshotChannel, request);
+        }
+        return presenceRegistry.getSessions();
+    }
+
+    /**
+     * Answers the snapshot request of another node with the activities of this node, or sends the answer of another
+     * node to the subscribing session when it is connected to this node.
+     *
+     * @param node the id of the sending node.
+     * @param message the snapshot request or answer.
+     */
+    void receiveSnapshot(String node, JsonNode message) {
+        String sessionId = message.path("sessionId").asText();
+        String subscriptionId = message.path("subscriptionId").asText();
+        if (SNAPSHOT_REQUEST.equals(message.path("type").asText())) {
+            for (List<ActivityDTO> activities : split(presenceRegistry.getSessions())) {
+                ObjectNode answer = objectMapper
+                    .createObjectNode()
+                    .put("type", SNAPSHOT_ANSWER)
+                    .put("node", node)
+                    .put("sessionId", sessionId)
+                    .put("subscriptionId", subscriptionId);
+                answer.set("activities", objectMapper.valueToTree(activities));
+                postgresNotificationService.send(snapshotChannel, answer);
+            }
+        } else if (postgresNotificationService.getNodeId().equals(message.path("node").asText())) {
+            // addressed to the subscription only, like the snapshot returned by getActivities
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+            accessor.setSessionId(sessionId);
+            accessor.setSubscriptionId(subscriptionId);
+            accessor.setDestination(TRACKER_TOPIC);
+            accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+            byte[] payload = message.path("activities").toString().getBytes(StandardCharsets.UTF_8);
+            clientOutboundChannel.send(MessageBuilder.createMessage(payload, accessor.getMessageHeaders()));
+        }
     }
 
     @Override
     public void onApplicationEvent(SessionDisconnectEvent event) {
+        presenceRegistry.remove(event.getSessionId());
+        logout(event.getSessionId());
+    }
+
+    /**
+     * Forgets the sessions that sent no activity for longer than {@code application.websocket.presence-idle-timeout-seconds}.
+     */
+    @Scheduled(fixedDelayString = "${application.websocket.presence-eviction-interval-ms:60000}")
+    public void evictIdleSessions() {
+        List<String> evicted = presenceRegistry.evictIdle(Instant.now().minus(presenceIdleTimeout));
+        if (!evicted.isEmpty()) {
+            log.debug("Evicted {} idle tracker sessions", evicted.size());
+            evicted.forEach(this::logout);
+        }
+    }
+
+    private void logout(String sessionId) {
         ActivityDTO activityDTO = new ActivityDTO();
-        activityDTO.setSessionId(event.getSessionId());
+        activityDTO.setSessionId(sessionId);
         activityDTO.setPage("logout");
-        messagingTemplate.convertAndSend("/topic/tracker", activityDTO);
+        pendingActivities.put(sessionId, activityDTO);
+    }
+
+    /**
+     * Broadcasts the activities that changed since the previous flush.
+     */
+    @Scheduled(fixedDelayString = "${application.websocket.tracker-flush-interval-ms:500}")
+    public void flush() {
+        List<ActivityDTO> changes = new ArrayList<>();
+        for (String sessionId : pendingActivities.keySet()) {
+            ActivityDTO activityDTO = pendingActivities.remove(sessionId);
+            if (activityDTO != null) {
+                changes.add(activityDTO);
+            }
+        }
+        if (!changes.isEmpty()) {
+            log.debug("Sending {} user tracking changes", changes.size());
+            split(changes).forEach(activities -> messagingTemplate.convertAndSend(TRACKER_TOPIC, activities));
+        }
+    }
+
+    /**
+     * Splits activities into lists serializing to at most {@link #MAX_MESSAGE_BYTES} bytes.
+     */
+    private List<List<ActivityDTO>> split(Collection<ActivityDTO> activities) {
+        List<List<ActivityDTO>> messages = new ArrayList<>();
+        List<ActivityDTO> message = new ArrayList<>();
+        int messageBytes = 2;
+        for (ActivityDTO activityDTO : activities) {
+            int bytes;
+            try {
+                bytes = objectMapper.writeValueAsBytes(activityDTO).length + 1;
+            } catch (JsonProcessingException e) {
+                log.warn("Not sending the activity of session {}: {}", activityDTO.getSessionId(), e.getMessage());
+                continue;
+            }
+            if (!message.isEmpty() && messageBytes + bytes > MAX_MESSAGE_BYTES) {
+                messages.add(message);
+                message = new ArrayList<>();
+                messageBytes = 2;
+            }
+            message.add(activityDTO);
+            messageBytes += bytes;
+        }
+        if (!message.isEmpty()) {
+            messages.add(message);
+        }
+        return messages;
     }
 }
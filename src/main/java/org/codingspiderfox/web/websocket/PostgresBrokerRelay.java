@@ -0,0 +1,124 @@
+package org.codingspiderfox.web.websocket;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.codingspiderfox.config.ApplicationProperties;
+import org.codingspiderfox.service.PostgresNotificationService;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+
+/**
+ * Relays the messages of the in-memory STOMP broker between the application nodes through PostgreSQL
+ * {@code LISTEN/NOTIFY}, so that a {@code /topic} message reaches the subscribers of every node.
+ * <p>
+ * The messages sent to the broker of this node are sent in batches by the {@link PostgresNotificationService}, and
+ * the messages of the other nodes are handed to the broker of this node. Messages sent while the connection is lost
+ * are not replayed, which the tracker tolerates as they are superseded. JSON payloads are embedded as JSON in the
+ * notifications rather than as escaped strings, so that they take about the same size as on the websocket. Only active when
+ * {@code application.websocket.broker} is {@code postgres}.
+ */
+@Component
+@ConditionalOnProperty(prefix = "application.websocket", name = "broker", havingValue = "postgres")
+public class PostgresBrokerRelay implements ChannelInterceptor {
+
+    /**
+     * The header marking the messages received from another node, which must not be relayed again.
+     */
+    static final String RELAYED_FROM_HEADER = "relayedFrom";
+
+    private static final String TOPIC_PREFIX = "/topic/";
+
+    private final MessageChannel brokerChannel;
+
+    private final PostgresNotificationService postgresNotificationService;
+
+    private final ObjectMapper objectMapper;
+
+    private final String channel;
+
+    public PostgresBrokerRelay(
+        // the broker channel is only created once this interceptor is registered on it
+        @Lazy @Qualifier("brokerChannel") MessageChannel brokerChannel,
+        PostgresNotificationService postgresNotificationService,
+        ObjectMapper objectMapper,
+        ApplicationProperties applicationProperties
+    ) {
+        this.brokerChannel = brokerChannel;
+        this.postgresNotificationService = postgresNotificationService;
+        this.objectMapper = objectMapper;
+        this.channel = applicationProperties.getWebsocket().getPostgres().getChannel();
+        postgresNotificationService.register(channel, this::receive, () -> {});
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        String destination = accessor.getDestination();
+        if (
+            accessor.getMessageType() == SimpMessageType.MESSAGE &&
+            destination != null &&
+            destination.startsWith(TOPIC_PREFIX) &&
+            accessor.getHeader(RELAYED_FROM_HEADER) == null &&
+            message.getPayload() instanceof byte[]
+        ) {
+            relay(destination, accessor.getContentType(), (byte[]) message.getPayload());
+        }
+        return message;
+    }
+
+    private void relay(String destination, MimeType contentType, byte[] payload) {
+        ObjectNode relayed = objectMapper
+            .createObjectNode()
+            .put("destination", destination)
+            .put("contentType", contentType != null ? contentType.toString() : null);
+        JsonNode json = isJson(contentType) ? readJson(payload) : null;
+        if (json != null) {
+            relayed.set("json", json);
+        } else {
+            relayed.put("payload", new String(payload, StandardCharsets.UTF_8));
+        }
+        postgresNotificationService.send(channel, relayed);
+    }
+
+    private static boolean isJson(MimeType contentType) {
+        return contentType != null && (contentType.getSubtype().equals("json") || contentType.getSubtype().endsWith("+json"));
+    }
+
+    private JsonNode readJson(byte[] payload) {
+        try {
+            return objectMapper.readTree(payload);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Hands a message sent by another node to the broker of this node.
+     *
+     * @param node the id of the sending node.
+     * @param relayed the relayed message.
+     */
+    void receive(String node, JsonNode relayed) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination(relayed.path("destination").asText());
+        if (relayed.hasNonNull("contentType")) {
+            accessor.setContentType(MimeType.valueOf(relayed.path("contentType").asText()));
+        }
+        accessor.setHeader(RELAYED_FROM_HEADER, node);
+        String payload = relayed.has("json") ? relayed.get("json").toString() : relayed.path("payload").asText();
+        byte[] body = payload.getBytes(StandardCharsets.UTF_8);
+        brokerChannel.send(MessageBuilder.createMessage(body, accessor.getMessageHeaders()));
+    }
+}
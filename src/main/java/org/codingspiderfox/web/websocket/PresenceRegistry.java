@@ -0,0 +1,126 @@
+package org.codingspiderfox.web.websocket;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.codingspiderfox.web.websocket.dto.ActivityDTO;
+import org.springframework.stereotype.Component;
+
+/**
+ * Registry of the websocket sessions currently open on this node, with the login, page, IP address and last-seen time
+ * of each one.
+ * <p>
+ * The number of sessions and of distinct users are maintained as sessions come and go, so that reading them, for
+ * instance from the {@code presence.sessions} and {@code presence.users} gauges, does not scan the sessions. Each
+ * change of a session and the matching change of the counts are made in a single {@code compute} on the session, so
+ * that concurrent updates and removals of a session can not leave a login counted without a session.
+ */
+@Component
+public class PresenceRegistry {
+
+    private final Map<String, ActivityDTO> sessions = new ConcurrentHashMap<>();
+
+    private final Map<String, Integer> sessionsPerLogin = new ConcurrentHashMap<>();
+
+    public PresenceRegistry(MeterRegistry meterRegistry) {
+        Gauge.builder("presence.sessions", sessions, Map::size).register(meterRegistry);
+        Gauge.builder("presence.users", sessionsPerLogin, Map::size).register(meterRegistry);
+    }
+
+    /**
+     * Records the latest activity of a session.
+     *
+     * @param activity the activity, whose time is the last-seen time of the session.
+     */
+    public void update(ActivityDTO activity) {
+        sessions.compute(
+            activity.getSessionId(),
+            (sessionId, previous) -> {
+                if (previous == null) {
+                    increment(activity.getUserLogin());
+                } else if (!previous.getUserLogin().equals(activity.getUserLogin())) {
+                    decrement(previous.getUserLogin());
+                    increment(activity.getUserLogin());
+                }
+                return activity;
+            }
+        );
+    }
+
+    /**
+     * Forgets a closed session.
+     *
+     * @param sessionId the id of the session.
+     * @return {@code true} if the session was registered.
+     */
+    public boolean remove(String sessionId) {
+        AtomicBoolean removed = new AtomicBoolean();
+        sessions.computeIfPresent(
+            sessionId,
+            (id, previous) -> {
+                decrement(previous.getUserLogin());
+                removed.set(true);
+                return null;
+            }
+        );
+        return removed.get();
+    }
+
+    /**
+     * Forgets the sessions not seen since a given time, whose disconnection may have been missed.
+     *
+     * @param lastSeenBefore the time before which sessions are idle.
+     * @return the ids of the evicted sessions.
+     */
+    public List<String> evictIdle(Instant lastSeenBefore) {
+        List<String> evicted = new ArrayList<>();
+        for (String sessionId : sessions.keySet()) {
+            sessions.computeIfPresent(
+                sessionId,
+                (id, activity) -> {
+                    if (!activity.getTime().isBefore(lastSeenBefore)) {
+                        return activity;
+                    }
+                    decrement(activity.getUserLogin());
+                    evicted.add(id);
+                    return null;
+                }
+            );
+        }
+        return evicted;
+    }
+
+    /**
+     * @return the latest activity of each session.
+     */
+    public List<ActivityDTO> getSessions() {
+        return new ArrayList<>(sessions.values());
+    }
+
+    /**
+     * @return the number of open sessions.
+     */
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * @return the number of distinct users with an open session.
+     */
+    public int getUserCount() {
+        return sessionsPerLogin.size();
+    }
+
+    private void increment(String login) {
+        sessionsPerLogin.merge(login, 1, Integer::sum);
+    }
+
+    private void decrement(String login) {
+        sessionsPerLogin.computeIfPresent(login, (key, count) -> count > 1 ? count - 1 : null);
+    }
+}
@@ -36,7 +36,9 @@ export const sendActivity = (page: string) => {
 const subscribe = () => {
   connection.then(() => {
     subscriber = stompClient.subscribe('/topic/tracker', data => {
-      listenerObserver.next(JSON.parse(data.body));
+      // the tracker sends batches of activities: a snapshot on subscribe, then the changes at each tick
+      const activities = JSON.parse(data.body);
+      (Array.isArray(activities) ? activities : [activities]).forEach(activity => listenerObserver.next(activity));
     });
   });
 };
@@ -0,0 +1,52 @@
+package org.codingspiderfox.aop.logging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+/**
+ * Test class for the {@link LoggingAspect} class.
+ */
+class LoggingAspectTest {
+
+    private final LoggingAspect loggingAspect = new LoggingAspect(new MockEnvironment(), 5);
+
+    @Test
+    void testRenderTruncatesLongValues() {
+        assertThat(loggingAspect.render("abc")).isEqualTo("abc");
+        assertThat(loggingAspect.render("abcdefgh")).isEqualTo("abcde...(8 chars)");
+    }
+
+    @Test
+    void testRenderRendersCollectionsOnlyUpToTheLimit() {
+        AtomicInteger rendered = new AtomicInteger();
+        Object element = new Object() {
+            @Override
+            public String toString() {
+                rendered.incrementAndGet();
+                return "abc";
+            }
+        };
+
+        assertThat(loggingAspect.render(Collections.nCopies(1_000_000, element))).isEqualTo("[abc,...(1000000 elements)");
+        assertThat(rendered).hasValue(2);
+    }
+
+    @Test
+    void testRenderRendersSmallCollectionsMapsAndArrays() {
+        assertThat(loggingAspect.render(List.of("a"))).isEqualTo("[a]");
+        assertThat(loggingAspect.render(Map.of("a", 1))).isEqualTo("{a=1}");
+        assertThat(loggingAspect.render(new int[] { 1, 2 })).isEqualTo("[1, 2...(2 elements)");
+        assertThat(loggingAspect.render(new int[0])).isEqualTo("[]");
+    }
+
+    @Test
+    void testRenderArgumentsTruncatesEachArgument() {
+        assertThat(loggingAspect.renderArguments(new Object[] { "abc", "abcdefgh", null })).isEqualTo("[abc, abcde...(8 chars), null]");
+    }
+}
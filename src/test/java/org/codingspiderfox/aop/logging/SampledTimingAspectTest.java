@@ -0,0 +1,76 @@
+package org.codingspiderfox.aop.logging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.lang.reflect.Method;
+import java.util.function.Supplier;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the {@link SampledTimingAspect} class.
+ */
+class SampledTimingAspectTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final SampledTimingAspect aspect = new SampledTimingAspect(meterRegistry, 10);
+
+    @Test
+    void testTimesOneCallInEachInterval() throws Throwable {
+        ProceedingJoinPoint joinPoint = joinPoint();
+
+        for (int i = 0; i < 25; i++) {
+            assertThat(aspect.timeAround(joinPoint)).isEqualTo("result");
+        }
+
+        Timer timer = meterRegistry.get(SampledTimingAspect.TIMER_NAME).tag("class", "String").tag("method", "trim").timer();
+        assertThat(timer.count()).isEqualTo(3);
+    }
+
+    @Test
+    void testTimesInheritedMethodsSeparatelyForEachRepository() throws Throwable {
+        FirstRepository firstRepository = () -> "first";
+        SecondRepository secondRepository = () -> "second";
+        Method get = Supplier.class.getMethod("get");
+
+        aspect.timeAround(repositoryJoinPoint(firstRepository, get));
+        aspect.timeAround(repositoryJoinPoint(secondRepository, get));
+
+        assertThat(meterRegistry.get(SampledTimingAspect.TIMER_NAME).tag("class", "FirstRepository").tag("method", "get").timer().count())
+            .isEqualTo(1);
+        assertThat(meterRegistry.get(SampledTimingAspect.TIMER_NAME).tag("class", "SecondRepository").tag("method", "get").timer().count())
+            .isEqualTo(1);
+    }
+
+    private static ProceedingJoinPoint repositoryJoinPoint(Object repository, Method method) throws Throwable {
+        MethodSignature signature = mock(MethodSignature.class);
+        when(signature.getMethod()).thenReturn(method);
+        ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+        when(joinPoint.getSignature()).thenReturn(signature);
+        when(joinPoint.getThis()).thenReturn(repository);
+        // Spring Data repositories delegate to a generic implementation, outside of the application packages
+        when(joinPoint.getTarget()).thenReturn(new Object());
+        return joinPoint;
+    }
+
+    private interface FirstRepository extends Supplier<String> {}
+
+    private interface SecondRepository extends Supplier<String> {}
+
+    private static ProceedingJoinPoint joinPoint() throws Throwable {
+        MethodSignature signature = mock(MethodSignature.class);
+        when(signature.getMethod()).thenReturn(String.class.getMethod("trim"));
+        ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+        when(joinPoint.getSignature()).thenReturn(signature);
+        when(joinPoint.getThis()).thenReturn("bean");
+        when(joinPoint.getTarget()).thenReturn("bean");
+        when(joinPoint.proceed()).thenReturn("result");
+        return joinPoint;
+    }
+}
@@ -4,7 +4,7 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Configuration;
 
 /**
- * Configure a Mock version of {@link UserSearchRepository} to test the
+ * Configure Mock versions of {@link UserSearchRepository} and {@link UserSuggestionSearchRepository} to test the
  * application without starting Elasticsearch.
  */
 @Configuration
@@ -12,4 +12,7 @@ public class UserSearchRepositoryMockConfiguration {
 
     @MockBean
     private UserSearchRepository mockUserSearchRepository;
+
+    @MockBean
+    private UserSuggestionSearchRepository mockUserSuggestionSearchRepository;
 }
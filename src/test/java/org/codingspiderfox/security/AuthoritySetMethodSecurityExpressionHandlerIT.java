@@ -0,0 +1,82 @@
+package org.codingspiderfox.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.codingspiderfox.IntegrationTest;
+import org.codingspiderfox.web.rest.PresenceResource;
+import org.codingspiderfox.web.rest.UserResource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.access.expression.ExpressionUtils;
+import org.springframework.security.access.expression.method.MethodSecurityExpressionHandler;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.security.util.SimpleMethodInvocation;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Integration tests for the {@link AuthoritySetMethodSecurityExpressionHandler}.
+ * <p>
+ * The resources are called directly, as the {@code /api/admin} requests are already filtered by authority.
+ */
+@IntegrationTest
+class AuthoritySetMethodSecurityExpressionHandlerIT {
+
+    @Autowired
+    private MethodSecurityExpressionHandler methodSecurityExpressionHandler;
+
+    @Autowired
+    private PresenceResource presenceResource;
+
+    @Autowired
+    private UserResource userResource;
+
+    @Test
+    void testHandlerIsTheConfiguredOne() {
+        assertThat(methodSecurityExpressionHandler).isInstanceOf(AuthoritySetMethodSecurityExpressionHandler.class);
+    }
+
+    @Test
+    @WithMockUser(authorities = AuthoritiesConstants.ADMIN)
+    void testHasAuthorityGrantsAccessToAdmins() {
+        assertThat(presenceResource.getPresence().getStatusCode()).isEqualTo(HttpStatus.OK);
+        // past the security check, the unknown user is not found
+        assertThatThrownBy(() -> userResource.getUser("unknown")).isInstanceOf(ResponseStatusException.class);
+    }
+
+    @Test
+    @WithMockUser(authorities = AuthoritiesConstants.USER)
+    void testHasAuthorityDeniesAccessToUsers() {
+        assertThatThrownBy(() -> presenceResource.getPresence()).isInstanceOf(AccessDeniedException.class);
+        assertThatThrownBy(() -> userResource.getUser("unknown")).isInstanceOf(AccessDeniedException.class);
+    }
+
+    @Test
+    @WithMockUser(username = "john", authorities = AuthoritiesConstants.USER)
+    void testEvaluatesTheMembersOfTheDefaultRoot() throws Exception {
+        assertThat(evaluate("permitAll")).isTrue();
+        assertThat(evaluate("denyAll")).isFalse();
+        assertThat(evaluate("hasRole('USER') and hasAnyRole('ADMIN', 'USER')")).isTrue();
+        assertThat(evaluate("hasAnyAuthority('" + AuthoritiesConstants.ADMIN + "', '" + AuthoritiesConstants.USER + "')")).isTrue();
+        assertThat(evaluate("isAuthenticated() and isFullyAuthenticated() and !isAnonymous() and !isRememberMe()")).isTrue();
+        assertThat(evaluate("principal.username == 'john' and authentication.name == 'john'")).isTrue();
+        assertThat(evaluate("read == 'read' and write == 'write' and create == 'create' and delete == 'delete'")).isTrue();
+        assertThat(evaluate("admin == 'administration'")).isTrue();
+        assertThat(evaluate("hasPermission(principal, read)")).isFalse();
+    }
+
+    private boolean evaluate(String expression) throws NoSuchMethodException {
+        EvaluationContext context = methodSecurityExpressionHandler.createEvaluationContext(
+            SecurityContextHolder.getContext().getAuthentication(),
+            new SimpleMethodInvocation(presenceResource, PresenceResource.class.getMethod("getPresence"))
+        );
+        return ExpressionUtils.evaluateAsBoolean(
+            methodSecurityExpressionHandler.getExpressionParser().parseExpression(expression),
+            context
+        );
+    }
+}
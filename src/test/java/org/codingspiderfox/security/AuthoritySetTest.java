@@ -0,0 +1,41 @@
+package org.codingspiderfox.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+/**
+ * Test class for the {@link AuthoritySet} class.
+ */
+class AuthoritySetTest {
+
+    @Test
+    void testContainsKnownAndOtherAuthorities() {
+        AuthoritySet authorities = AuthoritySet.of(
+            List.of(new SimpleGrantedAuthority(AuthoritiesConstants.USER), new SimpleGrantedAuthority("ROLE_AUDITOR"))
+        );
+
+        assertThat(authorities.contains(AuthoritiesConstants.USER)).isTrue();
+        assertThat(authorities.contains("ROLE_AUDITOR")).isTrue();
+        assertThat(authorities.contains(AuthoritiesConstants.ADMIN)).isFalse();
+        assertThat(authorities.contains("ROLE_OTHER")).isFalse();
+        assertThat(authorities.contains(null)).isFalse();
+    }
+
+    @Test
+    void testContainsAny() {
+        AuthoritySet authorities = AuthoritySet.of(List.of(new SimpleGrantedAuthority(AuthoritiesConstants.ADMIN)));
+
+        assertThat(authorities.containsAny(AuthoritiesConstants.USER, AuthoritiesConstants.ADMIN)).isTrue();
+        assertThat(authorities.containsAny(AuthoritiesConstants.USER, AuthoritiesConstants.ANONYMOUS)).isFalse();
+        assertThat(authorities.containsAny()).isFalse();
+    }
+
+    @Test
+    void testEmpty() {
+        assertThat(AuthoritySet.of(List.of())).isSameAs(AuthoritySet.EMPTY);
+        assertThat(AuthoritySet.EMPTY.contains(AuthoritiesConstants.USER)).isFalse();
+    }
+}
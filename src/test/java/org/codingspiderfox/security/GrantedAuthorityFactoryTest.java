@@ -0,0 +1,55 @@
+package org.codingspiderfox.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+/**
+ * Test class for the {@link GrantedAuthorityFactory} class.
+ */
+class GrantedAuthorityFactoryTest {
+
+    @Test
+    void testFromRolesKeepsOnlyRoles() {
+        List<GrantedAuthority> authorities = GrantedAuthorityFactory.fromRoles(
+            List.of(AuthoritiesConstants.ADMIN, "Everyone", "ROLE_AUDITOR")
+        );
+
+        assertThat(authorities)
+            .containsExactly(new SimpleGrantedAuthority(AuthoritiesConstants.ADMIN), new SimpleGrantedAuthority("ROLE_AUDITOR"));
+        assertThatThrownBy(() -> authorities.add(new SimpleGrantedAuthority(AuthoritiesConstants.USER)))
+            .isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    void testFromRolesDropsDuplicateRoles() {
+        List<GrantedAuthority> authorities = GrantedAuthorityFactory.fromRoles(
+            List.of(AuthoritiesConstants.USER, AuthoritiesConstants.ADMIN, AuthoritiesConstants.USER)
+        );
+
+        assertThat(authorities)
+            .containsExactly(new SimpleGrantedAuthority(AuthoritiesConstants.USER), new SimpleGrantedAuthority(AuthoritiesConstants.ADMIN));
+    }
+
+    @Test
+    void testFromRolesIsMemoisedPerRoleList() {
+        List<String> roles = new ArrayList<>(List.of(AuthoritiesConstants.USER, "developers"));
+
+        List<GrantedAuthority> authorities = GrantedAuthorityFactory.fromRoles(roles);
+
+        assertThat(GrantedAuthorityFactory.fromRoles(new ArrayList<>(roles))).isSameAs(authorities);
+    }
+
+    @Test
+    void testAuthoritiesAreShared() {
+        List<GrantedAuthority> admin = GrantedAuthorityFactory.fromRoles(List.of(AuthoritiesConstants.ADMIN, AuthoritiesConstants.USER));
+        List<GrantedAuthority> user = GrantedAuthorityFactory.fromRoles(List.of(AuthoritiesConstants.USER));
+
+        assertThat(admin.get(1)).isSameAs(user.get(0)).isSameAs(GrantedAuthorityFactory.authority(AuthoritiesConstants.USER));
+    }
+}
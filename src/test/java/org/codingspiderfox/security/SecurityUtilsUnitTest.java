@@ -17,6 +17,8 @@ import org.springframework.security.oauth2.client.authentication.OAuth2Authentic
 import org.springframework.security.oauth2.core.oidc.OidcIdToken;
 import org.springframework.security.oauth2.core.oidc.user.DefaultOidcUser;
 import org.springframework.security.oauth2.core.oidc.user.OidcUser;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 
 /**
  * Test class for the {@link SecurityUtils} utility class.
@@ -143,4 +145,33 @@ class SecurityUtilsUnitTest {
         assertThat(SecurityUtils.hasCurrentUserNoneOfAuthorities(AuthoritiesConstants.USER, AuthoritiesConstants.ADMIN)).isFalse();
         assertThat(SecurityUtils.hasCurrentUserNoneOfAuthorities(AuthoritiesConstants.ANONYMOUS, AuthoritiesConstants.ADMIN)).isTrue();
     }
+
+    @Test
+    void testGetAuthoritiesIsResolvedOncePerAuthentication() {
+        Collection<GrantedAuthority> authorities = new ArrayList<>();
+        authorities.add(new SimpleGrantedAuthority(AuthoritiesConstants.USER));
+        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken("user", "user", authorities);
+        UsernamePasswordAuthenticationToken other = new UsernamePasswordAuthenticationToken("admin", "admin", List.of());
+
+        AuthoritySet resolved = SecurityUtils.getAuthorities(authentication);
+
+        assertThat(SecurityUtils.getAuthorities(authentication)).isSameAs(resolved);
+        assertThat(SecurityUtils.getAuthorities(other).contains(AuthoritiesConstants.USER)).isFalse();
+        assertThat(SecurityUtils.getAuthorities(authentication).contains(AuthoritiesConstants.USER)).isTrue();
+    }
+
+    @Test
+    void testHasCurrentUserThisAuthorityForJwt() {
+        SecurityContext securityContext = SecurityContextHolder.createEmptyContext();
+        Jwt jwt = Jwt
+            .withTokenValue("token")
+            .header("alg", "none")
+            .claim("groups", Arrays.asList(AuthoritiesConstants.ADMIN, "Everyone"))
+            .build();
+        securityContext.setAuthentication(new JwtAuthenticationToken(jwt));
+        SecurityContextHolder.setContext(securityContext);
+
+        assertThat(SecurityUtils.hasCurrentUserThisAuthority(AuthoritiesConstants.ADMIN)).isTrue();
+        assertThat(SecurityUtils.hasCurrentUserThisAuthority("Everyone")).isFalse();
+    }
 }
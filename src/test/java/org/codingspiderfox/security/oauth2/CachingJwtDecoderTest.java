@@ -0,0 +1,54 @@
+package org.codingspiderfox.security.oauth2;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+/**
+ * Test class for the {@link CachingJwtDecoder} class.
+ */
+class CachingJwtDecoderTest {
+
+    private static final String TOKEN = "token";
+
+    private final JwtDecoder delegate = mock(JwtDecoder.class);
+
+    private final CachingJwtDecoder decoder = new CachingJwtDecoder(delegate, 10);
+
+    @Test
+    void testDecodeCachesUntilExpiry() {
+        Jwt jwt = jwt(Instant.now().plusSeconds(60));
+        when(delegate.decode(TOKEN)).thenReturn(jwt);
+
+        assertThat(decoder.decode(TOKEN)).isSameAs(jwt);
+        assertThat(decoder.decode(TOKEN)).isSameAs(jwt);
+        verify(delegate, times(1)).decode(TOKEN);
+    }
+
+    @Test
+    void testDecodeExpiredTokenAgain() {
+        Jwt jwt = jwt(Instant.now().minusSeconds(1));
+        when(delegate.decode(TOKEN)).thenReturn(jwt);
+
+        decoder.decode(TOKEN);
+        decoder.decode(TOKEN);
+        verify(delegate, times(2)).decode(TOKEN);
+    }
+
+    private static Jwt jwt(Instant expiresAt) {
+        return Jwt
+            .withTokenValue(TOKEN)
+            .header("alg", "none")
+            .subject("user")
+            .issuedAt(expiresAt.minusSeconds(300))
+            .expiresAt(expiresAt)
+            .build();
+    }
+}
@@ -4,10 +4,14 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatCode;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
@@ -40,11 +44,21 @@ class CustomClaimConverterIT {
     @Autowired
     private ClientRegistrationRepository clientRegistrationRepository;
 
+    private SimpleMeterRegistry meterRegistry;
+
     private CustomClaimConverter customClaimConverter;
 
     @BeforeEach
     public void initTest() {
-        customClaimConverter = new CustomClaimConverter(clientRegistrationRepository.findByRegistrationId("oidc"), restTemplate);
+        meterRegistry = new SimpleMeterRegistry();
+        customClaimConverter =
+            new CustomClaimConverter(
+                clientRegistrationRepository.findByRegistrationId("oidc"),
+                restTemplate,
+                10000,
+                Duration.ofMinutes(5),
+                meterRegistry
+            );
     }
 
     private void mockHttpGetUserInfo(ObjectNode userInfo) {
@@ -141,4 +155,64 @@ class CustomClaimConverterIT {
             })
             .doesNotThrowAnyException();
     }
+
+    @Test
+    void testConvert_cachesUserInfoPerSubject() {
+        // GIVEN
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("sub", "123");
+        // AND
+        ObjectNode user = mapper.createObjectNode();
+        user.put("preferred_username", USERNAME);
+        mockHttpGetUserInfo(user);
+
+        // WHEN
+        customClaimConverter.convert(claims);
+        Map<String, Object> convertedClaims = customClaimConverter.convert(claims);
+
+        // THEN
+        assertThat(convertedClaims).containsEntry("preferred_username", USERNAME);
+        assertThat(meterRegistry.get("security.userinfo.cache.gets").tag("result", "hit").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("security.userinfo.cache.gets").tag("result", "miss").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("security.userinfo.cache.size").gauge().value()).isEqualTo(1);
+        verify(restTemplate, times(1))
+            .exchange(
+                eq("https://api.jhipster.org/user"),
+                eq(HttpMethod.GET),
+                any(HttpEntity.class),
+                ArgumentMatchers.<Class<ObjectNode>>any()
+            );
+    }
+
+    @Test
+    void testConvert_reloadsExpiredUserInfo() {
+        // GIVEN
+        customClaimConverter =
+            new CustomClaimConverter(
+                clientRegistrationRepository.findByRegistrationId("oidc"),
+                restTemplate,
+                10,
+                Duration.ZERO,
+                new SimpleMeterRegistry()
+            );
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("sub", "123");
+        // AND
+        ObjectNode user = mapper.createObjectNode();
+        user.put("preferred_username", USERNAME);
+        mockHttpGetUserInfo(user);
+
+        // WHEN
+        customClaimConverter.convert(claims);
+        customClaimConverter.convert(claims);
+
+        // THEN
+        verify(restTemplate, times(2))
+            .exchange(
+                eq("https://api.jhipster.org/user"),
+                eq(HttpMethod.GET),
+                any(HttpEntity.class),
+                ArgumentMatchers.<Class<ObjectNode>>any()
+            );
+    }
 }
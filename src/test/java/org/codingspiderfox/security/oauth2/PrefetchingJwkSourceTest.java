@@ -0,0 +1,99 @@
+package org.codingspiderfox.security.oauth2;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestOperations;
+
+/**
+ * Test class for the {@link PrefetchingJwkSource} class.
+ */
+class PrefetchingJwkSourceTest {
+
+    private static final String JWK_SET_URI = "https://idp/jwks";
+
+    private final RestOperations restOperations = mock(RestOperations.class);
+
+    @Test
+    void testRefreshesInTheBackground() throws Exception {
+        when(restOperations.getForObject(JWK_SET_URI, String.class)).thenReturn(jwkSet("key-1"), jwkSet("key-2"));
+
+        try (PrefetchingJwkSource source = source(Duration.ofMillis(20), Duration.ofHours(1))) {
+            assertThat(source.get(selector("key-1"), null)).hasSize(1);
+            // the third fetch only starts once the second one has replaced the set
+            verify(restOperations, timeout(5000).atLeast(3)).getForObject(JWK_SET_URI, String.class);
+
+            assertThat(source.get(selector("key-2"), null)).hasSize(1);
+            assertThat(source.get(selector("key-1"), null)).isEmpty();
+        }
+    }
+
+    @Test
+    void testUnknownKeyRefreshesAtMostOncePerMinRefreshInterval() throws Exception {
+        when(restOperations.getForObject(JWK_SET_URI, String.class)).thenReturn(jwkSet("key-1"), jwkSet("key-2"));
+
+        try (PrefetchingJwkSource source = source(Duration.ofHours(1), Duration.ofHours(1))) {
+            assertThat(source.get(selector("key-2"), null)).isEmpty();
+            assertThat(source.get(selector("key-2"), null)).isEmpty();
+
+            verify(restOperations, times(1)).getForObject(JWK_SET_URI, String.class);
+        }
+    }
+
+    @Test
+    void testConcurrentRequestsForAnUnknownKeyRefreshOnce() throws Exception {
+        when(restOperations.getForObject(JWK_SET_URI, String.class)).thenReturn(jwkSet("key-1"), jwkSet("key-2"));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        try (PrefetchingJwkSource source = source(Duration.ofHours(1), Duration.ZERO)) {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<List<JWK>>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(
+                    executor.submit(() -> {
+                        start.await();
+                        return source.get(selector("key-2"), null);
+                    })
+                );
+            }
+            start.countDown();
+
+            for (Future<List<JWK>> result : results) {
+                assertThat(result.get()).hasSize(1);
+            }
+            verify(restOperations, times(2)).getForObject(JWK_SET_URI, String.class);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private PrefetchingJwkSource source(Duration refreshInterval, Duration minRefreshInterval) {
+        return new PrefetchingJwkSource(JWK_SET_URI, restOperations, refreshInterval, minRefreshInterval);
+    }
+
+    private static JWKSelector selector(String keyId) {
+        return new JWKSelector(new JWKMatcher.Builder().keyID(keyId).build());
+    }
+
+    private static String jwkSet(String keyId) throws JOSEException {
+        return new JWKSet(new RSAKeyGenerator(2048).keyID(keyId).generate()).toPublicJWKSet().toString();
+    }
+}
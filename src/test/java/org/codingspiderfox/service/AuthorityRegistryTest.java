@@ -0,0 +1,84 @@
+package org.codingspiderfox.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import org.codingspiderfox.domain.Authority;
+import org.codingspiderfox.repository.AuthorityRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+/**
+ * Test class for the {@link AuthorityRegistry} class.
+ */
+class AuthorityRegistryTest {
+
+    private final AuthorityRepository authorityRepository = mock(AuthorityRepository.class);
+
+    private final PostgresNotificationService postgresNotificationService = mock(PostgresNotificationService.class);
+
+    private AuthorityRegistry authorityRegistry;
+
+    @BeforeEach
+    public void init() {
+        when(authorityRepository.findAll()).thenReturn(List.of(authority("ROLE_USER")));
+        authorityRegistry = new AuthorityRegistry(authorityRepository, postgresNotificationService);
+    }
+
+    @Test
+    void testRegisterAllNotifiesTheOtherNodes() {
+        authorityRegistry.registerAll(List.of("ROLE_USER", "ROLE_AUDITOR"));
+
+        verify(authorityRepository).insertMissing(Set.of("ROLE_AUDITOR"));
+        verify(postgresNotificationService).publishEvent(eq(AuthorityRegistry.AUTHORITIES_EVENT), anyString());
+    }
+
+    @Test
+    void testAuthorityRegisteredOnAnotherNodeIsFoundAfterTheEvent() {
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Consumer<String>> listener = ArgumentCaptor.forClass(Consumer.class);
+        verify(postgresNotificationService).subscribe(eq(AuthorityRegistry.AUTHORITIES_EVENT), listener.capture());
+        assertThat(authorityRegistry.contains("ROLE_AUDITOR")).isFalse();
+
+        when(authorityRepository.findAll()).thenReturn(List.of(authority("ROLE_USER"), authority("ROLE_AUDITOR")));
+        assertThat(authorityRegistry.contains("ROLE_AUDITOR")).isFalse();
+        listener.getValue().accept("");
+
+        assertThat(authorityRegistry.contains("ROLE_AUDITOR")).isTrue();
+        assertThat(authorityRegistry.getNames()).containsExactly("ROLE_AUDITOR", "ROLE_USER");
+        verify(authorityRepository, times(2)).findAll();
+    }
+
+    @Test
+    void testLookupsDuringInvalidationsNeverFail() throws InterruptedException {
+        Thread invalidator = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                authorityRegistry.invalidate();
+            }
+        });
+        invalidator.start();
+        try {
+            for (int i = 0; i < 10000; i++) {
+                assertThat(authorityRegistry.contains("ROLE_USER")).isTrue();
+            }
+        } finally {
+            invalidator.interrupt();
+            invalidator.join();
+        }
+    }
+
+    private static Authority authority(String name) {
+        Authority authority = new Authority();
+        authority.setName(name);
+        return authority;
+    }
+}
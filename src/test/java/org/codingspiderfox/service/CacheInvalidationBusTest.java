@@ -0,0 +1,115 @@
+package org.codingspiderfox.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.List;
+import javax.persistence.EntityManagerFactory;
+import org.codingspiderfox.config.ApplicationProperties;
+import org.codingspiderfox.domain.User;
+import org.codingspiderfox.repository.UserRepository;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+/**
+ * Test class for the {@link CacheInvalidationBus} class.
+ */
+class CacheInvalidationBusTest {
+
+    private final CacheManager cacheManager = mock(CacheManager.class);
+
+    private final Cache usersByLoginCache = mock(Cache.class);
+
+    private final EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+
+    private final org.hibernate.Cache secondLevelCache = mock(org.hibernate.Cache.class);
+
+    private final PostgresNotificationService postgresNotificationService = mock(PostgresNotificationService.class);
+
+    private final ApplicationProperties applicationProperties = new ApplicationProperties();
+
+    @BeforeEach
+    public void init() {
+        SessionFactory sessionFactory = mock(SessionFactory.class);
+        when(entityManagerFactory.unwrap(SessionFactory.class)).thenReturn(sessionFactory);
+        when(sessionFactory.getCache()).thenReturn(secondLevelCache);
+        when(cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE)).thenReturn(usersByLoginCache);
+        when(cacheManager.getCacheNames()).thenReturn(List.of(UserRepository.USERS_BY_LOGIN_CACHE));
+        applicationProperties.getCacheInvalidation().setEnabled(true);
+    }
+
+    @Test
+    void testEvictionsSentByANodeAreAppliedByTheOthers() {
+        CacheInvalidationBus sender = bus();
+        CacheInvalidationBus receiver = bus();
+
+        sender.publishEviction(UserRepository.USERS_BY_LOGIN_CACHE, "john");
+        sender.publishEntityEviction(User.class, "user-1");
+        sender.publishCollectionEviction(User.class.getName() + ".authorities", "user-1");
+
+        ArgumentCaptor<JsonNode> evictions = ArgumentCaptor.forClass(JsonNode.class);
+        verify(postgresNotificationService, times(3)).send(eq("cache_invalidation"), evictions.capture());
+        evictions.getAllValues().forEach(eviction -> receiver.receive("other-node", eviction));
+        verify(usersByLoginCache).evict("john");
+        verify(secondLevelCache).evictEntityData(User.class.getName(), "user-1");
+        verify(secondLevelCache).evictCollectionData(User.class.getName() + ".authorities", "user-1");
+    }
+
+    @Test
+    void testCacheClearsSentByANodeAreAppliedByTheOthers() {
+        CacheInvalidationBus sender = bus();
+        CacheInvalidationBus receiver = bus();
+
+        sender.publishClear(UserRepository.USERS_BY_LOGIN_CACHE);
+
+        ArgumentCaptor<JsonNode> clear = ArgumentCaptor.forClass(JsonNode.class);
+        verify(postgresNotificationService).send(eq("cache_invalidation"), clear.capture());
+        receiver.receive("other-node", clear.getValue());
+        verify(usersByLoginCache).clear();
+        verify(usersByLoginCache, never()).evict(any());
+    }
+
+    @Test
+    void testReconnectionClearsAllCaches() {
+        bus();
+
+        ArgumentCaptor<Runnable> reconnected = ArgumentCaptor.forClass(Runnable.class);
+        verify(postgresNotificationService).register(eq("cache_invalidation"), any(), reconnected.capture());
+        reconnected.getValue().run();
+
+        verify(usersByLoginCache).clear();
+        verify(secondLevelCache).evictAllRegions();
+    }
+
+    @Test
+    void testNothingIsSentWhenDisabled() {
+        applicationProperties.getCacheInvalidation().setEnabled(false);
+        CacheInvalidationBus sender = bus();
+
+        sender.publishEviction(UserRepository.USERS_BY_LOGIN_CACHE, "john");
+
+        verify(postgresNotificationService, never()).register(any(), any(), any());
+        verify(postgresNotificationService, never()).send(any(), any());
+    }
+
+    private CacheInvalidationBus bus() {
+        return new CacheInvalidationBus(
+            cacheManager,
+            entityManagerFactory,
+            postgresNotificationService,
+            new ObjectMapper(),
+            applicationProperties
+        );
+    }
+}
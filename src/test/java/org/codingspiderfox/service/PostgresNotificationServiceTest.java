@@ -0,0 +1,114 @@
+package org.codingspiderfox.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.codingspiderfox.config.ApplicationProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Test class for the {@link PostgresNotificationService} class.
+ */
+class PostgresNotificationServiceTest {
+
+    private static final String CHANNEL = "test_channel";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final ApplicationProperties applicationProperties = new ApplicationProperties();
+
+    private final List<String> received = new ArrayList<>();
+
+    private PostgresNotificationService sender;
+
+    private PostgresNotificationService receiver;
+
+    @BeforeEach
+    public void init() {
+        applicationProperties.getCacheInvalidation().setEnabled(true);
+        sender = service();
+        receiver = service();
+        sender.register(CHANNEL, (node, message) -> received.add(message.asText()), () -> {});
+        receiver.register(CHANNEL, (node, message) -> received.add(message.asText()), () -> {});
+    }
+
+    @Test
+    void testDrainPacksMessagesInNotificationsOfAtMostTheLimit() {
+        String text = "x".repeat(1000);
+        for (int i = 0; i < 20; i++) {
+            assertThat(sender.send(CHANNEL, objectMapper.getNodeFactory().textNode(text))).isTrue();
+        }
+
+        List<String> payloads = sender.drain(CHANNEL);
+
+        assertThat(payloads).hasSize(3);
+        assertThat(payloads)
+            .extracting(payload -> payload.getBytes(StandardCharsets.UTF_8).length)
+            .allSatisfy(bytes -> assertThat(bytes).isLessThanOrEqualTo(PostgresNotificationService.MAX_NOTIFICATION_BYTES));
+        payloads.forEach(payload -> receiver.receive(CHANNEL, payload));
+        assertThat(received).hasSize(20).containsOnly(text);
+        assertThat(sender.drain(CHANNEL)).isEmpty();
+    }
+
+    @Test
+    void testMessagesLargerThanTheLimitAreDropped() {
+        JsonNode message = objectMapper.getNodeFactory().textNode("x".repeat(PostgresNotificationService.MAX_MESSAGE_BYTES));
+
+        assertThat(sender.send(CHANNEL, message)).isFalse();
+        assertThat(sender.drain(CHANNEL)).isEmpty();
+    }
+
+    @Test
+    void testOwnMessagesAreIgnored() {
+        sender.send(CHANNEL, objectMapper.getNodeFactory().textNode("hello"));
+
+        sender.drain(CHANNEL).forEach(payload -> sender.receive(CHANNEL, payload));
+
+        assertThat(received).isEmpty();
+    }
+
+    @Test
+    void testEventsAreDeliveredToTheSubscribersOfOtherNodes() {
+        List<String> values = new ArrayList<>();
+        receiver.subscribe("reindex", values::add);
+        sender.subscribe("reindex", values::add);
+
+        sender.publishEvent("reindex", "started");
+        sender.publishEvent("other", "ignored");
+        String eventChannel = applicationProperties.getPostgresNotifications().getEventChannel();
+        List<String> payloads = sender.drain(eventChannel);
+        payloads.forEach(payload -> receiver.receive(eventChannel, payload));
+        payloads.forEach(payload -> sender.receive(eventChannel, payload));
+
+        assertThat(values).containsExactly("started");
+    }
+
+    @Test
+    void testNothingIsSentWhenDisabled() {
+        applicationProperties.getCacheInvalidation().setEnabled(false);
+        PostgresNotificationService disabled = service();
+        disabled.register(CHANNEL, (node, message) -> {}, () -> {});
+
+        assertThat(disabled.send(CHANNEL, objectMapper.getNodeFactory().textNode("hello"))).isFalse();
+        assertThat(disabled.drain(CHANNEL)).isEmpty();
+    }
+
+    private PostgresNotificationService service() {
+        return new PostgresNotificationService(
+            mock(JdbcTemplate.class),
+            mock(PlatformTransactionManager.class),
+            new DataSourceProperties(),
+            objectMapper,
+            applicationProperties
+        );
+    }
+}
@@ -0,0 +1,183 @@
+package org.codingspiderfox.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+
+import java.time.Instant;
+import java.util.Collections;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.codingspiderfox.IntegrationTest;
+import org.codingspiderfox.config.ApplicationProperties;
+import org.codingspiderfox.domain.SearchReindexLock;
+import org.codingspiderfox.domain.User;
+import org.codingspiderfox.domain.UserSearchOutboxEntry;
+import org.codingspiderfox.domain.UserSuggestion;
+import org.codingspiderfox.repository.SearchReindexLockRepository;
+import org.codingspiderfox.repository.UserRepository;
+import org.codingspiderfox.repository.UserSearchOutboxRepository;
+import org.codingspiderfox.repository.search.UserSearchRepository;
+import org.codingspiderfox.repository.search.UserSuggestionSearchRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+/**
+ * Integration tests for {@link UserSearchIndexingService}.
+ */
+@IntegrationTest
+class UserSearchIndexingServiceIT {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserSearchOutboxRepository userSearchOutboxRepository;
+
+    /**
+     * This repository is mocked in the org.codingspiderfox.repository.search test package.
+     *
+     * @see org.codingspiderfox.repository.search.UserSearchRepositoryMockConfiguration
+     */
+    @Autowired
+    private UserSearchRepository mockUserSearchRepository;
+
+    @Autowired
+    private UserSuggestionSearchRepository mockUserSuggestionSearchRepository;
+
+    @Autowired
+    private SearchReindexLockRepository searchReindexLockRepository;
+
+    @Autowired
+    private UserSearchIndexingService userSearchIndexingService;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    private User user;
+
+    @BeforeEach
+    public void init() {
+        user = new User();
+        user.setId(RandomStringUtils.randomAlphanumeric(10));
+        user.setLogin("indexed-user");
+        user.setActivated(true);
+        user.setCreatedBy("test");
+        userRepository.saveAndFlush(user);
+        userSearchOutboxRepository.saveAndFlush(new UserSearchOutboxEntry(user.getId()));
+    }
+
+    @AfterEach
+    public void cleanup() {
+        userSearchOutboxRepository.deleteAll();
+        userRepository.deleteById(user.getId());
+    }
+
+    @Test
+    void testFlushIndexesPendingUsers() {
+        userSearchIndexingService.flush();
+
+        verify(mockUserSearchRepository).saveAll(Collections.singletonList(user));
+        verify(mockUserSuggestionSearchRepository).saveAll(Collections.singletonList(new UserSuggestion(user)));
+        assertThat(userSearchOutboxRepository.count()).isZero();
+    }
+
+    @Test
+    void testFlushKeepsPendingUsersWhenIndexingFails() {
+        doThrow(new DataAccessResourceFailureException("Elasticsearch is down")).when(mockUserSearchRepository).saveAll(anyIterable());
+
+        userSearchIndexingService.flush();
+
+        assertThat(userSearchOutboxRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void testFlushIsPausedWhileAnotherNodeRebuildsTheIndex() {
+        leaseIndex("other-node", Instant.now().plusSeconds(60));
+        try {
+            userSearchIndexingService.flush();
+
+            assertThat(userSearchOutboxRepository.count()).isEqualTo(1);
+        } finally {
+            leaseIndex(null, null);
+        }
+
+        userSearchIndexingService.flush();
+
+        assertThat(userSearchOutboxRepository.count()).isZero();
+    }
+
+    @Test
+    void testFlushResumesWhenTheLeaseOfAnotherNodeLapsed() {
+        leaseIndex("other-node", Instant.now().minusSeconds(1));
+        try {
+            userSearchIndexingService.flush();
+
+            assertThat(userSearchOutboxRepository.count()).isZero();
+        } finally {
+            leaseIndex(null, null);
+        }
+    }
+
+    @Test
+    void testFlushIsNotPausedOnTheRebuildingNode() {
+        userSearchIndexingService.startRecording();
+        try {
+            assertThat(searchReindexLockRepository.findById(UserSearchIndexingService.INDEX_NAME))
+                .hasValueSatisfying(reindexLock -> assertThat(reindexLock.getLockedUntil()).isAfter(Instant.now()));
+
+            userSearchIndexingService.flush();
+
+            assertThat(userSearchOutboxRepository.count()).isZero();
+        } finally {
+            assertThat(userSearchIndexingService.stopRecording()).containsExactly(user.getId());
+        }
+        assertThat(searchReindexLockRepository.findById(UserSearchIndexingService.INDEX_NAME))
+            .hasValueSatisfying(reindexLock -> assertThat(reindexLock.getNodeId()).isNull());
+    }
+
+    @Test
+    void testStartRecordingFailsWhileAnotherNodeRebuildsTheIndex() {
+        leaseIndex("other-node", Instant.now().plusSeconds(60));
+        try {
+            assertThatThrownBy(() -> userSearchIndexingService.startRecording()).isInstanceOf(IllegalStateException.class);
+
+            userSearchIndexingService.flush();
+
+            assertThat(userSearchOutboxRepository.count()).isEqualTo(1);
+        } finally {
+            leaseIndex(null, null);
+        }
+    }
+
+    @Test
+    void testFlushIndexesAtMostTheConfiguredNumberOfBatches() {
+        ApplicationProperties.SearchIndexing properties = applicationProperties.getSearchIndexing();
+        int batchSize = properties.getBatchSize();
+        int maxBatchesPerFlush = properties.getMaxBatchesPerFlush();
+        properties.setBatchSize(1);
+        properties.setMaxBatchesPerFlush(1);
+        userSearchOutboxRepository.saveAndFlush(new UserSearchOutboxEntry(user.getId()));
+        try {
+            userSearchIndexingService.flush();
+
+            assertThat(userSearchOutboxRepository.count()).isEqualTo(1);
+        } finally {
+            properties.setBatchSize(batchSize);
+            properties.setMaxBatchesPerFlush(maxBatchesPerFlush);
+        }
+    }
+
+    private void leaseIndex(String nodeId, Instant lockedUntil) {
+        SearchReindexLock reindexLock = searchReindexLockRepository
+            .findById(UserSearchIndexingService.INDEX_NAME)
+            .orElseGet(() -> new SearchReindexLock(UserSearchIndexingService.INDEX_NAME));
+        reindexLock.setNodeId(nodeId);
+        reindexLock.setLockedUntil(lockedUntil);
+        searchReindexLockRepository.saveAndFlush(reindexLock);
+    }
+}
@@ -0,0 +1,173 @@
+package org.codingspiderfox.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.codingspiderfox.domain.User;
+import org.codingspiderfox.domain.UserSuggestion;
+import org.codingspiderfox.repository.UserRepository;
+import org.codingspiderfox.service.dto.ReindexStatusDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.IndexOperations;
+import org.springframework.data.elasticsearch.core.index.AliasAction;
+import org.springframework.data.elasticsearch.core.index.AliasActions;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Test class for the {@link UserSearchReindexService} class.
+ */
+class UserSearchReindexServiceTest {
+
+    private static final String NEW_INDEX = "user-20261016120000";
+
+    private static final IndexCoordinates NEW_COORDINATES = IndexCoordinates.of(NEW_INDEX);
+
+    private static final IndexCoordinates NEW_SUGGESTION_COORDINATES = IndexCoordinates.of("user-suggestion-20261016120000");
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+
+    private final UserSearchIndexingService userSearchIndexingService = mock(UserSearchIndexingService.class);
+
+    private final ElasticsearchOperations elasticsearchOperations = mock(ElasticsearchOperations.class);
+
+    private final IndexOperations newIndexOperations = mock(IndexOperations.class);
+
+    private final IndexOperations aliasOperations = mock(IndexOperations.class);
+
+    private final IndexOperations previousIndexOperations = mock(IndexOperations.class);
+
+    private final IndexOperations newSuggestionIndexOperations = mock(IndexOperations.class);
+
+    private final IndexOperations suggestionAliasOperations = mock(IndexOperations.class);
+
+    private final IndexOperations previousSuggestionIndexOperations = mock(IndexOperations.class);
+
+    private final UserSearchReindexService service = new UserSearchReindexService(
+        userRepository,
+        userSearchIndexingService,
+        elasticsearchOperations,
+        mock(PlatformTransactionManager.class),
+        Runnable::run,
+        Clock.fixed(Instant.parse("2026-10-16T12:00:00Z"), ZoneOffset.UTC),
+        2
+    );
+
+    private final User first = user("a", true);
+
+    private final User second = user("b", false);
+
+    private final User third = user("c", true);
+
+    @BeforeEach
+    public void init() {
+        when(elasticsearchOperations.indexOps(NEW_COORDINATES)).thenReturn(newIndexOperations);
+        when(elasticsearchOperations.indexOps(IndexCoordinates.of(UserSearchReindexService.ALIAS))).thenReturn(aliasOperations);
+        when(elasticsearchOperations.indexOps(IndexCoordinates.of("user-previous"))).thenReturn(previousIndexOperations);
+        when(elasticsearchOperations.indexOps(NEW_SUGGESTION_COORDINATES)).thenReturn(newSuggestionIndexOperations);
+        when(elasticsearchOperations.indexOps(IndexCoordinates.of(UserSearchReindexService.SUGGESTION_ALIAS)))
+            .thenReturn(suggestionAliasOperations);
+        when(elasticsearchOperations.indexOps(IndexCoordinates.of("user-suggestion-previous")))
+            .thenReturn(previousSuggestionIndexOperations);
+        when(userRepository.count()).thenReturn(3L);
+        when(userRepository.findAllByIdGreaterThanOrderByIdAsc("", PageRequest.of(0, 2))).thenReturn(List.of(first, second));
+        when(userRepository.findAllByIdGreaterThanOrderByIdAsc("b", PageRequest.of(0, 2))).thenReturn(List.of(third));
+        when(userSearchIndexingService.stopRecording()).thenReturn(Set.of("b"));
+    }
+
+    @Test
+    void testReindexLoadsChunksAndSwapsAlias() {
+        when(aliasOperations.getAliases(UserSearchReindexService.ALIAS)).thenReturn(Map.of("user-previous", Set.of()));
+        when(suggestionAliasOperations.getAliases(UserSearchReindexService.SUGGESTION_ALIAS))
+            .thenReturn(Map.of("user-suggestion-previous", Set.of()));
+
+        assertThat(service.start()).isTrue();
+
+        verify(newIndexOperations).create();
+        verify(elasticsearchOperations).save(List.of(first, second), NEW_COORDINATES);
+        verify(elasticsearchOperations).save(List.of(third), NEW_COORDINATES);
+        ArgumentCaptor<AliasActions> aliasActions = ArgumentCaptor.forClass(AliasActions.class);
+        verify(aliasOperations).alias(aliasActions.capture());
+        assertThat(aliasActions.getValue().getActions())
+            .extracting(action -> action.getClass().getSimpleName())
+            .containsExactly("Add", "Remove", "Add", "Remove");
+        verify(userSearchIndexingService).enqueueAll(Set.of("b"));
+        verify(previousIndexOperations).delete();
+        verify(previousSuggestionIndexOperations).delete();
+        ReindexStatusDTO status = service.getStatus();
+        assertThat(status.getState()).isEqualTo(ReindexStatusDTO.State.COMPLETED);
+        assertThat(status.getIndex()).isEqualTo(NEW_INDEX);
+        assertThat(status.getIndexed()).isEqualTo(3);
+        assertThat(status.getTotal()).isEqualTo(3);
+    }
+
+    @Test
+    void testReindexReplacesLegacyConcreteIndex() {
+        when(aliasOperations.getAliases(UserSearchReindexService.ALIAS)).thenReturn(Map.of());
+        when(aliasOperations.exists()).thenReturn(true);
+        when(suggestionAliasOperations.exists()).thenReturn(true);
+
+        service.start();
+
+        ArgumentCaptor<AliasActions> aliasActions = ArgumentCaptor.forClass(AliasActions.class);
+        verify(aliasOperations).alias(aliasActions.capture());
+        assertThat(aliasActions.getValue().getActions())
+            .hasSize(4)
+            .filteredOn(action -> action instanceof AliasAction.RemoveIndex)
+            .hasSize(2);
+    }
+
+    @Test
+    void testReindexMakesExistingActivatedUsersSuggestible() {
+        service.start();
+
+        verify(newSuggestionIndexOperations).putMapping(any());
+        verify(elasticsearchOperations).save(List.of(new UserSuggestion(first)), NEW_SUGGESTION_COORDINATES);
+        verify(elasticsearchOperations).save(List.of(new UserSuggestion(third)), NEW_SUGGESTION_COORDINATES);
+        ArgumentCaptor<AliasActions> aliasActions = ArgumentCaptor.forClass(AliasActions.class);
+        verify(aliasOperations).alias(aliasActions.capture());
+        assertThat(aliasActions.getValue().getActions())
+            .filteredOn(action -> action instanceof AliasAction.Add)
+            .extracting(action -> action.getParameters().getAliases()[0], action -> action.getParameters().getIndices()[0])
+            .contains(tuple(UserSearchReindexService.SUGGESTION_ALIAS, "user-suggestion-20261016120000"));
+    }
+
+    @Test
+    void testReindexFailureDeletesNewIndex() {
+        when(elasticsearchOperations.save(eq(List.of(third)), any(IndexCoordinates.class))).thenThrow(new IllegalStateException("bulk failed"));
+
+        service.start();
+
+        verify(aliasOperations, never()).alias(any());
+        verify(newIndexOperations).delete();
+        verify(newSuggestionIndexOperations).delete();
+        verify(userSearchIndexingService, never()).enqueueAll(anyCollection());
+        assertThat(service.getStatus().getState()).isEqualTo(ReindexStatusDTO.State.FAILED);
+        assertThat(service.getStatus().getError()).isEqualTo("bulk failed");
+    }
+
+    private static User user(String id, boolean activated) {
+        User user = new User();
+        user.setId(id);
+        user.setLogin(id);
+        user.setActivated(activated);
+        return user;
+    }
+}
@@ -1,6 +1,7 @@
 package org.codingspiderfox.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -8,25 +9,37 @@ import static org.mockito.Mockito.verify;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import javax.persistence.EntityManagerFactory;
 import org.codingspiderfox.IntegrationTest;
 import org.codingspiderfox.config.Constants;
+import org.codingspiderfox.domain.Authority;
 import org.codingspiderfox.domain.User;
+import org.codingspiderfox.domain.UserSearchOutboxEntry;
+import org.codingspiderfox.repository.AuthorityRepository;
 import org.codingspiderfox.repository.UserRepository;
+import org.codingspiderfox.repository.UserSearchOutboxRepository;
 import org.codingspiderfox.repository.search.UserSearchRepository;
 import org.codingspiderfox.security.AuthoritiesConstants;
 import org.codingspiderfox.service.dto.AdminUserDTO;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
 import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
 import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
@@ -51,9 +64,21 @@ class UserServiceIT {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private UserSearchOutboxRepository userSearchOutboxRepository;
+
+    @Autowired
+    private AuthorityRepository authorityRepository;
+
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     /**
      * This repository is mocked in the org.codingspiderfox.repository.search test package.
      *
@@ -85,6 +110,11 @@ class UserServiceIT {
         userDetails.put("picture", DEFAULT_IMAGEURL);
     }
 
+    @AfterEach
+    public void cleanup() {
+        SecurityContextHolder.clearContext();
+    }
+
     @Test
     @Transactional
     void testDefaultUserDetails() {
@@ -157,8 +187,91 @@ class UserServiceIT {
         assertThat(userDTO.getLangKey()).isEqualTo("en");
     }
 
+    @Test
+    @Transactional
+    void testSyncWithUnchangedClaimsDoesNotUpdateUser() {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(DEFAULT_LOGIN, DEFAULT_LOGIN));
+        OAuth2AuthenticationToken authentication = createMockOAuth2AuthenticationToken(userDetails);
+        userService.getUserFromAuthentication(authentication);
+
+        userService.getUserFromAuthentication(authentication);
+
+        assertThat(userSearchOutboxRepository.findAll()).extracting(UserSearchOutboxEntry::getUserId).containsExactly(DEFAULT_LOGIN);
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void testCommittedSyncWithUnchangedClaimsRunsNoQuery() {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(DEFAULT_LOGIN, DEFAULT_LOGIN));
+        OAuth2AuthenticationToken authentication = createMockOAuth2AuthenticationToken(userDetails);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        try {
+            // commits, which records the fingerprint of the synced claims
+            userService.getUserFromAuthentication(authentication);
+            assertThat(cacheManager.getCache(UserService.USER_SYNC_FINGERPRINTS_CACHE).get(DEFAULT_LOGIN)).isNotNull();
+            statistics.setStatisticsEnabled(true);
+            statistics.clear();
+
+            userService.getUserFromAuthentication(authentication);
+
+            assertThat(statistics.getPrepareStatementCount()).isZero();
+            assertThat(userSearchOutboxRepository.findAll()).extracting(UserSearchOutboxEntry::getUserId).containsExactly(DEFAULT_LOGIN);
+        } finally {
+            statistics.setStatisticsEnabled(false);
+            userSearchOutboxRepository.deleteAll();
+            userRepository.findOneByLogin(DEFAULT_LOGIN).ifPresent(userRepository::delete);
+            cacheManager.getCache(UserService.USER_SYNC_FINGERPRINTS_CACHE).clear();
+            cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE).clear();
+            cacheManager.getCache(UserRepository.USERS_BY_EMAIL_CACHE).clear();
+        }
+    }
+
+    @Test
+    @Transactional
+    void testSyncWithChangedClaimsUpdatesUser() {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(DEFAULT_LOGIN, DEFAULT_LOGIN));
+        userService.getUserFromAuthentication(createMockOAuth2AuthenticationToken(userDetails));
+        userDetails.put("given_name", "jane");
+
+        AdminUserDTO userDTO = userService.getUserFromAuthentication(createMockOAuth2AuthenticationToken(userDetails));
+
+        assertThat(userDTO.getFirstName()).isEqualTo("jane");
+        assertThat(userRepository.findOneByLogin(DEFAULT_LOGIN)).get().extracting(User::getFirstName).isEqualTo("jane");
+        assertThat(userSearchOutboxRepository.findAll())
+            .extracting(UserSearchOutboxEntry::getUserId)
+            .containsExactly(DEFAULT_LOGIN, DEFAULT_LOGIN);
+        verify(mockUserSearchRepository, never()).save(any(User.class));
+    }
+
+    @Test
+    @Transactional
+    void testSyncRegistersUnseenAuthorities() {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(DEFAULT_LOGIN, DEFAULT_LOGIN));
+        Collection<GrantedAuthority> authorities = List.of(
+            new SimpleGrantedAuthority(AuthoritiesConstants.USER),
+            new SimpleGrantedAuthority("ROLE_TREASURER")
+        );
+
+        AdminUserDTO userDTO = userService.getUserFromAuthentication(createMockOAuth2AuthenticationToken(userDetails, authorities));
+
+        assertThat(userDTO.getAuthorities()).containsExactlyInAnyOrder(AuthoritiesConstants.USER, "ROLE_TREASURER");
+        assertThat(authorityRepository.existsById("ROLE_TREASURER")).isTrue();
+        assertThat(userRepository.findOneWithAuthoritiesByLogin(DEFAULT_LOGIN).orElseThrow().getAuthorities())
+            .extracting(Authority::getName)
+            .containsExactlyInAnyOrder(AuthoritiesConstants.USER, "ROLE_TREASURER");
+    }
+
     private OAuth2AuthenticationToken createMockOAuth2AuthenticationToken(Map<String, Object> userDetails) {
-        Collection<GrantedAuthority> authorities = Collections.singletonList(new SimpleGrantedAuthority(AuthoritiesConstants.ANONYMOUS));
+        return createMockOAuth2AuthenticationToken(
+            userDetails,
+            Collections.singletonList(new SimpleGrantedAuthority(AuthoritiesConstants.ANONYMOUS))
+        );
+    }
+
+    private OAuth2AuthenticationToken createMockOAuth2AuthenticationToken(
+        Map<String, Object> userDetails,
+        Collection<GrantedAuthority> authorities
+    ) {
         UsernamePasswordAuthenticationToken usernamePasswordAuthenticationToken = new UsernamePasswordAuthenticationToken(
             "anonymous",
             "anonymous",
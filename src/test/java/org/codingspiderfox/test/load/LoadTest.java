@@ -0,0 +1,19 @@
+package org.codingspiderfox.test.load;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+/**
+ * Composite annotation for load tests, which are skipped unless the {@code loadtest.enabled} system property is
+ * {@code true}, as it is with the {@code loadtest} Maven profile.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Tag("load")
+@EnabledIfSystemProperty(named = LoadTestRunner.ENABLED_PROPERTY, matches = "true")
+public @interface LoadTest {
+}
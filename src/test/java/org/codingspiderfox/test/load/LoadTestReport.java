@@ -0,0 +1,122 @@
+package org.codingspiderfox.test.load;
+
+import java.util.Arrays;
+
+/**
+ * Latency percentiles and throughput of a load test scenario, in milliseconds and requests per second, along with what
+ * the latency of a request measures.
+ */
+public class LoadTestReport {
+
+    private static final double NANOS_PER_MILLI = 1_000_000d;
+
+    private final String name;
+
+    private final String measured;
+
+    private final int concurrency;
+
+    private final int requests;
+
+    private final int errors;
+
+    private final String firstError;
+
+    private final double p50;
+
+    private final double p99;
+
+    private final double max;
+
+    private final double throughput;
+
+    public LoadTestReport(
+        String name,
+        String measured,
+        int concurrency,
+        long[] latencyNanos,
+        int errors,
+        String firstError,
+        long elapsedNanos
+    ) {
+        long[] sorted = latencyNanos.clone();
+        Arrays.sort(sorted);
+        this.name = name;
+        this.measured = measured;
+        this.concurrency = concurrency;
+        this.requests = sorted.length;
+        this.errors = errors;
+        this.firstError = firstError;
+        this.p50 = percentile(sorted, 50) / NANOS_PER_MILLI;
+        this.p99 = percentile(sorted, 99) / NANOS_PER_MILLI;
+        this.max = (sorted.length == 0 ? 0 : sorted[sorted.length - 1]) / NANOS_PER_MILLI;
+        this.throughput = elapsedNanos == 0 ? 0 : sorted.length * 1_000_000_000d / elapsedNanos;
+    }
+
+    /**
+     * Nearest-rank percentile: the smallest latency that is greater than or equal to the given percentage of them.
+     */
+    static long percentile(long[] sorted, double percentage) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentage / 100 * sorted.length);
+        return sorted[Math.max(rank, 1) - 1];
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getMeasured() {
+        return measured;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public int getRequests() {
+        return requests;
+    }
+
+    public int getErrors() {
+        return errors;
+    }
+
+    public String getFirstError() {
+        return firstError;
+    }
+
+    public double getP50() {
+        return p50;
+    }
+
+    public double getP99() {
+        return p99;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    public double getThroughput() {
+        return throughput;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+            "%s (%s): %d requests at concurrency %d, %d errors, p50 %.2f ms, p99 %.2f ms, max %.2f ms, %.1f requests/s",
+            name,
+            measured,
+            requests,
+            concurrency,
+            errors,
+            p50,
+            p99,
+            max,
+            throughput
+        );
+    }
+}
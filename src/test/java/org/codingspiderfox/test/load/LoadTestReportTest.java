@@ -0,0 +1,36 @@
+package org.codingspiderfox.test.load;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the {@link LoadTestReport} class.
+ */
+class LoadTestReportTest {
+
+    @Test
+    void testPercentilesUseNearestRank() {
+        long[] latencies = new long[100];
+        for (int i = 0; i < latencies.length; i++) {
+            // in reverse order, the report sorts them
+            latencies[i] = (100 - i) * 1_000_000L;
+        }
+
+        LoadTestReport report = new LoadTestReport("test", "the test request", 4, latencies, 0, null, 2_000_000_000L);
+
+        assertThat(report.getP50()).isEqualTo(50);
+        assertThat(report.getP99()).isEqualTo(99);
+        assertThat(report.getMax()).isEqualTo(100);
+        assertThat(report.getThroughput()).isEqualTo(50);
+    }
+
+    @Test
+    void testEmptyRun() {
+        LoadTestReport report = new LoadTestReport("test", "the test request", 4, new long[0], 0, null, 0);
+
+        assertThat(report.getP99()).isZero();
+        assertThat(report.getMax()).isZero();
+        assertThat(report.getThroughput()).isZero();
+    }
+}
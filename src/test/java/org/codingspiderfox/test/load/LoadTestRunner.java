@@ -0,0 +1,154 @@
+package org.codingspiderfox.test.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs a request a given number of times from a pool of concurrent workers, after a warm-up, and reports the latency
+ * percentiles and the throughput.
+ * <p>
+ * The load is configured with system properties:
+ * <ul>
+ *     <li>{@code loadtest.concurrency}: the number of concurrent workers, 8 by default;</li>
+ *     <li>{@code loadtest.requests}: the number of measured requests of each scenario, 2000 by default;</li>
+ *     <li>{@code loadtest.warmup-requests}: the number of requests run before measuring, 200 by default;</li>
+ *     <li>{@code loadtest.report-directory}: where the JSON reports are written, {@code target/load-test} by default.</li>
+ * </ul>
+ */
+public final class LoadTestRunner {
+
+    public static final String ENABLED_PROPERTY = "loadtest.enabled";
+
+    private static final Logger log = LoggerFactory.getLogger(LoadTestRunner.class);
+
+    private final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private final int concurrency;
+
+    private final int requests;
+
+    private final int warmupRequests;
+
+    private final Path reportDirectory;
+
+    public LoadTestRunner(int concurrency, int requests, int warmupRequests, Path reportDirectory) {
+        this.concurrency = concurrency;
+        this.requests = requests;
+        this.warmupRequests = warmupRequests;
+        this.reportDirectory = reportDirectory;
+    }
+
+    public static LoadTestRunner fromSystemProperties() {
+        return new LoadTestRunner(
+            Integer.getInteger("loadtest.concurrency", 8),
+            Integer.getInteger("loadtest.requests", 2000),
+            Integer.getInteger("loadtest.warmup-requests", 200),
+            Paths.get(System.getProperty("loadtest.report-directory", "target/load-test"))
+        );
+    }
+
+    /**
+     * A request of a scenario.
+     */
+    @FunctionalInterface
+    public interface Request {
+        /**
+         * Sends a request and checks its response.
+         *
+         * @param index the index of the request in the run, for instance to vary the parameters.
+         * @throws Exception if the request failed, which is counted as an error.
+         */
+        void execute(int index) throws Exception;
+    }
+
+    /**
+     * Runs a scenario, then logs its report and writes it to {@code <report-directory>/<name>.json}.
+     *
+     * @param name the name of the scenario.
+     * @param measured what the latency of a request measures, stated in the report.
+     * @param request the request to run.
+     * @return the report of the measured requests.
+     * @throws InterruptedException if interrupted while waiting for the workers.
+     */
+    public LoadTestReport run(String name, String measured, Request request) throws InterruptedException {
+        execute(request, new long[warmupRequests], new AtomicInteger(), new AtomicReference<>());
+
+        long[] latencies = new long[requests];
+        AtomicInteger errors = new AtomicInteger();
+        AtomicReference<Throwable> firstError = new AtomicReference<>();
+        long start = System.nanoTime();
+        execute(request, latencies, errors, firstError);
+        long elapsed = System.nanoTime() - start;
+
+        LoadTestReport report = new LoadTestReport(
+            name,
+            measured,
+            concurrency,
+            latencies,
+            errors.get(),
+            firstError.get() != null ? firstError.get().toString() : null,
+            elapsed
+        );
+        log.info("{}", report);
+        write(report);
+        return report;
+    }
+
+    private void execute(Request request, long[] latencies, AtomicInteger errors, AtomicReference<Throwable> firstError)
+        throws InterruptedException {
+        AtomicInteger next = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        try {
+            for (int worker = 0; worker < concurrency; worker++) {
+                workers.execute(() -> {
+                    try {
+                        started.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    int index;
+                    while ((index = next.getAndIncrement()) < latencies.length) {
+                        long requestStart = System.nanoTime();
+                        try {
+                            request.execute(index);
+                        } catch (Exception | AssertionError e) {
+                            errors.incrementAndGet();
+                            firstError.compareAndSet(null, e);
+                        }
+                        latencies[index] = System.nanoTime() - requestStart;
+                    }
+                });
+            }
+            started.countDown();
+        } finally {
+            workers.shutdown();
+        }
+        if (!workers.awaitTermination(1, TimeUnit.HOURS)) {
+            workers.shutdownNow();
+            throw new IllegalStateException("The load test did not complete within an hour");
+        }
+    }
+
+    private void write(LoadTestReport report) {
+        try {
+            Files.createDirectories(reportDirectory);
+            objectMapper.writeValue(reportDirectory.resolve(report.getName() + ".json").toFile(), report);
+        } catch (IOException e) {
+            log.warn("Could not write the report of {}: {}", report.getName(), e.getMessage());
+        }
+    }
+}
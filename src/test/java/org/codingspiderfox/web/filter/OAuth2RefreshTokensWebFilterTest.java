@@ -0,0 +1,199 @@
+package org.codingspiderfox.web.filter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.codingspiderfox.config.ApplicationProperties;
+import org.codingspiderfox.test.util.OAuth2TestUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.client.OAuth2AuthorizeRequest;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClientManager;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.client.registration.InMemoryClientRegistrationRepository;
+import org.springframework.security.oauth2.client.web.OAuth2AuthorizedClientRepository;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+
+/**
+ * Test class for the {@link OAuth2RefreshTokensWebFilter} class.
+ */
+class OAuth2RefreshTokensWebFilterTest {
+
+    private static final ClientRegistration CLIENT_REGISTRATION = ClientRegistration
+        .withRegistrationId("oidc")
+        .clientId("web_app")
+        .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+        .redirectUri("{baseUrl}/login/oauth2/code/{registrationId}")
+        .authorizationUri("http://localhost:9080/auth")
+        .tokenUri("http://localhost:9080/token")
+        .build();
+
+    private OAuth2AuthorizedClientManager clientManager;
+
+    private OAuth2AuthorizedClientRepository authorizedClientRepository;
+
+    private OAuth2RefreshTokensWebFilter filter;
+
+    private OAuth2AuthenticationToken authentication;
+
+    private MockHttpSession session;
+
+    @BeforeEach
+    public void setup() {
+        clientManager = mock(OAuth2AuthorizedClientManager.class);
+        authorizedClientRepository = mock(OAuth2AuthorizedClientRepository.class);
+        filter =
+            new OAuth2RefreshTokensWebFilter(
+                clientManager,
+                authorizedClientRepository,
+                new InMemoryClientRegistrationRepository(CLIENT_REGISTRATION),
+                new ApplicationProperties()
+            );
+        authentication = OAuth2TestUtil.testAuthenticationToken();
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+        session = new MockHttpSession();
+    }
+
+    @AfterEach
+    public void teardown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testFreshTokenSkipsAuthorization() throws Exception {
+        when(clientManager.authorize(any())).thenReturn(authorizedClient(Instant.now().plusSeconds(3600)));
+
+        doFilter();
+        doFilter();
+
+        verify(clientManager, times(1)).authorize(any(OAuth2AuthorizeRequest.class));
+        assertThat(session.getAttribute(OAuth2RefreshTokensWebFilter.ACCESS_TOKEN_EXPIRES_AT)).isNotNull();
+    }
+
+    @Test
+    void testTokenWithinSkewIsRefreshed() throws Exception {
+        // the default skew is 60 seconds
+        when(clientManager.authorize(any())).thenReturn(authorizedClient(Instant.now().plusSeconds(30)));
+
+        doFilter();
+        doFilter();
+
+        verify(clientManager, times(2)).authorize(any(OAuth2AuthorizeRequest.class));
+    }
+
+    @Test
+    void testExpiryOfAnotherPrincipalDoesNotSkipAuthorization() throws Exception {
+        when(clientManager.authorize(any())).thenReturn(authorizedClient(Instant.now().plusSeconds(3600)));
+        doFilter();
+
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("preferred_username", "jane");
+        SecurityContextHolder.getContext().setAuthentication(OAuth2TestUtil.authenticationToken(claims));
+        doFilter();
+
+        verify(clientManager, times(2)).authorize(any(OAuth2AuthorizeRequest.class));
+    }
+
+    @Test
+    void testFailedAuthorizationClearsExpiry() throws Exception {
+        when(clientManager.authorize(any()))
+            .thenReturn(authorizedClient(Instant.now().plusSeconds(30)))
+            .thenThrow(new IllegalStateException("refresh token expired"));
+
+        doFilter();
+        assertThat(session.getAttribute(OAuth2RefreshTokensWebFilter.ACCESS_TOKEN_EXPIRES_AT)).isNotNull();
+
+        MockFilterChain filterChain = doFilter();
+        assertThat(session.getAttribute(OAuth2RefreshTokensWebFilter.ACCESS_TOKEN_EXPIRES_AT)).isNull();
+        assertThat(filterChain.getRequest()).isNotNull();
+    }
+
+    @Test
+    void testConcurrentRequestsShareOneAuthorization() throws Exception {
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLeader = new CountDownLatch(1);
+        when(clientManager.authorize(any()))
+            .thenAnswer(invocation -> {
+                leaderStarted.countDown();
+                releaseLeader.await(10, TimeUnit.SECONDS);
+                return authorizedClient(Instant.now().plusSeconds(3600));
+            });
+
+        Thread leader = requestThread();
+        leader.start();
+        assertThat(leaderStarted.await(10, TimeUnit.SECONDS)).isTrue();
+
+        List<Thread> followers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Thread follower = requestThread();
+            followers.add(follower);
+            follower.start();
+        }
+        // the followers wait for the leader's authorization to complete
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (
+            followers.stream().anyMatch(follower -> follower.getState() != Thread.State.TIMED_WAITING) &&
+            System.currentTimeMillis() < deadline
+        ) {
+            Thread.sleep(10);
+        }
+        releaseLeader.countDown();
+        leader.join(10_000);
+        for (Thread follower : followers) {
+            follower.join(10_000);
+        }
+
+        verify(clientManager, times(1)).authorize(any(OAuth2AuthorizeRequest.class));
+    }
+
+    private Thread requestThread() {
+        return new Thread(() -> {
+            SecurityContextHolder.getContext().setAuthentication(authentication);
+            try {
+                doFilter();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            } finally {
+                SecurityContextHolder.clearContext();
+            }
+        });
+    }
+
+    private MockFilterChain doFilter() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/account");
+        request.setSession(session);
+        MockFilterChain filterChain = new MockFilterChain();
+        filter.doFilter(request, new MockHttpServletResponse(), filterChain);
+        return filterChain;
+    }
+
+    private OAuth2AuthorizedClient authorizedClient(Instant expiresAt) {
+        OAuth2AccessToken accessToken = new OAuth2AccessToken(
+            OAuth2AccessToken.TokenType.BEARER,
+            "token",
+            Instant.now(),
+            expiresAt
+        );
+        return new OAuth2AuthorizedClient(CLIENT_REGISTRATION, authentication.getName(), accessToken);
+    }
+}
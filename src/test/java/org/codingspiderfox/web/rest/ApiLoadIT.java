@@ -0,0 +1,265 @@
+package org.codingspiderfox.web.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.codingspiderfox.config.WebsocketConfiguration.IP_ADDRESS;
+import static org.codingspiderfox.test.util.OAuth2TestUtil.TEST_USER_LOGIN;
+import static org.codingspiderfox.test.util.OAuth2TestUtil.registerAuthenticationToken;
+import static org.codingspiderfox.test.util.OAuth2TestUtil.testAuthenticationToken;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.codingspiderfox.IntegrationTest;
+import org.codingspiderfox.domain.User;
+import org.codingspiderfox.repository.UserRepository;
+import org.codingspiderfox.repository.search.UserSearchRepository;
+import org.codingspiderfox.security.AuthoritiesConstants;
+import org.codingspiderfox.test.load.LoadTest;
+import org.codingspiderfox.test.load.LoadTestReport;
+import org.codingspiderfox.test.load.LoadTestRunner;
+import org.codingspiderfox.web.websocket.PresenceRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.annotation.support.SimpAnnotationMethodMessageHandler;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.client.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClientService;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.util.MimeTypeUtils;
+
+/**
+ * Load tests of the REST API and of the websocket tracker, run with the {@code loadtest} Maven profile.
+ * <p>
+ * The requests go through the whole Spring MVC and Spring Security stack, against H2, or PostgreSQL with the
+ * {@code testcontainers} Spring profile, and the mocked Elasticsearch repositories. The tracker messages are sent to
+ * the inbound channel of the STOMP broker, past the websocket transport, and a tracker request lasts until the message
+ * handler has updated the presence registry, not just until the message is queued. Each test fails if a request fails,
+ * or if the p99 latency is above {@code loadtest.p99-budget-ms} when it is set.
+ */
+@AutoConfigureMockMvc
+@IntegrationTest
+@LoadTest
+class ApiLoadIT {
+
+    private static final int USERS = Integer.getInteger("loadtest.users", 200);
+
+    private static final int TRACKER_SESSIONS = Integer.getInteger("loadtest.tracker-sessions", 500);
+
+    private static final Double P99_BUDGET_MS = Double.valueOf(System.getProperty("loadtest.p99-budget-ms", "NaN"));
+
+    private static final String REST_MEASURED = "from the request to the checked response, through Spring MVC and Spring Security";
+
+    private static final String TRACKER_MEASURED =
+        "from the send to the STOMP inbound channel to the presence registry update by the message handler";
+
+    private static final String LOAD_INDEX_HEADER = "loadTestIndex";
+
+    private static final long TRACKER_TIMEOUT_SECONDS = 10;
+
+    private final LoadTestRunner runner = LoadTestRunner.fromSystemProperties();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    /**
+     * This repository is mocked in the org.codingspiderfox.repository.search test package.
+     *
+     * @see org.codingspiderfox.repository.search.UserSearchRepositoryMockConfiguration
+     */
+    @Autowired
+    private UserSearchRepository mockUserSearchRepository;
+
+    @Autowired
+    private OAuth2AuthorizedClientService authorizedClientService;
+
+    @Autowired
+    private ClientRegistration clientRegistration;
+
+    @Autowired
+    @Qualifier("clientInboundChannel")
+    private MessageChannel clientInboundChannel;
+
+    @Autowired
+    private PresenceRegistry presenceRegistry;
+
+    private final List<User> users = new ArrayList<>();
+
+    @BeforeEach
+    public void initTest() {
+        for (int i = 0; i < USERS; i++) {
+            User user = UserResourceIT.createEntity(null);
+            user.setLogin("load-" + i + "-" + user.getLogin().toLowerCase());
+            users.add(user);
+        }
+        userRepository.saveAll(users);
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        userRepository.deleteAll(users);
+        userRepository.findOneByLogin(TEST_USER_LOGIN).ifPresent(userRepository::delete);
+    }
+
+    @Test
+    void account() throws Exception {
+        OAuth2AuthenticationToken token = registerAuthenticationToken(
+            authorizedClientService,
+            clientRegistration,
+            testAuthenticationToken()
+        );
+        // the first request creates the user, which concurrent requests would race for
+        mockMvc.perform(get("/api/account").with(authentication(token))).andExpect(status().isOk());
+
+        assertWithinBudget(
+            runner.run(
+                "account",
+                REST_MEASURED,
+                index ->
+                    mockMvc
+                        .perform(get("/api/account").with(authentication(token)).accept(MediaType.APPLICATION_JSON))
+                        .andExpect(status().isOk())
+            )
+        );
+    }
+
+    @Test
+    void users() throws Exception {
+        int pages = Math.max(1, USERS / 20);
+        assertWithinBudget(
+            runner.run(
+                "users",
+                REST_MEASURED,
+                index ->
+                    mockMvc
+                        .perform(
+                            get("/api/users?page={page}&size=20&sort=id,asc", index % pages)
+                                .with(user("user").authorities(new SimpleGrantedAuthority(AuthoritiesConstants.USER)))
+                                .accept(MediaType.APPLICATION_JSON)
+                        )
+                        .andExpect(status().isOk())
+            )
+        );
+    }
+
+    @Test
+    void searchUsers() throws Exception {
+        when(mockUserSearchRepository.search(anyString(), any(Pageable.class)))
+            .thenReturn(new PageImpl<>(users.subList(0, Math.min(20, users.size())), PageRequest.of(0, 20), users.size()));
+
+        assertWithinBudget(
+            runner.run(
+                "search-users",
+                REST_MEASURED,
+                index ->
+                    mockMvc
+                        .perform(
+                            get("/api/_search/users/{query}?page=0&size=20", "load-" + (index % USERS))
+                                .with(user("user").authorities(new SimpleGrantedAuthority(AuthoritiesConstants.USER)))
+                                .accept(MediaType.APPLICATION_JSON)
+                        )
+                        .andExpect(status().isOk())
+            )
+        );
+    }
+
+    @Test
+    void tracker() throws Exception {
+        // the messages are handled asynchronously by the inbound channel, each request waits for its own to be handled
+        Map<Integer, CompletableFuture<Void>> pendingActivities = new ConcurrentHashMap<>();
+        ExecutorChannelInterceptor registryUpdated = new ExecutorChannelInterceptor() {
+            @Override
+            public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+                Integer index = message.getHeaders().get(LOAD_INDEX_HEADER, Integer.class);
+                if (index == null || !(handler instanceof SimpAnnotationMethodMessageHandler)) {
+                    return;
+                }
+                CompletableFuture<Void> handled = pendingActivities.remove(index);
+                if (handled != null && ex != null) {
+                    handled.completeExceptionally(ex);
+                } else if (handled != null) {
+                    handled.complete(null);
+                }
+            }
+        };
+        ExecutorSubscribableChannel inboundChannel = (ExecutorSubscribableChannel) clientInboundChannel;
+        inboundChannel.addInterceptor(registryUpdated);
+        try {
+            LoadTestReport report = runner.run(
+                "tracker",
+                TRACKER_MEASURED,
+                index -> {
+                    CompletableFuture<Void> handled = new CompletableFuture<>();
+                    pendingActivities.put(index, handled);
+                    if (!inboundChannel.send(activity(index))) {
+                        throw new IllegalStateException("The tracker message was not accepted");
+                    }
+                    handled.get(TRACKER_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                }
+            );
+            assertWithinBudget(report);
+            assertThat(presenceRegistry.getSessionCount()).isGreaterThanOrEqualTo(Math.min(TRACKER_SESSIONS, report.getRequests()));
+        } finally {
+            inboundChannel.removeInterceptor(registryUpdated);
+            for (int session = 0; session < TRACKER_SESSIONS; session++) {
+                presenceRegistry.remove("load-" + session);
+            }
+        }
+    }
+
+    private static Message<byte[]> activity(int index) {
+        int session = index % TRACKER_SESSIONS;
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SEND);
+        accessor.setDestination("/topic/activity");
+        accessor.setSessionId("load-" + session);
+        Map<String, Object> sessionAttributes = new HashMap<>();
+        sessionAttributes.put(IP_ADDRESS, "127.0.0.1");
+        accessor.setSessionAttributes(sessionAttributes);
+        accessor.setUser(
+            new UsernamePasswordAuthenticationToken("load-" + session, null, List.of(new SimpleGrantedAuthority(AuthoritiesConstants.USER)))
+        );
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setHeader(LOAD_INDEX_HEADER, index);
+        byte[] payload = ("{\"page\":\"page-" + index + "\"}").getBytes(StandardCharsets.UTF_8);
+        return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+    }
+
+    private static void assertWithinBudget(LoadTestReport report) {
+        assertThat(report.getErrors()).as("errors, first one: %s", report.getFirstError()).isZero();
+        if (!P99_BUDGET_MS.isNaN()) {
+            assertThat(report.getP99()).as("p99 latency in ms of %s", report.getName()).isLessThanOrEqualTo(P99_BUDGET_MS);
+        }
+    }
+}
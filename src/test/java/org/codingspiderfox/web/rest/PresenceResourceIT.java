@@ -0,0 +1,71 @@
+package org.codingspiderfox.web.rest;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.time.Instant;
+import org.codingspiderfox.IntegrationTest;
+import org.codingspiderfox.security.AuthoritiesConstants;
+import org.codingspiderfox.web.websocket.PresenceRegistry;
+import org.codingspiderfox.web.websocket.dto.ActivityDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Integration tests for the {@link PresenceResource} REST controller.
+ */
+@AutoConfigureMockMvc
+@IntegrationTest
+class PresenceResourceIT {
+
+    private static final String SESSION_ID = "presence-session";
+
+    private static final String USER_LOGIN = "presence-user";
+
+    @Autowired
+    private PresenceRegistry presenceRegistry;
+
+    @Autowired
+    private MockMvc restPresenceMockMvc;
+
+    @BeforeEach
+    public void init() {
+        ActivityDTO activity = new ActivityDTO();
+        activity.setSessionId(SESSION_ID);
+        activity.setUserLogin(USER_LOGIN);
+        activity.setIpAddress("127.0.0.1");
+        activity.setPage("/home");
+        activity.setTime(Instant.now());
+        presenceRegistry.update(activity);
+    }
+
+    @AfterEach
+    public void cleanup() {
+        presenceRegistry.remove(SESSION_ID);
+    }
+
+    @Test
+    @WithMockUser(authorities = AuthoritiesConstants.ADMIN)
+    void testGetPresenceReturnsTheOpenSessions() throws Exception {
+        restPresenceMockMvc
+            .perform(get("/api/admin/presence").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(jsonPath("$.[*].sessionId").value(hasItem(SESSION_ID)))
+            .andExpect(jsonPath("$.[*].userLogin").value(hasItem(USER_LOGIN)))
+            .andExpect(jsonPath("$.[*].page").value(hasItem("/home")));
+    }
+
+    @Test
+    @WithMockUser(authorities = AuthoritiesConstants.USER)
+    void testGetPresenceIsForbiddenToUsers() throws Exception {
+        restPresenceMockMvc.perform(get("/api/admin/presence").accept(MediaType.APPLICATION_JSON)).andExpect(status().isForbidden());
+    }
+}
@@ -1,22 +1,36 @@
 package org.codingspiderfox.web.rest;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasItems;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
+import java.util.Collections;
 import javax.persistence.EntityManager;
 import org.codingspiderfox.IntegrationTest;
 import org.codingspiderfox.config.TestSecurityConfiguration;
 import org.codingspiderfox.domain.User;
+import org.codingspiderfox.domain.UserSuggestion;
 import org.codingspiderfox.repository.UserRepository;
 import org.codingspiderfox.repository.search.UserSearchRepository;
+import org.codingspiderfox.repository.search.UserSuggestionSearchRepository;
 import org.codingspiderfox.security.AuthoritiesConstants;
+import org.codingspiderfox.service.UserSuggestionService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
@@ -43,6 +57,9 @@ class PublicUserResourceIT {
     @Autowired
     private UserSearchRepository mockUserSearchRepository;
 
+    @Autowired
+    private UserSuggestionSearchRepository mockUserSuggestionSearchRepository;
+
     @Autowired
     private EntityManager em;
 
@@ -58,6 +75,7 @@ class PublicUserResourceIT {
     public void setup() {
         cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE).clear();
         cacheManager.getCache(UserRepository.USERS_BY_EMAIL_CACHE).clear();
+        cacheManager.getCache(UserSuggestionService.USER_SUGGESTIONS_CACHE).clear();
     }
 
     @BeforeEach
@@ -82,6 +100,65 @@ class PublicUserResourceIT {
             .andExpect(jsonPath("$.[*].langKey").doesNotExist());
     }
 
+    @Test
+    @Transactional
+    void getAllPublicUsersByKeyset() throws Exception {
+        // Initialize the database
+        userRepository.saveAndFlush(user);
+
+        // Get the first page of users
+        restUserMockMvc
+            .perform(get("/api/users?cursor=&sort=login,asc&size=1000").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(jsonPath("$.[*].login").value(hasItem(DEFAULT_LOGIN)))
+            .andExpect(jsonPath("$.[*].email").doesNotExist())
+            .andExpect(header().doesNotExist(HttpHeaders.LINK));
+    }
+
+    @Test
+    @Transactional
+    void getUsersByLoginsAndIds() throws Exception {
+        // Initialize the database
+        userRepository.saveAndFlush(user);
+
+        // Get the user by login, by id and by an unknown login
+        restUserMockMvc
+            .perform(
+                get("/api/users/_batch")
+                    .param("login", DEFAULT_LOGIN, "unknown")
+                    .param("id", user.getId())
+                    .accept(MediaType.APPLICATION_JSON)
+            )
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$[0].login").value(DEFAULT_LOGIN));
+
+        assertThat(cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE).get(DEFAULT_LOGIN)).isNotNull();
+    }
+
+    @Test
+    @Transactional
+    void getUsersByLoginsAndIdsSkipsDeactivatedUsers() throws Exception {
+        // Initialize the database
+        user.setActivated(false);
+        userRepository.saveAndFlush(user);
+
+        // Get the deactivated user by login and by id
+        restUserMockMvc
+            .perform(get("/api/users/_batch").param("login", DEFAULT_LOGIN).param("id", user.getId()).accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(0));
+
+        // A deactivated user already cached by login is not served either
+        userRepository.findOneWithAuthoritiesByLogin(DEFAULT_LOGIN);
+        assertThat(cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE).get(DEFAULT_LOGIN)).isNotNull();
+        restUserMockMvc
+            .perform(get("/api/users/_batch").param("login", DEFAULT_LOGIN).accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(0));
+    }
+
     @Test
     @Transactional
     void getAllAuthorities() throws Exception {
@@ -90,6 +167,55 @@ class PublicUserResourceIT {
             .andExpect(status().isOk())
             .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
             .andExpect(jsonPath("$").isArray())
-            .andExpect(jsonPath("$").value(hasItems(AuthoritiesConstants.USER, AuthoritiesConstants.ADMIN)));
+            .andExpect(jsonPath("$").value(hasItems(AuthoritiesConstants.USER, AuthoritiesConstants.ADMIN)))
+            .andExpect(header().exists(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void getAllAuthoritiesNotModified() throws Exception {
+        String eTag = restUserMockMvc
+            .perform(get("/api/authorities").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.ETAG);
+
+        restUserMockMvc
+            .perform(get("/api/authorities").accept(MediaType.APPLICATION_JSON).header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void searchUsers() throws Exception {
+        when(mockUserSearchRepository.search(eq("john"), any(Pageable.class)))
+            .thenReturn(new PageImpl<>(Collections.singletonList(user), PageRequest.of(0, 1), 3));
+
+        restUserMockMvc
+            .perform(get("/api/_search/users/john?page=0&size=1").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(header().string("X-Total-Count", "3"))
+            .andExpect(jsonPath("$.[*].login").value(hasItem(DEFAULT_LOGIN)))
+            .andExpect(jsonPath("$.[*].email").doesNotExist());
+    }
+
+    @Test
+    void suggestUsers() throws Exception {
+        user.setId("suggested-user");
+        when(mockUserSuggestionSearchRepository.suggest("jo d", 5)).thenReturn(Collections.singletonList(new UserSuggestion(user)));
+
+        restUserMockMvc
+            .perform(get("/api/_suggest/users?prefix=Jo D&size=5").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(jsonPath("$.[*].login").value(hasItem(DEFAULT_LOGIN)))
+            .andExpect(jsonPath("$.[*].firstName").doesNotExist());
+
+        restUserMockMvc
+            .perform(get("/api/_suggest/users?prefix=  jo   d &size=5").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].login").value(hasItem(DEFAULT_LOGIN)));
+
+        verify(mockUserSuggestionSearchRepository, times(1)).suggest("jo d", 5);
     }
 }
@@ -1,34 +1,47 @@
 package org.codingspiderfox.web.rest;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasItems;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.startsWith;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
+import com.jayway.jsonpath.JsonPath;
+import java.net.URI;
 import java.time.Instant;
 import java.util.*;
 import java.util.function.Consumer;
 import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.codingspiderfox.IntegrationTest;
 import org.codingspiderfox.domain.Authority;
 import org.codingspiderfox.domain.User;
+import org.codingspiderfox.repository.AuthorityRepository;
 import org.codingspiderfox.repository.UserRepository;
 import org.codingspiderfox.repository.search.UserSearchRepository;
 import org.codingspiderfox.security.AuthoritiesConstants;
+import org.codingspiderfox.service.AuthorityRegistry;
 import org.codingspiderfox.service.dto.AdminUserDTO;
 import org.codingspiderfox.service.dto.UserDTO;
 import org.codingspiderfox.service.mapper.UserMapper;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
@@ -67,9 +80,18 @@ class UserResourceIT {
     @Autowired
     private UserMapper userMapper;
 
+    @Autowired
+    private AuthorityRepository authorityRepository;
+
+    @Autowired
+    private AuthorityRegistry authorityRegistry;
+
     @Autowired
     private EntityManager em;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     @Autowired
     private CacheManager cacheManager;
 
@@ -137,6 +159,226 @@ class UserResourceIT {
             .andExpect(jsonPath("$.[*].langKey").value(hasItem(DEFAULT_LANGKEY)));
     }
 
+    @Test
+    @Transactional
+    void getAllUsersWithAuthorities() throws Exception {
+        // Initialize the database
+        Authority authority = new Authority();
+        authority.setName(AuthoritiesConstants.USER);
+        user.setAuthorities(Set.of(authority));
+        userRepository.saveAndFlush(user);
+        em.clear();
+
+        // Get all the users, whose authorities are fetched from the join table
+        restUserMockMvc
+            .perform(get("/api/admin/users?sort=id,desc").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$[?(@.login == '" + DEFAULT_LOGIN + "')].authorities[*]").value(hasItem(AuthoritiesConstants.USER)));
+    }
+
+    @Test
+    @Transactional
+    void getAllUsersRunsTheSameQueriesWhateverThePageSize() throws Exception {
+        // Initialize the database with more users than the largest page
+        Authority authority = new Authority();
+        authority.setName(AuthoritiesConstants.USER);
+        for (int i = 0; i < 10; i++) {
+            User other = createEntity(em);
+            other.setAuthorities(Set.of(authority));
+            userRepository.save(other);
+        }
+        userRepository.flush();
+        em.clear();
+
+        long smallPageQueries = countQueries("/api/admin/users?sort=id,desc&size=1", 1);
+        long largePageQueries = countQueries("/api/admin/users?sort=id,desc&size=10", 10);
+
+        // The page, its count and the authorities of its users
+        assertThat(smallPageQueries).isEqualTo(3);
+        assertThat(largePageQueries).isEqualTo(smallPageQueries);
+    }
+
+    private long countQueries(String url, int pageSize) throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        try {
+            restUserMockMvc
+                .perform(get(url).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(pageSize)));
+            return statistics.getPrepareStatementCount();
+        } finally {
+            statistics.setStatisticsEnabled(false);
+            em.clear();
+        }
+    }
+
+    @Test
+    @Transactional
+    void getAllUsersByKeyset() throws Exception {
+        // Initialize the database
+        userRepository.saveAndFlush(user);
+        User other = createEntity(em);
+        other.setLogin("keyset-user");
+        userRepository.saveAndFlush(other);
+        long userCount = userRepository.count();
+
+        // Follow the next links one user at a time
+        List<String> logins = new ArrayList<>();
+        String next = "/api/admin/users?cursor=&size=1&sort=login,asc&count=exact";
+        while (next != null) {
+            MockHttpServletResponse response = restUserMockMvc
+                .perform(get(URI.create(next)).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(header().string("X-Total-Count", Long.toString(userCount)))
+                .andReturn()
+                .getResponse();
+            logins.add(JsonPath.read(response.getContentAsString(), "$[0].login"));
+            String link = response.getHeader(HttpHeaders.LINK);
+            next = link == null ? null : link.substring(link.indexOf('<') + 1, link.indexOf('>'));
+        }
+
+        assertThat(logins).hasSize((int) userCount).isSorted().contains(DEFAULT_LOGIN, "keyset-user");
+    }
+
+    @Test
+    @Transactional
+    void getAllUsersWithInvalidCursor() throws Exception {
+        restUserMockMvc
+            .perform(get("/api/admin/users?cursor=not-a-cursor").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isBadRequest());
+        restUserMockMvc
+            .perform(get("/api/admin/users?cursor=&sort=email,asc").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void exportUsers() throws Exception {
+        // Initialize the database, committed as the export streams from another thread
+        userRepository.saveAndFlush(user);
+
+        try {
+            MvcResult csv = restUserMockMvc
+                .perform(get("/api/admin/users/export?format=csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+            assertThat(csv.getRequest().getAsyncContext().getTimeout()).isEqualTo(1800000L);
+            restUserMockMvc
+                .perform(asyncDispatch(csv))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/csv"))
+                .andExpect(content().string(startsWith("id,login,first_name,")))
+                .andExpect(content().string(containsString("," + DEFAULT_LOGIN + "," + DEFAULT_FIRSTNAME + ",")));
+
+            MvcResult ndjson = restUserMockMvc
+                .perform(get("/api/admin/users/export?format=ndjson"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+            restUserMockMvc
+                .perform(asyncDispatch(ndjson))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("\"login\":\"" + DEFAULT_LOGIN + "\"")));
+        } finally {
+            userRepository.deleteById(user.getId());
+        }
+    }
+
+    @Test
+    void exportUsersNeutralisesFormulas() throws Exception {
+        // Initialize the database, committed as the export streams from another thread
+        user.setFirstName("=HYPERLINK(\"http://attacker\")");
+        user.setLastName("-1+1");
+        userRepository.saveAndFlush(user);
+
+        try {
+            MvcResult csv = restUserMockMvc
+                .perform(get("/api/admin/users/export?format=csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+            restUserMockMvc
+                .perform(asyncDispatch(csv))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("," + DEFAULT_LOGIN + ",\"'=HYPERLINK(\"\"http://attacker\"\")\",'-1+1,")));
+        } finally {
+            userRepository.deleteById(user.getId());
+        }
+    }
+
+    @Test
+    void importUsersRetriesAFailedBatchRowByRow() throws Exception {
+        // An authority deleted behind the registry's back passes validation, but fails the batch on its foreign key
+        Authority removed = new Authority();
+        removed.setName("ROLE_REMOVED");
+        authorityRepository.saveAndFlush(removed);
+        authorityRegistry.refresh();
+        authorityRepository.deleteById(removed.getName());
+        // Cache the absence of the user that will be imported
+        assertThat(userRepository.findOneWithAuthoritiesByLogin("batch-user")).isEmpty();
+        String csv =
+            "id,login,email,activated,authorities\r\n" +
+            "batch-1,batch-clash,batch-clash@localhost,true,ROLE_REMOVED\r\n" +
+            "batch-2,batch-user,batch-user@localhost,true," +
+            AuthoritiesConstants.USER +
+            "\r\n";
+
+        try {
+            restUserMockMvc
+                .perform(post("/api/admin/users/import?format=csv").contentType("text/csv").content(csv).with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(1))
+                .andExpect(jsonPath("$.errors.length()").value(1))
+                .andExpect(jsonPath("$.errors[0].row").value(1))
+                .andExpect(jsonPath("$.errors[0].message").value(startsWith("Could not be inserted")));
+
+            assertThat(userRepository.findOneByLogin("batch-clash")).isEmpty();
+            // The cached absence was evicted once the row was committed
+            assertThat(userRepository.findOneWithAuthoritiesByLogin("batch-user")).isPresent();
+        } finally {
+            userRepository.findOneByLogin("batch-user").ifPresent(userRepository::delete);
+            authorityRegistry.refresh();
+            cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE).clear();
+        }
+    }
+
+    @Test
+    @Transactional
+    void importUsersRestoresNeutralisedFormulas() throws Exception {
+        String csv = "id,login,email,first_name\r\n" + "imported-1,imported-user,imported@localhost,'=1+1\r\n";
+
+        restUserMockMvc
+            .perform(post("/api/admin/users/import?format=csv").contentType("text/csv").content(csv).with(csrf()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.imported").value(1));
+
+        assertThat(userRepository.findOneByLogin("imported-user"))
+            .hasValueSatisfying(imported -> assertThat(imported.getFirstName()).isEqualTo("=1+1"));
+    }
+
+    @Test
+    @Transactional
+    void importUsers() throws Exception {
+        String csv =
+            "id,login,email,activated,authorities\r\n" +
+            "imported-1,imported-user,imported@localhost,true," + AuthoritiesConstants.USER + "\r\n" +
+            "imported-2,imported-invalid,not-an-email,true,\r\n";
+
+        restUserMockMvc
+            .perform(post("/api/admin/users/import?format=csv").contentType("text/csv").content(csv).with(csrf()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.imported").value(1))
+            .andExpect(jsonPath("$.errors[0].row").value(2))
+            .andExpect(jsonPath("$.errors[0].login").value("imported-invalid"));
+
+        assertThat(userRepository.findOneWithAuthoritiesByLogin("imported-user"))
+            .hasValueSatisfying(imported -> {
+                assertThat(imported.getEmail()).isEqualTo("imported@localhost");
+                assertThat(imported.getAuthorities()).extracting(Authority::getName).containsExactly(AuthoritiesConstants.USER);
+            });
+        assertThat(userRepository.findOneByLogin("imported-invalid")).isEmpty();
+    }
+
     @Test
     @Transactional
     void getUser() throws Exception {
@@ -0,0 +1,275 @@
+package org.codingspiderfox.web.websocket;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.codingspiderfox.config.WebsocketConfiguration.IP_ADDRESS;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import org.codingspiderfox.config.ApplicationProperties;
+import org.codingspiderfox.service.PostgresNotificationService;
+import org.codingspiderfox.web.websocket.dto.ActivityDTO;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+/**
+ * Test class for the {@link ActivityService} class.
+ */
+class ActivityServiceTest {
+
+    private final SimpMessageSendingOperations messagingTemplate = mock(SimpMessageSendingOperations.class);
+
+    private final PresenceRegistry presenceRegistry = new PresenceRegistry(new SimpleMeterRegistry());
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    private final ActivityService activityService = new ActivityService(
+        messagingTemplate,
+        mock(MessageChannel.class),
+        presenceRegistry,
+        mock(PostgresNotificationService.class),
+        objectMapper,
+        new ApplicationProperties()
+    );
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFlushSendsLatestActivityPerSession() {
+        activityService.sendActivity(activity("/home"), session("session-1"), user("john"));
+        activityService.sendActivity(activity("/account"), session("session-1"), user("john"));
+        activityService.sendActivity(activity("/admin"), session("session-2"), user("jane"));
+
+        activityService.flush();
+
+        ArgumentCaptor<List<ActivityDTO>> changes = ArgumentCaptor.forClass(List.class);
+        verify(messagingTemplate).convertAndSend(eq(ActivityService.TRACKER_TOPIC), changes.capture());
+        assertThat(changes.getValue()).extracting(ActivityDTO::getPage).containsExactlyInAnyOrder("/account", "/admin");
+    }
+
+    @Test
+    void testFlushSendsNothingWithoutChanges() {
+        activityService.sendActivity(activity("/home"), session("session-1"), user("john"));
+        activityService.flush();
+
+        activityService.flush();
+
+        verify(messagingTemplate).convertAndSend(eq(ActivityService.TRACKER_TOPIC), any(Object.class));
+    }
+
+    @Test
+    void testSnapshotHoldsCurrentActivities() {
+        activityService.sendActivity(activity("/home"), session("session-1"), user("john"));
+        activityService.sendActivity(activity("/account"), session("session-1"), user("john"));
+
+        List<ActivityDTO> snapshot = activityService.getActivities(subscription("session-2", "sub-0"));
+
+        assertThat(snapshot).extracting(ActivityDTO::getPage).containsExactly("/account");
+        verifyNoInteractions(messagingTemplate);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testEvictIdleSessionsSendsLogout() {
+        ActivityDTO stale = activity("/home");
+        stale.setSessionId("session-1");
+        stale.setUserLogin("john");
+        stale.setTime(Instant.now().minus(Duration.ofDays(1)));
+        presenceRegistry.update(stale);
+
+        activityService.evictIdleSessions();
+        activityService.flush();
+
+        assertThat(presenceRegistry.getSessions()).isEmpty();
+        ArgumentCaptor<List<ActivityDTO>> changes = ArgumentCaptor.forClass(List.class);
+        verify(messagingTemplate).convertAndSend(eq(ActivityService.TRACKER_TOPIC), changes.capture());
+        assertThat(changes.getValue()).extracting(ActivityDTO::getPage).containsExactly("logout");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testDisconnectSendsLogout() {
+        activityService.sendActivity(activity("/home"), session("session-1"), user("john"));
+        activityService.flush();
+
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.DISCONNECT);
+        accessor.setSessionId("session-1");
+        Message<byte[]> message = MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+        activityService.onApplicationEvent(new SessionDisconnectEvent(this, message, "session-1", CloseStatus.NORMAL));
+        activityService.flush();
+
+        assertThat(presenceRegistry.getSessions()).isEmpty();
+        ArgumentCaptor<List<ActivityDTO>> changes = ArgumentCaptor.forClass(List.class);
+        verify(messagingTemplate, times(2)).convertAndSend(eq(ActivityService.TRACKER_TOPIC), changes.capture());
+        assertThat(changes.getValue()).extracting(ActivityDTO::getSessionId).containsExactly("session-1");
+        assertThat(changes.getValue()).extracting(ActivityDTO::getPage).containsExactly("logout");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFlushSplitsLargeChangesIntoMessagesFittingTheRelay() {
+        String longPage = "/" + "a".repeat(ActivityService.MAX_PAGE_LENGTH * 2);
+        for (int i = 0; i < 40; i++) {
+            activityService.sendActivity(activity(longPage), session("session-" + i), user("john"));
+        }
+
+        activityService.flush();
+
+        ArgumentCaptor<List<ActivityDTO>> changes = ArgumentCaptor.forClass(List.class);
+        verify(messagingTemplate, atLeast(2)).convertAndSend(eq(ActivityService.TRACKER_TOPIC), changes.capture());
+        assertThat(changes.getAllValues()).flatExtracting(activities -> activities).hasSize(40);
+        assertThat(changes.getAllValues())
+            .allSatisfy(activities -> assertThat(serializedBytes(activities)).isLessThanOrEqualTo(ActivityService.MAX_MESSAGE_BYTES));
+        assertThat(changes.getAllValues().get(0))
+            .extracting(ActivityDTO::getPage)
+            .allMatch(page -> page.length() == ActivityService.MAX_PAGE_LENGTH);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testSnapshotRequestIsAnsweredToTheSubscribingSessionOnly() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getWebsocket().setBroker(ApplicationProperties.Websocket.BrokerMode.POSTGRES);
+        PostgresNotificationService subscriberNotifications = mock(PostgresNotificationService.class);
+        when(subscriberNotifications.getNodeId()).thenReturn("subscriber-node");
+        PostgresNotificationService peerNotifications = mock(PostgresNotificationService.class);
+        when(peerNotifications.getNodeId()).thenReturn("peer-node");
+        MessageChannel subscriberOutboundChannel = mock(MessageChannel.class);
+        SimpMessageSendingOperations peerMessagingTemplate = mock(SimpMessageSendingOperations.class);
+        ActivityService subscriberNode = new ActivityService(
+            messagingTemplate,
+            subscriberOutboundChannel,
+            new PresenceRegistry(new SimpleMeterRegistry()),
+            subscriberNotifications,
+            objectMapper,
+            applicationProperties
+        );
+        ActivityService peerNode = new ActivityService(
+            peerMessagingTemplate,
+            mock(MessageChannel.class),
+            new PresenceRegistry(new SimpleMeterRegistry()),
+            peerNotifications,
+            objectMapper,
+            applicationProperties
+        );
+        String snapshotChannel = applicationProperties.getWebsocket().getPostgres().getSnapshotChannel();
+        verify(peerNotifications).register(eq(snapshotChannel), any(), any());
+        for (int i = 0; i < 3; i++) {
+            peerNode.sendActivity(activity("/home"), session("session-" + i), user("user-" + i));
+        }
+        peerNode.flush();
+        clearInvocations(peerMessagingTemplate);
+
+        assertThat(subscriberNode.getActivities(subscription("subscriber-session", "sub-0"))).isEmpty();
+        ArgumentCaptor<JsonNode> request = ArgumentCaptor.forClass(JsonNode.class);
+        verify(subscriberNotifications).send(eq(snapshotChannel), request.capture());
+        peerNode.receiveSnapshot("subscriber-node", request.getValue());
+        ArgumentCaptor<JsonNode> answer = ArgumentCaptor.forClass(JsonNode.class);
+        verify(peerNotifications).send(eq(snapshotChannel), answer.capture());
+        subscriberNode.receiveSnapshot("peer-node", answer.getValue());
+        peerNode.flush();
+
+        ArgumentCaptor<Message<byte[]>> snapshot = ArgumentCaptor.forClass(Message.class);
+        verify(subscriberOutboundChannel).send(snapshot.capture());
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(snapshot.getValue());
+        assertThat(accessor.getSessionId()).isEqualTo("subscriber-session");
+        assertThat(accessor.getSubscriptionId()).isEqualTo("sub-0");
+        assertThat(accessor.getDestination()).isEqualTo(ActivityService.TRACKER_TOPIC);
+        assertThat(readActivities(snapshot.getValue().getPayload()))
+            .extracting(ActivityDTO::getSessionId)
+            .containsExactlyInAnyOrder("session-0", "session-1", "session-2");
+        verifyNoInteractions(peerMessagingTemplate);
+        verifyNoInteractions(messagingTemplate);
+    }
+
+    @Test
+    void testSnapshotAnswerForAnotherNodeIsIgnored() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getWebsocket().setBroker(ApplicationProperties.Websocket.BrokerMode.POSTGRES);
+        PostgresNotificationService postgresNotificationService = mock(PostgresNotificationService.class);
+        when(postgresNotificationService.getNodeId()).thenReturn("this-node");
+        MessageChannel clientOutboundChannel = mock(MessageChannel.class);
+        ActivityService node = new ActivityService(
+            messagingTemplate,
+            clientOutboundChannel,
+            presenceRegistry,
+            postgresNotificationService,
+            objectMapper,
+            applicationProperties
+        );
+
+        node.receiveSnapshot(
+            "peer-node",
+            objectMapper.createObjectNode().put("type", "answer").put("node", "other-node").put("sessionId", "session-1")
+        );
+
+        verifyNoInteractions(clientOutboundChannel);
+    }
+
+    private static ActivityDTO activity(String page) {
+        ActivityDTO activityDTO = new ActivityDTO();
+        activityDTO.setPage(page);
+        return activityDTO;
+    }
+
+    private static StompHeaderAccessor session(String sessionId) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SEND);
+        accessor.setSessionId(sessionId);
+        accessor.setSessionAttributes(new HashMap<>());
+        accessor.getSessionAttributes().put(IP_ADDRESS, "127.0.0.1");
+        return accessor;
+    }
+
+    private static StompHeaderAccessor subscription(String sessionId, String subscriptionId) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        return accessor;
+    }
+
+    private static TestingAuthenticationToken user(String login) {
+        return new TestingAuthenticationToken(login, null);
+    }
+
+    private int serializedBytes(List<ActivityDTO> activities) {
+        try {
+            return objectMapper.writeValueAsBytes(activities).length;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private List<ActivityDTO> readActivities(byte[] payload) {
+        try {
+            return objectMapper.readValue(payload, new TypeReference<List<ActivityDTO>>() {});
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
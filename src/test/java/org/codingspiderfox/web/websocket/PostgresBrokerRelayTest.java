@@ -0,0 +1,116 @@
+package org.codingspiderfox.web.websocket;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import org.codingspiderfox.config.ApplicationProperties;
+import org.codingspiderfox.service.PostgresNotificationService;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+
+/**
+ * Test class for the {@link PostgresBrokerRelay} class.
+ */
+class PostgresBrokerRelayTest {
+
+    private final MessageChannel senderBrokerChannel = mock(MessageChannel.class);
+
+    private final MessageChannel receiverBrokerChannel = mock(MessageChannel.class);
+
+    private final PostgresNotificationService postgresNotificationService = mock(PostgresNotificationService.class);
+
+    private final PostgresBrokerRelay sender = relay(senderBrokerChannel);
+
+    private final PostgresBrokerRelay receiver = relay(receiverBrokerChannel);
+
+    @Test
+    void testRelaysTopicMessagesToOtherNodes() {
+        sender.preSend(message("/topic/tracker", "{\"page\":\"home\"}"), senderBrokerChannel);
+
+        receiver.receive("sender-node", relayed());
+
+        ArgumentCaptor<Message<?>> relayed = ArgumentCaptor.forClass(Message.class);
+        verify(receiverBrokerChannel).send(relayed.capture());
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(relayed.getValue());
+        assertThat(accessor.getDestination()).isEqualTo("/topic/tracker");
+        assertThat(accessor.getContentType()).isEqualTo(MimeTypeUtils.APPLICATION_JSON);
+        assertThat(accessor.getHeader(PostgresBrokerRelay.RELAYED_FROM_HEADER)).isEqualTo("sender-node");
+        assertThat(new String((byte[]) relayed.getValue().getPayload(), StandardCharsets.UTF_8)).isEqualTo("{\"page\":\"home\"}");
+    }
+
+    @Test
+    void testEmbedsJsonPayloadsAsJson() {
+        sender.preSend(message("/topic/tracker", "[{\"page\":\"home\"}]"), senderBrokerChannel);
+
+        JsonNode relayed = relayed();
+
+        assertThat(relayed.path("json").isArray()).isTrue();
+        assertThat(relayed.path("json").path(0).path("page").asText()).isEqualTo("home");
+        assertThat(relayed.has("payload")).isFalse();
+    }
+
+    @Test
+    void testRelaysTextPayloads() {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination("/topic/tracker");
+        accessor.setContentType(MimeTypeUtils.TEXT_PLAIN);
+        Message<byte[]> message = MessageBuilder.createMessage("hello".getBytes(StandardCharsets.UTF_8), accessor.getMessageHeaders());
+        sender.preSend(message, senderBrokerChannel);
+
+        receiver.receive("sender-node", relayed());
+
+        ArgumentCaptor<Message<?>> relayed = ArgumentCaptor.forClass(Message.class);
+        verify(receiverBrokerChannel).send(relayed.capture());
+        assertThat(SimpMessageHeaderAccessor.wrap(relayed.getValue()).getContentType()).isEqualTo(MimeTypeUtils.TEXT_PLAIN);
+        assertThat(new String((byte[]) relayed.getValue().getPayload(), StandardCharsets.UTF_8)).isEqualTo("hello");
+    }
+
+    @Test
+    void testDoesNotRelayRelayedMessagesAgain() {
+        sender.preSend(message("/topic/tracker", "{}"), senderBrokerChannel);
+        receiver.receive("sender-node", relayed());
+        ArgumentCaptor<Message<?>> relayed = ArgumentCaptor.forClass(Message.class);
+        verify(receiverBrokerChannel).send(relayed.capture());
+
+        receiver.preSend(relayed.getValue(), receiverBrokerChannel);
+
+        verify(postgresNotificationService).send(any(), any());
+    }
+
+    @Test
+    void testDoesNotRelayQueueMessages() {
+        sender.preSend(message("/queue/errors", "{}"), senderBrokerChannel);
+
+        verify(postgresNotificationService, never()).send(any(), any());
+    }
+
+    private JsonNode relayed() {
+        ArgumentCaptor<JsonNode> relayed = ArgumentCaptor.forClass(JsonNode.class);
+        verify(postgresNotificationService).send(eq("websocket_broker"), relayed.capture());
+        return relayed.getValue();
+    }
+
+    private static Message<byte[]> message(String destination, String payload) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination(destination);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        return MessageBuilder.createMessage(payload.getBytes(StandardCharsets.UTF_8), accessor.getMessageHeaders());
+    }
+
+    private PostgresBrokerRelay relay(MessageChannel brokerChannel) {
+        return new PostgresBrokerRelay(brokerChannel, postgresNotificationService, new ObjectMapper(), new ApplicationProperties());
+    }
+}
@@ -0,0 +1,99 @@
+package org.codingspiderfox.web.websocket;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Instant;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.codingspiderfox.web.websocket.dto.ActivityDTO;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the {@link PresenceRegistry} class.
+ */
+class PresenceRegistryTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final PresenceRegistry presenceRegistry = new PresenceRegistry(meterRegistry);
+
+    @Test
+    void testCountsSessionsAndDistinctUsers() {
+        presenceRegistry.update(activity("session-1", "john", Instant.now()));
+        presenceRegistry.update(activity("session-2", "john", Instant.now()));
+        presenceRegistry.update(activity("session-3", "jane", Instant.now()));
+        presenceRegistry.update(activity("session-3", "jane", Instant.now()));
+
+        assertThat(presenceRegistry.getSessionCount()).isEqualTo(3);
+        assertThat(presenceRegistry.getUserCount()).isEqualTo(2);
+        assertThat(meterRegistry.get("presence.users").gauge().value()).isEqualTo(2);
+
+        presenceRegistry.remove("session-1");
+        assertThat(presenceRegistry.getUserCount()).isEqualTo(2);
+        presenceRegistry.remove("session-2");
+        assertThat(presenceRegistry.getUserCount()).isEqualTo(1);
+        assertThat(meterRegistry.get("presence.sessions").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void testEvictIdleSessions() {
+        Instant now = Instant.now();
+        presenceRegistry.update(activity("session-1", "john", now.minusSeconds(3600)));
+        presenceRegistry.update(activity("session-2", "jane", now));
+
+        assertThat(presenceRegistry.evictIdle(now.minusSeconds(60))).containsExactly("session-1");
+        assertThat(presenceRegistry.getSessions()).extracting(ActivityDTO::getSessionId).containsExactly("session-2");
+        assertThat(presenceRegistry.getUserCount()).isEqualTo(1);
+    }
+
+    @Test
+    void testConcurrentUpdatesAndRemovalsKeepTheCountsConsistent() throws Exception {
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                executor.execute(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    for (int i = 0; i < 10000; i++) {
+                        // the threads share a few sessions, switching them between a few logins
+                        String sessionId = "session-" + (i % 4);
+                        if ((i + thread) % 3 == 0) {
+                            presenceRegistry.remove(sessionId);
+                        } else {
+                            presenceRegistry.update(activity(sessionId, "user-" + ((i + thread) % 5), Instant.now()));
+                        }
+                    }
+                });
+            }
+            start.countDown();
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(executor.awaitTermination(1, TimeUnit.MINUTES)).isTrue();
+
+        long logins = presenceRegistry.getSessions().stream().map(ActivityDTO::getUserLogin).distinct().count();
+        assertThat((long) presenceRegistry.getUserCount()).isEqualTo(logins);
+        presenceRegistry.getSessions().forEach(activity -> presenceRegistry.remove(activity.getSessionId()));
+        assertThat(presenceRegistry.getSessionCount()).isZero();
+        assertThat(presenceRegistry.getUserCount()).isZero();
+    }
+
+    private static ActivityDTO activity(String sessionId, String login, Instant time) {
+        ActivityDTO activityDTO = new ActivityDTO();
+        activityDTO.setSessionId(sessionId);
+        activityDTO.setUserLogin(login);
+        activityDTO.setPage("/home");
+        activityDTO.setTime(time);
+        return activityDTO;
+    }
+}